@@ -0,0 +1,128 @@
+package younan.george.littlepaycodingchallenge.benchmark;
+
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.dto.TravelPriceId;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+import younan.george.littlepaycodingchallenge.io.TapCsvFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a reproducible day of taps for the benchmarks.
+ * Cards tap in a random interleaved order; each trip is completed, cancelled (tap OFF at the same stop)
+ * or incomplete (no tap OFF) according to the configured ratios.
+ */
+public class SyntheticTapGenerator {
+    private static final long START_OF_DAY = ZonedDateTime.of(2023, 1, 22, 0, 0, 0, 0, ZoneOffset.UTC).toEpochSecond();
+
+    private final int panCount;
+    private final double incompleteRatio;
+    private final double cancelledRatio;
+    private final long seed;
+    private final StopId[] stops;
+
+    /**
+     * @param panCount Number of distinct cards
+     * @param stopCount Number of distinct stops, registered as SYNTHETICSTOP0, SYNTHETICSTOP1, ...
+     * @param incompleteRatio Share of trips without a tap OFF
+     * @param cancelledRatio Share of trips with a tap OFF at the stop of the tap ON
+     * @param seed Seed of the random generator
+     */
+    public SyntheticTapGenerator(int panCount, int stopCount, double incompleteRatio, double cancelledRatio, long seed) {
+        this.panCount = panCount;
+        this.incompleteRatio = incompleteRatio;
+        this.cancelledRatio = cancelledRatio;
+        this.seed = seed;
+        this.stops = new StopId[stopCount];
+        for (int i = 0; i < stopCount; i++) {
+            stops[i] = StopId.of("SyntheticStop" + i);
+        }
+    }
+
+    /**
+     * @return A price for travel between every pair of generated stops
+     */
+    public Map<TravelPriceId, BigDecimal> travelPrices() {
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<TravelPriceId, BigDecimal> travelPrices = new HashMap<>();
+        for (int from = 0; from < stops.length; from++) {
+            for (int to = from + 1; to < stops.length; to++) {
+                travelPrices.put(new TravelPriceId(stops[from], stops[to]), BigDecimal.valueOf(100 + random.nextInt(900), 2));
+            }
+        }
+        return travelPrices;
+    }
+
+    /**
+     * @param tapCount Number of taps to generate
+     * @return The taps, in the order they happened
+     */
+    public List<TapDetail> generate(int tapCount) {
+        SplittableRandom random = new SplittableRandom(seed);
+        StopId[] pendingTapOff = new StopId[panCount];
+        List<TapDetail> taps = new ArrayList<>(tapCount);
+        for (int id = 1; id <= tapCount; id++) {
+            int card = random.nextInt(panCount);
+            StopId stop = pendingTapOff[card];
+            TapType tapType = TapType.OFF;
+            if (stop == null) {
+                tapType = TapType.ON;
+                stop = stops[random.nextInt(stops.length)];
+                double trip = random.nextDouble();
+                if (trip >= incompleteRatio) {
+                    pendingTapOff[card] = trip < incompleteRatio + cancelledRatio ? stop : otherStop(random, stop);
+                }
+            } else {
+                pendingTapOff[card] = null;
+            }
+            taps.add(new TapDetail(id, START_OF_DAY + id, tapType, stop,
+                    "Company" + card % 10, "Bus" + random.nextInt(1000), pan(card)));
+        }
+        return taps;
+    }
+
+    /**
+     * Writes generated taps to a file in the input CSV format.
+     *
+     * @param output The file to write
+     * @param tapCount Number of taps to generate
+     * @throws IOException if the file cannot be written
+     */
+    public void writeCsv(Path output, int tapCount) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+            writer.write(TapCsvFormat.HEADER);
+            writer.newLine();
+            for (TapDetail tap : generate(tapCount)) {
+                writer.write(TapCsvFormat.format(tap));
+                writer.newLine();
+            }
+        }
+    }
+
+    private StopId otherStop(SplittableRandom random, StopId stop) {
+        if (stops.length < 2) {
+            return stop;
+        }
+        StopId other;
+        do {
+            other = stops[random.nextInt(stops.length)];
+        } while (other == stop);
+        return other;
+    }
+
+    private static String pan(int card) {
+        return String.format("55000000%08d", card);
+    }
+}
@@ -0,0 +1,66 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import younan.george.littlepaycodingchallenge.benchmark.SyntheticTapGenerator;
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+import younan.george.littlepaycodingchallenge.service.TravelCostService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing a synthetic day of trip results to a CSV file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TripResultCsvWriterBenchmark {
+    @Param({"8192", "65536", "1048576"})
+    int bufferSize;
+
+    @Param("200000")
+    int tapCount;
+
+    Path output;
+    List<TripResult> tripResults;
+
+    @Setup
+    public void setUp() throws Exception {
+        SyntheticTapGenerator generator = new SyntheticTapGenerator(10000, 100, 0.05, 0.02, 42);
+        TravelCostService travelCostService = new TravelCostService();
+        travelCostService.updateTravelPrices(generator.travelPrices());
+        tripResults = travelCostService.calculateCostForAll(generator.generate(tapCount));
+        output = Files.createTempFile("trip-results", ".csv");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public long write() throws Exception {
+        try (TripResultCsvWriter writer = new TripResultCsvWriter(output, bufferSize)) {
+            for (TripResult tripResult : tripResults) {
+                writer.write(tripResult);
+            }
+            return writer.getRowsWritten();
+        }
+    }
+}
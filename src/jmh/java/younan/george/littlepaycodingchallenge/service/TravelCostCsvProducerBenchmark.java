@@ -0,0 +1,99 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+import younan.george.littlepaycodingchallenge.benchmark.SyntheticTapGenerator;
+import younan.george.littlepaycodingchallenge.enums.ProcessingMode;
+import younan.george.littlepaycodingchallenge.enums.TapParserType;
+import younan.george.littlepaycodingchallenge.enums.ValidationMode;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing the input CSV file with each parser and validation mode,
+ * and the whole parse, price and write run in each processing mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TravelCostCsvProducerBenchmark {
+    @Param({"LINES", "MAPPED", "CHUNKED"})
+    TapParserType parser;
+
+    @Param({"BATCH", "STREAMING", "COLUMNAR", "SORTED", "PIPELINED"})
+    ProcessingMode mode;
+
+    @Param({"COMPILED", "REFLECTIVE"})
+    ValidationMode validation;
+
+    @Param("10000")
+    int panCount;
+
+    @Param("100")
+    int stopCount;
+
+    @Param("200000")
+    int tapCount;
+
+    Path directory;
+    TravelCostCsvProducer producer;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("producer-benchmark");
+        Path input = directory.resolve("taps.csv");
+        SyntheticTapGenerator generator = new SyntheticTapGenerator(panCount, stopCount, 0.05, 0.02, 42);
+        generator.writeCsv(input, tapCount);
+
+        TravelCostService travelCostService = new TravelCostService();
+        travelCostService.updateTravelPrices(generator.travelPrices());
+        producer = new TravelCostCsvProducer();
+        ReflectionTestUtils.setField(producer, "travelCostService", travelCostService);
+        ReflectionTestUtils.setField(producer, "inputFile", input.toString());
+        ReflectionTestUtils.setField(producer, "outputFile", directory.resolve("output.csv").toString());
+        ReflectionTestUtils.setField(producer, "outputBufferSize", 1 << 16);
+        ReflectionTestUtils.setField(producer, "inputParser", parser);
+        ReflectionTestUtils.setField(producer, "inputChunkSize", 1 << 20);
+        ReflectionTestUtils.setField(producer, "processingMode", mode);
+        ReflectionTestUtils.setField(producer, "validationMode", validation);
+        ReflectionTestUtils.setField(producer, "sortDirectory", directory.toString());
+        // Small enough that the sorted mode spills several runs
+        ReflectionTestUtils.setField(producer, "sortMemoryBudgetBytes", 8L << 20);
+        ReflectionTestUtils.setField(producer, "pipelineBatchSize", 1024);
+        ReflectionTestUtils.setField(producer, "pipelineQueueCapacity", 16);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(directory.resolve("taps.csv"));
+        Files.deleteIfExists(directory.resolve("output.csv"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public long parse(Blackhole blackhole) throws Exception {
+        return producer.readTaps(blackhole::consume);
+    }
+
+    @Benchmark
+    public void parsePriceAndWrite() throws Exception {
+        producer.readCsvAndProduceResult();
+    }
+}
@@ -0,0 +1,104 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import younan.george.littlepaycodingchallenge.benchmark.SyntheticTapGenerator;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.dto.TravelPrice;
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the pricing stage on its own, from single fare lookups up to a whole synthetic day.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TravelCostServiceBenchmark {
+    @Param("10000")
+    int panCount;
+
+    @Param("100")
+    int stopCount;
+
+    @Param("0.05")
+    double incompleteRatio;
+
+    @Param("0.02")
+    double cancelledRatio;
+
+    @Param("200000")
+    int tapCount;
+
+    TravelCostService travelCostService;
+    FareMatrix fareMatrix;
+    List<TapDetail> taps;
+    StopId[] stops;
+    TapDetail tapOn;
+    TapDetail tapOff;
+    int next;
+
+    @Setup
+    public void setUp() {
+        SyntheticTapGenerator generator = new SyntheticTapGenerator(panCount, stopCount, incompleteRatio, cancelledRatio, 42);
+        travelCostService = new TravelCostService();
+        travelCostService.updateTravelPrices(generator.travelPrices());
+        fareMatrix = FareMatrix.compile(generator.travelPrices());
+        taps = generator.generate(tapCount);
+        stops = taps.stream().map(TapDetail::getStopId).distinct().toArray(StopId[]::new);
+        tapOn = taps.stream().filter(tap -> tap.getTapType() == TapType.ON).findFirst().orElseThrow();
+        tapOff = taps.stream()
+                .filter(tap -> tap.getTapType() == TapType.OFF && tap.getStopId() != tapOn.getStopId())
+                .findFirst().orElseThrow();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public TripResult calculateCost() {
+        return travelCostService.calculateCost(tapOn, tapOff);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public TravelPrice getMaxCostForStop() {
+        return travelCostService.getMaxCostForStop(stops[next++ % stops.length]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long fareLookup() {
+        int index = next++;
+        return fareMatrix.getFareCents(stops[index % stops.length], stops[(index / stops.length) % stops.length]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<TripResult> calculateCostForAll() {
+        return travelCostService.calculateCostForAll(taps);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<TripResult> calculateCostForAllParallel() {
+        return travelCostService.calculateCostForAll(taps, Runtime.getRuntime().availableProcessors());
+    }
+}
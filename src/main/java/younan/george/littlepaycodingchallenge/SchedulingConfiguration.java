@@ -0,0 +1,16 @@
+package younan.george.littlepaycodingchallenge;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the scheduled tasks, such as reloading the fare file when it changes, in TAILING mode only.
+ * The scheduler thread is not a daemon, so in the one-shot modes it would keep the application running
+ * after the output has been written instead of letting it exit.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "processing.mode", havingValue = "TAILING")
+public class SchedulingConfiguration {
+}
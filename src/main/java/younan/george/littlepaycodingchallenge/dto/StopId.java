@@ -0,0 +1,322 @@
+package younan.george.littlepaycodingchallenge.dto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A stop in the network, interned in a registry that maps stop names to compact int ids.
+ * Stops are registered at runtime, typically while loading the fare table, so the network can change
+ * without a code change. Like an enum, there is exactly one instance per stop, so stops can be compared with {@code ==}.
+ * <p>
+ * Stop names are case-insensitive and stored in upper case, e.g. {@code Stop1} is registered as {@code STOP1}.
+ * Lookups hash the name in place, so looking up a stop does not allocate.
+ * Registering stops copies the registry, which makes lookups lock-free while registrations are rare;
+ * many stops, such as those of a fare file, are registered at once with {@link #registerAll} to copy it only once.
+ */
+public final class StopId {
+    public static final StopId STOP1 = of("Stop1");
+    public static final StopId STOP2 = of("Stop2");
+    public static final StopId STOP3 = of("Stop3");
+
+    /**
+     * The registry holding only the stops above, restored by {@link #reset()}
+     */
+    private static final Registry.Table BUILT_IN = Registry.table;
+
+    /**
+     * The compact id of this stop, assigned in registration order starting from 0
+     */
+    private final int id;
+
+    /**
+     * The upper case name of this stop
+     */
+    private final String name;
+
+    /**
+     * The upper case name of this stop in UTF-8
+     */
+    private final byte[] nameBytes;
+
+    private StopId(int id, String name) {
+        this.id = id;
+        this.name = name;
+        this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The compact id of this stop, between 0 and {@link #count()} (exclusive)
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * @return The upper case name of this stop
+     */
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Gets a stop by name, registering it if it is not known yet.
+     *
+     * @param name The name of the stop, ignoring case and surrounding whitespace
+     * @return The stop
+     * @throws IllegalArgumentException if the name is blank
+     */
+    public static StopId of(CharSequence name) {
+        StopId stopId = lookup(name);
+        return stopId != null ? stopId : Registry.registerAll(List.of(name)).get(0);
+    }
+
+    /**
+     * Gets many stops by name, registering those that are not known yet in a single copy of the registry.
+     * If any name is blank, no stop is registered.
+     *
+     * @param names The names of the stops, ignoring case and surrounding whitespace
+     * @return The stops, in the order of their names
+     * @throws IllegalArgumentException if a name is blank
+     */
+    public static List<StopId> registerAll(Collection<? extends CharSequence> names) {
+        return Registry.registerAll(names);
+    }
+
+    /**
+     * Gets a known stop by name, in the same way as {@code Enum.valueOf}.
+     *
+     * @param name The name of the stop, ignoring case and surrounding whitespace
+     * @return The stop
+     * @throws IllegalArgumentException if no stop with that name is registered
+     */
+    public static StopId valueOf(CharSequence name) {
+        StopId stopId = lookup(name);
+        if (stopId == null) {
+            throw new IllegalArgumentException("Unknown stop " + name);
+        }
+        return stopId;
+    }
+
+    /**
+     * Gets a known stop by name.
+     *
+     * @param name The name of the stop, ignoring case and surrounding whitespace
+     * @return The stop, or null if no stop with that name is registered
+     */
+    public static StopId lookup(CharSequence name) {
+        int start = 0;
+        int end = name.length();
+        while (start < end && name.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && name.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int hash = 0;
+        for (int index = start; index < end; index++) {
+            char c = name.charAt(index);
+            if (c >= 0x80) {
+                // Names outside ASCII are hashed over their UTF-8 bytes
+                byte[] bytes = name.subSequence(start, end).toString().getBytes(StandardCharsets.UTF_8);
+                return lookup(ByteBuffer.wrap(bytes), 0, bytes.length);
+            }
+            hash = 31 * hash + toUpperCase(c);
+        }
+
+        Registry.Table table = Registry.table;
+        for (int slot = hash & table.mask; ; slot = (slot + 1) & table.mask) {
+            StopId candidate = table.slots[slot];
+            if (candidate == null) {
+                return null;
+            }
+            if (candidate.nameBytes.length == end - start && candidate.matches(name, start)) {
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * Gets a known stop by its UTF-8 encoded name.
+     *
+     * @param buffer Buffer holding the name
+     * @param start Offset of the first byte of the name
+     * @param end Offset after the last byte of the name
+     * @return The stop, or null if no stop with that name is registered
+     */
+    public static StopId lookup(ByteBuffer buffer, int start, int end) {
+        int hash = 0;
+        for (int index = start; index < end; index++) {
+            hash = 31 * hash + toUpperCase(buffer.get(index));
+        }
+
+        Registry.Table table = Registry.table;
+        for (int slot = hash & table.mask; ; slot = (slot + 1) & table.mask) {
+            StopId candidate = table.slots[slot];
+            if (candidate == null) {
+                return null;
+            }
+            if (candidate.nameBytes.length == end - start && candidate.matches(buffer, start)) {
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * Gets a stop by its compact id.
+     *
+     * @param id The id of the stop
+     * @return The stop
+     * @throws ArrayIndexOutOfBoundsException if no stop with that id is registered
+     */
+    public static StopId byId(int id) {
+        return Registry.table.byId[id];
+    }
+
+    /**
+     * @return The number of registered stops
+     */
+    public static int count() {
+        return Registry.table.count;
+    }
+
+    /**
+     * @return All registered stops, ordered by id
+     */
+    public static StopId[] values() {
+        Registry.Table table = Registry.table;
+        return Arrays.copyOf(table.byId, table.count);
+    }
+
+    /**
+     * Forgets every stop registered after {@link #STOP1}, {@link #STOP2} and {@link #STOP3}, so that tests
+     * registering stops do not leak them into later tests. The ids of the forgotten stops are reused by the
+     * stops registered next, so the forgotten instances must not be used afterwards.
+     */
+    public static void reset() {
+        synchronized (Registry.class) {
+            Registry.table = BUILT_IN;
+        }
+    }
+
+    private boolean matches(CharSequence name, int start) {
+        for (int index = 0; index < nameBytes.length; index++) {
+            if (nameBytes[index] != toUpperCase(name.charAt(start + index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(ByteBuffer buffer, int start) {
+        for (int index = 0; index < nameBytes.length; index++) {
+            if (nameBytes[index] != toUpperCase(buffer.get(start + index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int toUpperCase(int c) {
+        return c >= 'a' && c <= 'z' ? c - ('a' - 'A') : c;
+    }
+
+    /**
+     * The registry of all stops. Kept in a holder class so that it is initialized before the constants above.
+     */
+    private static final class Registry {
+        /**
+         * An immutable snapshot of the registry.
+         *
+         * @param byId Every stop indexed by id, with spare capacity at the end
+         * @param count Number of stops in {@code byId}
+         * @param slots Open addressing hash table of the stops, keyed by upper case name
+         * @param mask {@code slots.length - 1}, as the length is a power of two
+         */
+        private record Table(StopId[] byId, int count, StopId[] slots, int mask) {
+        }
+
+        private static volatile Table table = new Table(new StopId[16], 0, new StopId[32], 31);
+
+        private static synchronized List<StopId> registerAll(Collection<? extends CharSequence> names) {
+            Table current = table;
+            List<StopId> stopIds = new ArrayList<>(names.size());
+            Map<String, StopId> added = new HashMap<>();
+            StopId[] byId = null;
+            int count = current.count;
+            for (CharSequence name : names) {
+                StopId stopId = lookup(name);
+                if (stopId == null) {
+                    String canonicalName = canonicalName(name);
+                    if (canonicalName.isEmpty()) {
+                        throw new IllegalArgumentException("Stop name cannot be blank");
+                    }
+                    stopId = added.get(canonicalName);
+                    if (stopId == null) {
+                        if (byId == null) {
+                            int length = current.byId.length;
+                            while (length < current.count + names.size()) {
+                                length *= 2;
+                            }
+                            byId = Arrays.copyOf(current.byId, length);
+                        }
+                        stopId = new StopId(count, canonicalName);
+                        byId[count++] = stopId;
+                        added.put(canonicalName, stopId);
+                    }
+                }
+                stopIds.add(stopId);
+            }
+            if (byId == null) {
+                return stopIds;
+            }
+
+            // Keep the hash table at most half full
+            int capacity = current.slots.length;
+            while (capacity < count * 2) {
+                capacity *= 2;
+            }
+            StopId[] slots = new StopId[capacity];
+            for (int id = 0; id < count; id++) {
+                insert(slots, byId[id]);
+            }
+            table = new Table(byId, count, slots, capacity - 1);
+            return stopIds;
+        }
+
+        private static void insert(StopId[] slots, StopId stopId) {
+            int hash = 0;
+            for (byte b : stopId.nameBytes) {
+                hash = 31 * hash + b;
+            }
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            while (slots[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = stopId;
+        }
+
+        /**
+         * Trims the name and converts ASCII letters to upper case.
+         */
+        private static String canonicalName(CharSequence name) {
+            String trimmed = name.toString().trim();
+            char[] chars = trimmed.toCharArray();
+            for (int index = 0; index < chars.length; index++) {
+                chars[index] = (char) toUpperCase(chars[index]);
+            }
+            return new String(chars);
+        }
+    }
+}
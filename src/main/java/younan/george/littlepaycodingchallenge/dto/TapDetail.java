@@ -1,7 +1,7 @@
 package younan.george.littlepaycodingchallenge.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Value;
-import younan.george.littlepaycodingchallenge.enums.StopId;
 import younan.george.littlepaycodingchallenge.enums.TapType;
 
 import jakarta.validation.constraints.Min;
@@ -9,14 +9,18 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PastOrPresent;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 
 /**
  * Represents a tap event in the public transport system.
  * A tap event occurs when a passenger taps their card on or off a bus.
+ * The time of the tap is held as seconds since the epoch, and only converted to a ZonedDateTime on request.
  * This class is immutable.
  */
 @Value
+@AllArgsConstructor
 public class TapDetail {
     /**
      * The unique identifier for this tap event
@@ -25,11 +29,9 @@ public class TapDetail {
     private int id;
 
     /**
-     * The date and time when the tap event occurred, in UTC timezone
+     * The date and time when the tap event occurred, in seconds since the epoch (UTC)
      */
-    @NotNull(message = "Date and time cannot be null")
-    @PastOrPresent(message = "Date and time must be in the past or present")
-    private ZonedDateTime dateTimeUTC;
+    private long epochSecondUTC;
 
     /**
      * The type of tap event (ON or OFF)
@@ -60,4 +62,28 @@ public class TapDetail {
      */
     @NotBlank(message = "PAN cannot be blank")
     private String pan;
+
+    /**
+     * Creates a new TapDetail from a date and time, which is truncated to whole seconds.
+     *
+     * @param id The unique identifier for this tap event
+     * @param dateTimeUTC The date and time when the tap event occurred
+     * @param tapType The type of tap event (ON or OFF)
+     * @param stopId The stop where the tap event occurred
+     * @param companyId The ID of the company operating the service
+     * @param busId The ID of the bus where the tap event occurred
+     * @param pan The Primary Account Number (credit card number) used for the tap event
+     */
+    public TapDetail(int id, ZonedDateTime dateTimeUTC, TapType tapType, StopId stopId, String companyId, String busId, String pan) {
+        this(id, dateTimeUTC.toEpochSecond(), tapType, stopId, companyId, busId, pan);
+    }
+
+    /**
+     * @return The date and time when the tap event occurred, in UTC timezone
+     */
+    @NotNull(message = "Date and time cannot be null")
+    @PastOrPresent(message = "Date and time must be in the past or present")
+    public ZonedDateTime getDateTimeUTC() {
+        return ZonedDateTime.of(LocalDateTime.ofEpochSecond(epochSecondUTC, 0, ZoneOffset.UTC), ZoneOffset.UTC);
+    }
 }
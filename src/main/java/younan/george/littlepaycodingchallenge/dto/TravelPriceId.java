@@ -2,7 +2,6 @@ package younan.george.littlepaycodingchallenge.dto;
 
 import lombok.NonNull;
 import lombok.Value;
-import younan.george.littlepaycodingchallenge.enums.StopId;
 
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -1,7 +1,7 @@
 package younan.george.littlepaycodingchallenge.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Value;
-import younan.george.littlepaycodingchallenge.enums.StopId;
 import younan.george.littlepaycodingchallenge.enums.TripStatus;
 
 import jakarta.validation.constraints.Min;
@@ -10,29 +10,29 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PastOrPresent;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 
 /**
  * Represents the result of a trip, including details about the start and end times,
  * locations, cost, and status.
+ * The start and end times are held as seconds since the epoch, and only converted to a ZonedDateTime on request.
  * This class is immutable.
  */
 @Value
+@AllArgsConstructor
 public class TripResult {
     /**
-     * The date and time when the trip started (tap on event)
+     * The date and time when the trip started (tap on event), in seconds since the epoch (UTC)
      */
-    @NotNull(message = "Start time cannot be null")
-    @PastOrPresent(message = "Start time must be in the past or present")
-    private ZonedDateTime started;
+    private long startedEpochSecond;
 
     /**
-     * The date and time when the trip ended (tap off event)
+     * The date and time when the trip ended (tap off event), in seconds since the epoch (UTC)
      * For incomplete trips, this may be the same as the start time
      */
-    @NotNull(message = "End time cannot be null")
-    @PastOrPresent(message = "End time must be in the past or present")
-    private ZonedDateTime finished;
+    private long finishedEpochSecond;
 
     /**
      * The duration of the trip in seconds
@@ -85,4 +85,46 @@ public class TripResult {
      */
     @NotNull(message = "Trip status cannot be null")
     private TripStatus status;
+
+    /**
+     * Creates a new TripResult from dates and times, which are truncated to whole seconds.
+     *
+     * @param started The date and time when the trip started
+     * @param finished The date and time when the trip ended
+     * @param durationSecs The duration of the trip in seconds
+     * @param fromStopId The stop ID where the trip started
+     * @param toStopId The stop ID where the trip ended
+     * @param chargeAmount The amount charged for the trip
+     * @param companyId The ID of the company operating the service
+     * @param busID The ID of the bus used for the trip
+     * @param pan The Primary Account Number (credit card number) used for payment
+     * @param status The status of the trip
+     */
+    public TripResult(ZonedDateTime started, ZonedDateTime finished, long durationSecs, StopId fromStopId, StopId toStopId,
+                      BigDecimal chargeAmount, String companyId, String busID, String pan, TripStatus status) {
+        this(started.toEpochSecond(), finished.toEpochSecond(), durationSecs, fromStopId, toStopId,
+                chargeAmount, companyId, busID, pan, status);
+    }
+
+    /**
+     * @return The date and time when the trip started (tap on event), in UTC timezone
+     */
+    @NotNull(message = "Start time cannot be null")
+    @PastOrPresent(message = "Start time must be in the past or present")
+    public ZonedDateTime getStarted() {
+        return toDateTime(startedEpochSecond);
+    }
+
+    /**
+     * @return The date and time when the trip ended (tap off event), in UTC timezone
+     */
+    @NotNull(message = "End time cannot be null")
+    @PastOrPresent(message = "End time must be in the past or present")
+    public ZonedDateTime getFinished() {
+        return toDateTime(finishedEpochSecond);
+    }
+
+    private static ZonedDateTime toDateTime(long epochSecond) {
+        return ZonedDateTime.of(LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC), ZoneOffset.UTC);
+    }
 }
@@ -0,0 +1,15 @@
+package younan.george.littlepaycodingchallenge.enums;
+
+/**
+ * The format of a file read or written by {@code TravelCostCsvProducer}.
+ */
+public enum FileFormat {
+    /**
+     * Comma separated text, one row per line.
+     */
+    CSV,
+    /**
+     * Fixed-width little-endian records with dictionary-encoded strings, see {@code BinaryTapFile} and {@code BinaryTripFile}.
+     */
+    BINARY;
+}
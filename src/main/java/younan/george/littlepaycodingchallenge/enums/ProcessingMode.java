@@ -0,0 +1,43 @@
+package younan.george.littlepaycodingchallenge.enums;
+
+/**
+ * How {@code TravelCostCsvProducer} moves taps from the input file to the output file.
+ */
+public enum ProcessingMode {
+    /**
+     * Parse the whole input file, price every tap, then write every result.
+     */
+    BATCH,
+    /**
+     * Like {@link #BATCH}, but taps are sharded by card and the shards are priced on several cores.
+     */
+    PARALLEL,
+    /**
+     * Like {@link #BATCH}, but taps are held in an off-heap columnar store and priced straight from its columns.
+     */
+    COLUMNAR,
+    /**
+     * Parse, validate, price and write each row in a single pass with bounded memory.
+     */
+    STREAMING,
+    /**
+     * Like {@link #STREAMING}, but only the rows appended since the last run are read and their results
+     * appended to the output file, with the progress and open taps kept in a checkpoint file.
+     */
+    INCREMENTAL,
+    /**
+     * Run as a daemon that tails every taps file in a directory and appends results as new lines arrive,
+     * keeping the taps of cards that are still travelling in memory across files.
+     */
+    TAILING,
+    /**
+     * Sort the taps by card and time with an external merge sort that spills to disk, then price and write them
+     * in a single pass, so neither the taps nor the open trips need to fit in memory.
+     */
+    SORTED,
+    /**
+     * Like {@link #STREAMING}, but parsing, pricing and writing run concurrently on their own threads,
+     * handing batches to each other through bounded queues.
+     */
+    PIPELINED;
+}
@@ -0,0 +1,47 @@
+package younan.george.littlepaycodingchallenge.enums;
+
+/**
+ * Why an input row, tap or trip was rejected, written as the reason code of each dead-letter record.
+ */
+public enum RejectReason {
+    /**
+     * The row does not have the seven columns of a tap.
+     */
+    MALFORMED_ROW,
+    /**
+     * The id is not a decimal int.
+     */
+    INVALID_ID,
+    /**
+     * The timestamp is not a valid date-time in the dd-MM-yyyy HH:mm:ss format.
+     */
+    INVALID_TIMESTAMP,
+    /**
+     * The tap type is neither ON nor OFF.
+     */
+    UNKNOWN_TAP_TYPE,
+    /**
+     * The stop is not registered.
+     */
+    UNKNOWN_STOP,
+    /**
+     * The tap was parsed but violates a constraint declared on TapDetail.
+     */
+    INVALID_TAP,
+    /**
+     * The tap OFF has no tap ON of the same card before it, or arrived once the trip had expired.
+     */
+    UNMATCHED_TAP_OFF,
+    /**
+     * No travel price is defined between the stops of a completed trip.
+     */
+    UNKNOWN_FARE,
+    /**
+     * No travel price is defined from the stop of an incomplete trip, so its maximum fare is unknown.
+     */
+    NO_FARES_FROM_STOP,
+    /**
+     * The trip was priced but violates a constraint declared on TripResult.
+     */
+    INVALID_TRIP;
+}
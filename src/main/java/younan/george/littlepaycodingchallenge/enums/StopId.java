@@ -1,11 +0,0 @@
-package younan.george.littlepaycodingchallenge.enums;
-
-public enum StopId {
-    STOP1("Stop1"), STOP2("Stop2"), STOP3("Stop3");
-
-    private final String id;
-
-    StopId(String id) {
-        this.id = id;
-    }
-}
@@ -0,0 +1,19 @@
+package younan.george.littlepaycodingchallenge.enums;
+
+/**
+ * Which parser {@code TravelCostCsvProducer} uses to read the input CSV file.
+ */
+public enum TapParserType {
+    /**
+     * Read the file line by line and split each line into Strings.
+     */
+    LINES,
+    /**
+     * Memory-map the file and decode the columns directly from its bytes.
+     */
+    MAPPED,
+    /**
+     * Split the file into chunks ending at line boundaries and memory-map and decode the chunks on several threads.
+     */
+    CHUNKED;
+}
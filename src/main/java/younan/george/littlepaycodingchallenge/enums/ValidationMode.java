@@ -0,0 +1,15 @@
+package younan.george.littlepaycodingchallenge.enums;
+
+/**
+ * How {@code TravelCostCsvProducer} checks the constraints declared on each tap and trip.
+ */
+public enum ValidationMode {
+    /**
+     * Check the constraints with hand-specialized code, using the full validator only to describe failures.
+     */
+    COMPILED,
+    /**
+     * Check every object with the full, reflective Bean Validation validator.
+     */
+    REFLECTIVE;
+}
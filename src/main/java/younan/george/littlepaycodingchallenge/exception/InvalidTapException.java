@@ -0,0 +1,16 @@
+package younan.george.littlepaycodingchallenge.exception;
+
+/**
+ * Thrown when a tap event cannot be processed, e.g. when a required tap is missing.
+ */
+public class InvalidTapException extends RuntimeException {
+
+    /**
+     * Creates a new InvalidTapException.
+     *
+     * @param message Description of why the tap is invalid
+     */
+    public InvalidTapException(String message) {
+        super(message);
+    }
+}
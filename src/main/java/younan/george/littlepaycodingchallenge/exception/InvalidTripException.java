@@ -0,0 +1,34 @@
+package younan.george.littlepaycodingchallenge.exception;
+
+import lombok.Getter;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+
+/**
+ * Thrown when a pair of tap events cannot be priced as a trip, e.g. when the travel cost
+ * between the two stops is unknown.
+ */
+@Getter
+public class InvalidTripException extends RuntimeException {
+    /**
+     * The tap-on event of the rejected trip
+     */
+    private final transient TapDetail currentTap;
+
+    /**
+     * The tap-off event of the rejected trip
+     */
+    private final transient TapDetail nextTap;
+
+    /**
+     * Creates a new InvalidTripException.
+     *
+     * @param message Description of why the trip is invalid
+     * @param currentTap The tap-on event
+     * @param nextTap The tap-off event
+     */
+    public InvalidTripException(String message, TapDetail currentTap, TapDetail nextTap) {
+        super(message);
+        this.currentTap = currentTap;
+        this.nextTap = nextTap;
+    }
+}
@@ -0,0 +1,108 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Converts taps files between CSV and the binary format of {@link BinaryTapFile}, and binary trips files
+ * to CSV, so that a file can be converted once and then reprocessed or consumed without parsing text.
+ * <p>
+ * Usage: {@code BinaryFileConverter taps-to-binary|taps-to-csv|trips-to-csv <input> <output>}
+ */
+public final class BinaryFileConverter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private BinaryFileConverter() {
+    }
+
+    /**
+     * Converts a taps CSV file to a binary taps file. Lines that cannot be parsed are skipped.
+     *
+     * @param csv The taps CSV file
+     * @param binary The binary taps file to create
+     * @return The number of taps converted
+     * @throws IOException if a file cannot be read or written
+     */
+    public static long tapsToBinary(Path csv, Path binary) throws IOException {
+        try (BinaryTapFile.Writer writer = new BinaryTapFile.Writer(binary, BUFFER_SIZE)) {
+            new MappedCsvTapParser().parse(csv, tapDetail -> {
+                try {
+                    writer.write(tapDetail);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return writer.getRowsWritten();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Converts a binary taps file to a taps CSV file in the format of the input file.
+     *
+     * @param binary The binary taps file
+     * @param csv The taps CSV file to create
+     * @return The number of taps converted
+     * @throws IOException if a file cannot be read or written
+     */
+    public static long tapsToCsv(Path binary, Path csv) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+            writer.write(TapCsvFormat.HEADER);
+            writer.newLine();
+            return BinaryTapFile.read(binary, BUFFER_SIZE, tapDetail -> {
+                try {
+                    writer.write(TapCsvFormat.format(tapDetail));
+                    writer.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Converts a binary trips file to the output CSV format.
+     *
+     * @param binary The binary trips file
+     * @param csv The CSV file to create
+     * @return The number of trip results converted
+     * @throws IOException if a file cannot be read or written
+     */
+    public static long tripsToCsv(Path binary, Path csv) throws IOException {
+        try (TripResultCsvWriter writer = new TripResultCsvWriter(csv, BUFFER_SIZE)) {
+            return BinaryTripFile.read(binary, BUFFER_SIZE, tripResult -> {
+                try {
+                    writer.write(tripResult);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: BinaryFileConverter taps-to-binary|taps-to-csv|trips-to-csv <input> <output>");
+            System.exit(2);
+        }
+        Path input = Paths.get(args[1]);
+        Path output = Paths.get(args[2]);
+        long converted = switch (args[0]) {
+            case "taps-to-binary" -> tapsToBinary(input, output);
+            case "taps-to-csv" -> tapsToCsv(input, output);
+            case "trips-to-csv" -> tripsToCsv(input, output);
+            default -> throw new IllegalArgumentException("Unknown conversion " + args[0]);
+        };
+        System.out.println("Converted " + converted + " rows from " + input + " to " + output);
+    }
+
+}
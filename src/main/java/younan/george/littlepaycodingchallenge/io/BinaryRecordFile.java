@@ -0,0 +1,147 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The layout shared by the binary tap and trip files.
+ * <p>
+ * A file starts with an 8 byte magic number and the size of a record, followed by fixed-width records.
+ * Every String column is stored as an int code into a dictionary that follows the records, which holds the
+ * UTF-8 bytes of each distinct value once, prefixed by their length. The file ends with a trailer holding the
+ * number of records and the offset of the dictionary, so the records can be read without scanning the file.
+ * All numbers are little-endian.
+ */
+final class BinaryRecordFile {
+    /**
+     * The number of records and the offset of the dictionary of a file.
+     */
+    record Layout(long recordCount, long dictionaryOffset) {
+    }
+
+    static final int MAGIC_SIZE = 8;
+
+    static final int HEADER_SIZE = MAGIC_SIZE + Integer.BYTES;
+
+    static final int TRAILER_SIZE = 2 * Long.BYTES;
+
+    /**
+     * The code of a null String
+     */
+    static final int NO_STRING = -1;
+
+    private BinaryRecordFile() {
+    }
+
+    /**
+     * Writes the header at the start of a file.
+     */
+    static void writeHeader(FileChannel channel, byte[] magic, int recordSize) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(magic).putInt(recordSize).flip();
+        writeFully(channel, header, 0);
+    }
+
+    /**
+     * Checks the header and reads the trailer of a file.
+     *
+     * @throws IOException if the file is not a complete file of the given kind
+     */
+    static Layout readLayout(FileChannel channel, Path path, byte[] magic, int recordSize) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE + TRAILER_SIZE) {
+            throw new IOException(path + " is too short to be a binary file");
+        }
+        ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+        byte[] actualMagic = new byte[MAGIC_SIZE];
+        header.get(actualMagic);
+        if (!Arrays.equals(actualMagic, magic) || header.getInt() != recordSize) {
+            throw new IOException(path + " is not a " + new String(magic, StandardCharsets.US_ASCII) + " file");
+        }
+        ByteBuffer trailer = readFully(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+        long recordCount = trailer.getLong();
+        long dictionaryOffset = trailer.getLong();
+        if (recordCount < 0 || dictionaryOffset != HEADER_SIZE + recordCount * recordSize || dictionaryOffset > size - TRAILER_SIZE) {
+            throw new IOException(path + " has an invalid trailer, it may not have been closed");
+        }
+        return new Layout(recordCount, dictionaryOffset);
+    }
+
+    /**
+     * Reads the dictionary of a file.
+     *
+     * @return Every distinct value, indexed by code
+     * @throws IOException if the dictionary is invalid
+     */
+    static String[] readDictionary(FileChannel channel, Path path, Layout layout) throws IOException {
+        long length = channel.size() - TRAILER_SIZE - layout.dictionaryOffset();
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException(path + " has a dictionary of " + length + " bytes");
+        }
+        ByteBuffer dictionary = readFully(channel, layout.dictionaryOffset(), (int) length);
+        try {
+            String[] values = new String[dictionary.getInt()];
+            for (int code = 0; code < values.length; code++) {
+                byte[] bytes = new byte[dictionary.getInt()];
+                dictionary.get(bytes);
+                values[code] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return values;
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException(path + " has an invalid dictionary", e);
+        }
+    }
+
+    /**
+     * Writes the dictionary and the trailer at the given offset, and truncates the file after them.
+     */
+    static void writeDictionaryAndTrailer(FileChannel channel, long offset, List<String> values, long recordCount) throws IOException {
+        byte[][] encoded = new byte[values.size()][];
+        int length = Integer.BYTES + TRAILER_SIZE;
+        for (int code = 0; code < encoded.length; code++) {
+            encoded[code] = values.get(code).getBytes(StandardCharsets.UTF_8);
+            length += Integer.BYTES + encoded[code].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(encoded.length);
+        for (byte[] bytes : encoded) {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+        buffer.putLong(recordCount).putLong(offset).flip();
+        writeFully(channel, buffer, offset);
+        channel.truncate(offset + length);
+    }
+
+    /**
+     * Reads the given number of bytes at a position into a new little-endian buffer.
+     */
+    static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file at " + (position + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Writes the remaining bytes of a buffer at a position.
+     *
+     * @return The number of bytes written
+     */
+    static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+}
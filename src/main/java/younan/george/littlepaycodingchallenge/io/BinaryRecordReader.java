@@ -0,0 +1,118 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the fixed-width records of a file in the layout of {@link BinaryRecordFile}, in the order they were written.
+ * The dictionary is read when the file is opened, and the records are read into a little-endian buffer
+ * many at a time. This class is not thread-safe.
+ */
+final class BinaryRecordReader implements Closeable {
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private final int recordSize;
+
+    /**
+     * Every distinct String in the file, indexed by code
+     */
+    private final String[] dictionary;
+
+    private final ByteBuffer buffer;
+
+    /**
+     * The offset of the next records to read into the buffer
+     */
+    private long position = BinaryRecordFile.HEADER_SIZE;
+
+    private long remainingRecords;
+
+    /**
+     * The position in the buffer of the current record, or -1 before the first record
+     */
+    private int recordStart = -1;
+
+    /**
+     * Opens a file.
+     *
+     * @param path The file to read
+     * @param magic The magic number of the kind of file
+     * @param recordSize The number of bytes of each record
+     * @param bufferSize Number of bytes read from the file at a time
+     * @throws IOException if the file cannot be read or is not a complete file of the given kind
+     */
+    BinaryRecordReader(Path path, byte[] magic, int recordSize, int bufferSize) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.recordSize = recordSize;
+        try {
+            BinaryRecordFile.Layout layout = BinaryRecordFile.readLayout(channel, path, magic, recordSize);
+            this.dictionary = BinaryRecordFile.readDictionary(channel, path, layout);
+            this.remainingRecords = layout.recordCount();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.buffer = ByteBuffer.allocateDirect(Math.max(1, bufferSize / recordSize) * recordSize).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return The buffer positioned at the start of the record, from which the caller reads its columns,
+     *         or null at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    ByteBuffer next() throws IOException {
+        if (recordStart >= 0) {
+            buffer.position(recordStart + recordSize);
+        }
+        if (remainingRecords == 0) {
+            return null;
+        }
+        if (buffer.remaining() < recordSize) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), remainingRecords * recordSize));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException(path + " ended part way through a record");
+                }
+            }
+            position += buffer.position();
+            buffer.flip();
+        }
+        remainingRecords--;
+        recordStart = buffer.position();
+        return buffer;
+    }
+
+    /**
+     * Decodes a String column.
+     *
+     * @param code The code read from the record
+     * @return The String, shared by every record with the same code, or null
+     * @throws IOException if the code is not in the dictionary
+     */
+    String string(int code) throws IOException {
+        if (code == BinaryRecordFile.NO_STRING) {
+            return null;
+        }
+        if (code < 0 || code >= dictionary.length) {
+            throw new IOException(path + " refers to string " + code + " of a dictionary of " + dictionary.length);
+        }
+        return dictionary[code];
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
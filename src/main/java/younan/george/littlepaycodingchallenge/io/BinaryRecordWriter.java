@@ -0,0 +1,191 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes fixed-width records to a file in the layout of {@link BinaryRecordFile}.
+ * Records are encoded into a little-endian buffer, which is written over the dictionary of the file
+ * once it is full. The dictionary and trailer are written again by {@link #flush()}, so the file is
+ * complete after every flush, but not in between: a process that dies before flushing leaves a file
+ * that can neither be read nor appended to. This class is not thread-safe.
+ */
+abstract class BinaryRecordWriter implements Closeable {
+    private final FileChannel channel;
+
+    private final int recordSize;
+
+    /**
+     * Records waiting to be written to the channel
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The code of every distinct String written
+     */
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    /**
+     * Every distinct String written, indexed by code
+     */
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * The offset after the last record written to the channel, where the dictionary starts
+     */
+    private long recordsEnd;
+
+    /**
+     * Number of records in the file, including those of a file appended to
+     */
+    private long recordCount;
+
+    private long recordsWritten;
+
+    private long bytesWritten;
+
+    /**
+     * Whether the dictionary and trailer on disk describe every record written
+     */
+    private boolean complete;
+
+    /**
+     * Opens a file for writing.
+     *
+     * @param path The file to write to
+     * @param magic The magic number of the kind of file
+     * @param recordSize The number of bytes of each record
+     * @param bufferSize Number of bytes buffered before they are written to the file
+     * @param append Whether to add records to the end of an existing file instead of replacing it
+     * @throws IOException if the file cannot be opened, or is not a complete file of the same kind when appending
+     */
+    BinaryRecordWriter(Path path, byte[] magic, int recordSize, int bufferSize, boolean append) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.recordSize = recordSize;
+        try {
+            if (append && channel.size() > 0) {
+                BinaryRecordFile.Layout layout = BinaryRecordFile.readLayout(channel, path, magic, recordSize);
+                for (String value : BinaryRecordFile.readDictionary(channel, path, layout)) {
+                    codes.put(value, values.size());
+                    values.add(value);
+                }
+                recordCount = layout.recordCount();
+                recordsEnd = layout.dictionaryOffset();
+            } else {
+                channel.truncate(0);
+                BinaryRecordFile.writeHeader(channel, magic, recordSize);
+                recordsEnd = BinaryRecordFile.HEADER_SIZE;
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.buffer = ByteBuffer.allocateDirect(Math.max(1, bufferSize / recordSize) * recordSize).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Makes room for the next record.
+     *
+     * @return The buffer, into which the caller puts exactly one record before calling {@link #endRecord()}
+     * @throws IOException if the buffer is full and cannot be written to the file
+     */
+    final ByteBuffer startRecord() throws IOException {
+        if (buffer.remaining() < recordSize) {
+            writeBuffer();
+        }
+        return buffer;
+    }
+
+    /**
+     * Counts the record put into the buffer.
+     */
+    final void endRecord() {
+        recordCount++;
+        recordsWritten++;
+        complete = false;
+    }
+
+    /**
+     * Gets the code of a String, adding it to the dictionary if it has not been written yet.
+     *
+     * @param value The String, which may be null
+     * @return The code of the String
+     */
+    final int code(String value) {
+        if (value == null) {
+            return BinaryRecordFile.NO_STRING;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * Writes all buffered records, the dictionary and the trailer to the file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void flush() throws IOException {
+        writeBuffer();
+        if (!complete) {
+            BinaryRecordFile.writeDictionaryAndTrailer(channel, recordsEnd, values, recordCount);
+            complete = true;
+        }
+    }
+
+    /**
+     * Writes all buffered records, the dictionary and the trailer to the file and closes it.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return The number of records written
+     */
+    public long getRowsWritten() {
+        return recordsWritten;
+    }
+
+    /**
+     * @return The number of bytes of records written to the file so far, excluding the header and dictionary
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * @return The number of distinct Strings in the dictionary
+     */
+    public int getDictionarySize() {
+        return values.size();
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        int written = BinaryRecordFile.writeFully(channel, buffer, recordsEnd);
+        recordsEnd += written;
+        bytesWritten += written;
+        buffer.clear();
+    }
+}
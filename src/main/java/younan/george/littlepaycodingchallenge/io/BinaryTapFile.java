@@ -0,0 +1,118 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.enums.RejectReason;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * A file of taps in a compact binary format, an alternative to the taps CSV file that can be read without
+ * parsing any text. Each tap is a fixed-width record of {@value #RECORD_SIZE} bytes: its id, its time in seconds
+ * since the epoch, its tap type, and dictionary codes for its stop, company, bus and PAN.
+ * The layout of the file is described by {@link BinaryRecordFile}.
+ */
+public final class BinaryTapFile {
+    /**
+     * Number of bytes of each tap
+     */
+    public static final int RECORD_SIZE = Integer.BYTES + Long.BYTES + 1 + 4 * Integer.BYTES;
+
+    static final byte[] MAGIC = "LPTAPS01".getBytes(StandardCharsets.US_ASCII);
+
+    private static final TapType[] TAP_TYPES = TapType.values();
+
+    private BinaryTapFile() {
+    }
+
+    /**
+     * Writes taps to a binary file. The file is only complete once the writer is flushed or closed.
+     * This class is not thread-safe.
+     */
+    public static final class Writer extends BinaryRecordWriter {
+        /**
+         * Creates a binary taps file, replacing any existing file.
+         *
+         * @param path The file to write to
+         * @param bufferSize Number of bytes buffered before they are written to the file
+         * @throws IOException if the file cannot be created
+         */
+        public Writer(Path path, int bufferSize) throws IOException {
+            super(path, MAGIC, RECORD_SIZE, bufferSize, false);
+        }
+
+        /**
+         * Adds a tap to the file.
+         *
+         * @param tapDetail The tap
+         * @throws IOException if the buffer is full and cannot be written to the file
+         */
+        public void write(TapDetail tapDetail) throws IOException {
+            ByteBuffer buffer = startRecord();
+            buffer.putInt(tapDetail.getId());
+            buffer.putLong(tapDetail.getEpochSecondUTC());
+            buffer.put(tapDetail.getTapType() == null ? -1 : (byte) tapDetail.getTapType().ordinal());
+            buffer.putInt(code(tapDetail.getStopId() == null ? null : tapDetail.getStopId().name()));
+            buffer.putInt(code(tapDetail.getCompanyId()));
+            buffer.putInt(code(tapDetail.getBusId()));
+            buffer.putInt(code(tapDetail.getPan()));
+            endRecord();
+        }
+    }
+
+    /**
+     * Reads every tap in a binary file, in the order they were written, logging taps at unknown stops.
+     *
+     * @param path The file to read
+     * @param bufferSize Number of bytes read from the file at a time
+     * @param consumer Receives each tap
+     * @return The number of taps read
+     * @throws IOException if the file cannot be read or is not a complete binary taps file
+     */
+    public static long read(Path path, int bufferSize, Consumer<TapDetail> consumer) throws IOException {
+        return read(path, bufferSize, consumer, MappedCsvTapParser.LOG_REJECTS);
+    }
+
+    /**
+     * Reads every tap in a binary file, in the order they were written. Like the CSV parsers, taps at stops that are
+     * not registered are rejected as {@link RejectReason#UNKNOWN_STOP} instead of registering the stop.
+     *
+     * @param path The file to read
+     * @param bufferSize Number of bytes read from the file at a time
+     * @param consumer Receives each tap at a known stop
+     * @param rejectListener Receives each tap at an unknown stop, formatted as a row of a taps CSV file
+     * @return The number of taps passed to the consumer
+     * @throws IOException if the file cannot be read or is not a complete binary taps file
+     */
+    public static long read(Path path, int bufferSize, Consumer<TapDetail> consumer, MappedCsvTapParser.RejectListener rejectListener)
+            throws IOException {
+        long count = 0;
+        try (BinaryRecordReader reader = new BinaryRecordReader(path, MAGIC, RECORD_SIZE, bufferSize)) {
+            ByteBuffer record;
+            while ((record = reader.next()) != null) {
+                int id = record.getInt();
+                long epochSecond = record.getLong();
+                byte tapTypeOrdinal = record.get();
+                TapType tapType = tapTypeOrdinal < 0 || tapTypeOrdinal >= TAP_TYPES.length ? null : TAP_TYPES[tapTypeOrdinal];
+                String stop = reader.string(record.getInt());
+                String companyId = reader.string(record.getInt());
+                String busId = reader.string(record.getInt());
+                String pan = reader.string(record.getInt());
+                StopId stopId = stop == null ? null : StopId.lookup(stop);
+                if (stop != null && stopId == null) {
+                    rejectListener.onRejectedLine(RejectReason.UNKNOWN_STOP,
+                            () -> TapCsvFormat.format(id, epochSecond, tapType, stop, companyId, busId, pan));
+                    continue;
+                }
+                consumer.accept(new TapDetail(id, epochSecond, tapType, stopId, companyId, busId, pan));
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,157 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+import younan.george.littlepaycodingchallenge.enums.RejectReason;
+import younan.george.littlepaycodingchallenge.enums.TripStatus;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * A file of trip results in a compact binary format, an alternative to the output CSV file that downstream
+ * consumers can read without parsing any text. Each trip is a fixed-width record of {@value #RECORD_SIZE} bytes:
+ * its start and end times in seconds since the epoch, its duration, dictionary codes for its stops,
+ * the charge in cents together with the scale it was priced at, dictionary codes for its company, bus and PAN,
+ * and its status. Unlike the CSV file, the PAN is included.
+ * The layout of the file is described by {@link BinaryRecordFile}.
+ */
+public final class BinaryTripFile {
+    /**
+     * Number of bytes of each trip result
+     */
+    public static final int RECORD_SIZE = 3 * Long.BYTES + 2 * Integer.BYTES + Long.BYTES + 1 + 3 * Integer.BYTES + 1;
+
+    static final byte[] MAGIC = "LPTRIP01".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Number of decimal places of an amount in cents
+     */
+    private static final int CENTS_SCALE = 2;
+
+    /**
+     * The scale stored for a missing charge
+     */
+    private static final byte NO_AMOUNT = Byte.MIN_VALUE;
+
+    private static final TripStatus[] STATUSES = TripStatus.values();
+
+    private BinaryTripFile() {
+    }
+
+    /**
+     * Writes trip results to a binary file. The file is complete after every flush, and once the writer is closed,
+     * but is lost if the process dies in between, so it is not suited to output that is appended to over many runs.
+     * This class is not thread-safe.
+     */
+    public static final class Writer extends BinaryRecordWriter implements TripResultWriter {
+        /**
+         * Opens a binary trips file.
+         *
+         * @param path The file to write to
+         * @param bufferSize Number of bytes buffered before they are written to the file
+         * @param append Whether to add trips to the end of an existing file instead of replacing it
+         * @throws IOException if the file cannot be opened, or is not a complete binary trips file when appending
+         */
+        public Writer(Path path, int bufferSize, boolean append) throws IOException {
+            super(path, MAGIC, RECORD_SIZE, bufferSize, append);
+        }
+
+        /**
+         * Adds a trip result to the file.
+         *
+         * @param tripResult The trip result to write
+         * @throws IOException if the buffer is full and cannot be written to the file
+         * @throws ArithmeticException if the charge has a fraction of a cent
+         */
+        @Override
+        public void write(TripResult tripResult) throws IOException {
+            BigDecimal amount = tripResult.getChargeAmount();
+            long cents = amount == null ? 0 : amount.movePointRight(CENTS_SCALE).longValueExact();
+            ByteBuffer buffer = startRecord();
+            buffer.putLong(tripResult.getStartedEpochSecond());
+            buffer.putLong(tripResult.getFinishedEpochSecond());
+            buffer.putLong(tripResult.getDurationSecs());
+            buffer.putInt(code(tripResult.getFromStopId() == null ? null : tripResult.getFromStopId().name()));
+            buffer.putInt(code(tripResult.getToStopId() == null ? null : tripResult.getToStopId().name()));
+            buffer.putLong(cents);
+            buffer.put(amount == null ? NO_AMOUNT : (byte) amount.scale());
+            buffer.putInt(code(tripResult.getCompanyId()));
+            buffer.putInt(code(tripResult.getBusID()));
+            buffer.putInt(code(tripResult.getPan()));
+            buffer.put(tripResult.getStatus() == null ? -1 : (byte) tripResult.getStatus().ordinal());
+            endRecord();
+        }
+    }
+
+    /**
+     * Reads every trip result in a binary file, in the order they were written, logging trips between unknown stops.
+     *
+     * @param path The file to read
+     * @param bufferSize Number of bytes read from the file at a time
+     * @param consumer Receives each trip result
+     * @return The number of trip results read
+     * @throws IOException if the file cannot be read or is not a complete binary trips file
+     */
+    public static long read(Path path, int bufferSize, Consumer<TripResult> consumer) throws IOException {
+        return read(path, bufferSize, consumer, MappedCsvTapParser.LOG_REJECTS);
+    }
+
+    /**
+     * Reads every trip result in a binary file, in the order they were written. Trips from or to a stop that is
+     * not registered are rejected as {@link RejectReason#UNKNOWN_STOP} instead of registering the stop.
+     *
+     * @param path The file to read
+     * @param bufferSize Number of bytes read from the file at a time
+     * @param consumer Receives each trip result between known stops
+     * @param rejectListener Receives the columns of each trip result with an unknown stop, in the order they are stored
+     * @return The number of trip results passed to the consumer
+     * @throws IOException if the file cannot be read or is not a complete binary trips file
+     */
+    public static long read(Path path, int bufferSize, Consumer<TripResult> consumer, MappedCsvTapParser.RejectListener rejectListener)
+            throws IOException {
+        long count = 0;
+        try (BinaryRecordReader reader = new BinaryRecordReader(path, MAGIC, RECORD_SIZE, bufferSize)) {
+            ByteBuffer record;
+            while ((record = reader.next()) != null) {
+                long started = record.getLong();
+                long finished = record.getLong();
+                long durationSecs = record.getLong();
+                String fromStop = reader.string(record.getInt());
+                String toStop = reader.string(record.getInt());
+                long cents = record.getLong();
+                byte scale = record.get();
+                String companyId = reader.string(record.getInt());
+                String busId = reader.string(record.getInt());
+                String pan = reader.string(record.getInt());
+                byte status = record.get();
+                BigDecimal amount = scale == NO_AMOUNT ? null : BigDecimal.valueOf(cents, CENTS_SCALE).setScale(scale);
+                TripStatus tripStatus = status < 0 || status >= STATUSES.length ? null : STATUSES[status];
+                StopId fromStopId = fromStop == null ? null : StopId.lookup(fromStop);
+                StopId toStopId = toStop == null ? null : StopId.lookup(toStop);
+                if (fromStop != null && fromStopId == null || toStop != null && toStopId == null) {
+                    rejectListener.onRejectedLine(RejectReason.UNKNOWN_STOP, () -> started + ", " + finished + ", " + durationSecs
+                            + ", " + fromStop + ", " + toStop + ", " + amount + ", " + companyId + ", " + busId + ", " + pan + ", " + tripStatus);
+                    continue;
+                }
+                consumer.accept(new TripResult(
+                        started,
+                        finished,
+                        durationSecs,
+                        fromStopId,
+                        toStopId,
+                        amount,
+                        companyId,
+                        busId,
+                        pan,
+                        tripStatus));
+                count++;
+            }
+        }
+        return count;
+    }
+}
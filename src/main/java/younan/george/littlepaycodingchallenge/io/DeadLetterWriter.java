@@ -0,0 +1,85 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.enums.RejectReason;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes rejected records to a dead-letter CSV file, one row per record prefixed with its reason code,
+ * so bad data can be inspected, corrected and replayed instead of only being logged.
+ * Each row is {@code Reason, Record}, where the record is an input row as it was read, a tap in the format
+ * of the taps CSV file, or a trip result. A trip that cannot be priced is written as the rows of its taps.
+ * This class is not thread-safe.
+ */
+public class DeadLetterWriter implements Closeable {
+    /**
+     * Header row of the dead-letter file
+     */
+    public static final String HEADER_ROW = "Reason, Record";
+
+    private final BufferedWriter writer;
+
+    private long rowsWritten;
+
+    /**
+     * Opens the dead-letter file, and writes the header row if the file is new or replaced.
+     *
+     * @param output The file to write to
+     * @param append Whether to add rows to the end of an existing file instead of replacing it.
+     *               The header row is only written when the file is empty.
+     * @throws IOException if the file cannot be opened
+     */
+    public DeadLetterWriter(Path output, boolean append) throws IOException {
+        boolean empty = !append || !Files.exists(output) || Files.size(output) == 0;
+        this.writer = Files.newBufferedWriter(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+        if (empty) {
+            writer.write(HEADER_ROW);
+            writer.newLine();
+        }
+    }
+
+    /**
+     * Adds a rejected record to the file.
+     *
+     * @param reason Why the record was rejected
+     * @param record The record, e.g. the input row as it was read
+     * @throws IOException if the file cannot be written
+     */
+    public void write(RejectReason reason, String record) throws IOException {
+        writer.write(reason.name());
+        writer.write(", ");
+        writer.write(record);
+        writer.newLine();
+        rowsWritten++;
+    }
+
+    /**
+     * Adds a rejected tap to the file, in the format of the taps CSV file.
+     *
+     * @param reason Why the tap was rejected
+     * @param tapDetail The tap
+     * @throws IOException if the file cannot be written
+     */
+    public void write(RejectReason reason, TapDetail tapDetail) throws IOException {
+        write(reason, TapCsvFormat.format(tapDetail));
+    }
+
+    /**
+     * @return The number of rejected records written
+     */
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
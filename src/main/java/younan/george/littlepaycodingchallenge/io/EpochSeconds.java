@@ -0,0 +1,142 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import java.time.DateTimeException;
+
+/**
+ * Converts between UTC date-times and seconds since the epoch with plain arithmetic,
+ * so that timestamps can be parsed and formatted without creating any java.time objects.
+ * Dates use the proleptic Gregorian calendar, like {@code LocalDate}.
+ */
+final class EpochSeconds {
+    /**
+     * Returned by {@link #ofOrInvalid} for a date-time with a field out of range
+     */
+    static final long INVALID = Long.MIN_VALUE;
+
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    /**
+     * Days from 0000-03-01 to 1970-01-01
+     */
+    private static final int DAYS_0000_TO_1970 = 719_468;
+
+    /**
+     * Days in each 400 year cycle of the Gregorian calendar
+     */
+    private static final int DAYS_PER_ERA = 146_097;
+
+    private EpochSeconds() {
+    }
+
+    /**
+     * Converts a UTC date-time to seconds since the epoch.
+     *
+     * @throws DateTimeException if any field is out of range, e.g. 31 February
+     */
+    static long of(int year, int month, int day, int hour, int minute, int second) {
+        long epochSecond = ofOrInvalid(year, month, day, hour, minute, second);
+        if (epochSecond == INVALID) {
+            throw new DateTimeException("Invalid date-time " + year + "-" + month + "-" + day
+                    + " " + hour + ":" + minute + ":" + second);
+        }
+        return epochSecond;
+    }
+
+    /**
+     * Converts a UTC date-time to seconds since the epoch, without throwing for invalid fields.
+     *
+     * @return The seconds since the epoch, or {@link #INVALID} if any field is out of range, e.g. 31 February
+     */
+    static long ofOrInvalid(int year, int month, int day, int hour, int minute, int second) {
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return INVALID;
+        }
+        return epochDay(year, month, day) * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+    }
+
+    /**
+     * @return The days since 1970-01-01 of a valid date
+     */
+    static long epochDay(int year, int month, int day) {
+        // Count years from March so that the leap day is the last day of the year
+        long y = month <= 2 ? year - 1L : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        int monthFromMarch = month > 2 ? month - 3 : month + 9;
+        long dayOfYear = (153L * monthFromMarch + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_ERA + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * @return The year of a time in seconds since the epoch
+     */
+    static int year(long epochSecond) {
+        long dayOfEra = dayOfEra(epochSecond);
+        long yearOfEra = yearOfEra(dayOfEra);
+        long monthFromMarch = monthFromMarch(dayOfYear(dayOfEra, yearOfEra));
+        long year = yearOfEra + era(epochSecond) * 400;
+        return (int) (monthFromMarch >= 10 ? year + 1 : year);
+    }
+
+    /**
+     * @return The month of the year, from 1 to 12, of a time in seconds since the epoch
+     */
+    static int month(long epochSecond) {
+        long dayOfEra = dayOfEra(epochSecond);
+        long monthFromMarch = monthFromMarch(dayOfYear(dayOfEra, yearOfEra(dayOfEra)));
+        return (int) (monthFromMarch < 10 ? monthFromMarch + 3 : monthFromMarch - 9);
+    }
+
+    /**
+     * @return The day of the month, from 1 to 31, of a time in seconds since the epoch
+     */
+    static int dayOfMonth(long epochSecond) {
+        long dayOfEra = dayOfEra(epochSecond);
+        long dayOfYear = dayOfYear(dayOfEra, yearOfEra(dayOfEra));
+        return (int) (dayOfYear - (153 * monthFromMarch(dayOfYear) + 2) / 5 + 1);
+    }
+
+    /**
+     * @return The second of the day, from 0 to 86399, of a time in seconds since the epoch
+     */
+    static int secondOfDay(long epochSecond) {
+        return (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+    }
+
+    private static long era(long epochSecond) {
+        return Math.floorDiv(Math.floorDiv(epochSecond, SECONDS_PER_DAY) + DAYS_0000_TO_1970, DAYS_PER_ERA);
+    }
+
+    private static long dayOfEra(long epochSecond) {
+        return Math.floorMod(Math.floorDiv(epochSecond, SECONDS_PER_DAY) + DAYS_0000_TO_1970, DAYS_PER_ERA);
+    }
+
+    private static long yearOfEra(long dayOfEra) {
+        return (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    }
+
+    private static long dayOfYear(long dayOfEra, long yearOfEra) {
+        return dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    }
+
+    private static long monthFromMarch(long dayOfYear) {
+        return (5 * dayOfYear + 2) / 153;
+    }
+
+    /**
+     * @return The number of days of a month, from 1 to 12
+     */
+    static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+}
@@ -0,0 +1,116 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides which of a stream of repeated events are logged, so that the number of log lines stays bounded
+ * however many events there are. Events are grouped by an int key, such as the ordinal of an enum: the first
+ * few events of each key are logged, then at most one per interval, which carries the number of events of
+ * the key that were not logged since the last one that was.
+ * This class is thread-safe, so a sampler can be shared by the threads logging the same events.
+ */
+public final class LogSampler {
+    /**
+     * Returned by {@link #sample(int)} for an event that is not logged
+     */
+    public static final long SUPPRESSED = -1;
+
+    /**
+     * Default number of events of each key logged before the rate limit applies
+     */
+    public static final int DEFAULT_SAMPLES = 10;
+
+    /**
+     * Default minimum time between two events of the same key logged after the first samples
+     */
+    public static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(10);
+
+    /**
+     * Number of events of each key logged before the rate limit applies
+     */
+    private final int samples;
+
+    private final long intervalNanos;
+
+    private final LongSupplier nanoClock;
+
+    /**
+     * Number of events of each key so far
+     */
+    private final long[] events;
+
+    /**
+     * Number of events of each key not logged since the last one that was
+     */
+    private final long[] suppressed;
+
+    /**
+     * Time of the last event of each key that was logged
+     */
+    private final long[] lastLoggedNanos;
+
+    /**
+     * Creates a sampler.
+     *
+     * @param keys Number of keys, each in [0, keys)
+     * @param samples Number of events of each key logged before the rate limit applies
+     * @param interval Minimum time between two events of the same key logged after the first samples,
+     *                 or zero to only log the first samples
+     */
+    public LogSampler(int keys, int samples, Duration interval) {
+        this(keys, samples, interval, System::nanoTime);
+    }
+
+    /**
+     * Creates a sampler with the given clock.
+     *
+     * @param keys Number of keys, each in [0, keys)
+     * @param samples Number of events of each key logged before the rate limit applies
+     * @param interval Minimum time between two events of the same key logged after the first samples,
+     *                 or zero to only log the first samples
+     * @param nanoClock The time in nanoseconds, like {@link System#nanoTime()}
+     */
+    LogSampler(int keys, int samples, Duration interval, LongSupplier nanoClock) {
+        if (samples < 0 || interval.isNegative()) {
+            throw new IllegalArgumentException("Samples and interval cannot be negative: " + samples + ", " + interval);
+        }
+        this.samples = samples;
+        this.intervalNanos = interval.toNanos();
+        this.nanoClock = nanoClock;
+        this.events = new long[keys];
+        this.suppressed = new long[keys];
+        this.lastLoggedNanos = new long[keys];
+    }
+
+    /**
+     * Counts an event and decides whether it is logged.
+     *
+     * @param key The key of the event
+     * @return The number of events of the key not logged since the last one that was, or {@link #SUPPRESSED}
+     * if this event is not logged
+     */
+    public synchronized long sample(int key) {
+        if (!wouldLog(key)) {
+            events[key]++;
+            suppressed[key]++;
+            return SUPPRESSED;
+        }
+        events[key]++;
+        lastLoggedNanos[key] = nanoClock.getAsLong();
+        long skipped = suppressed[key];
+        suppressed[key] = 0;
+        return skipped;
+    }
+
+    /**
+     * Tells whether the next event of a key would be logged, without counting it.
+     *
+     * @param key The key of the event
+     * @return true if {@link #sample(int)} would log the next event of the key
+     */
+    synchronized boolean wouldLog(int key) {
+        return events[key] < samples || intervalNanos > 0
+                && (events[key] == 0 || nanoClock.getAsLong() - lastLoggedNanos[key] >= intervalNanos);
+    }
+}
@@ -0,0 +1,519 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.enums.RejectReason;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Parses a taps CSV file by memory-mapping it and scanning the bytes directly.
+ * The id, timestamp, tap type and stop columns are decoded straight from the mapped bytes;
+ * the company, bus and PAN values are interned straight from the mapped bytes, so a row only creates
+ * Strings for values that are not already cached.
+ * <p>
+ * The accepted format is the same as the line based parser in {@code TravelCostCsvProducer}:
+ * a header row starting with {@code ID}, seven comma separated columns per row with surrounding
+ * whitespace ignored, timestamps in the fixed {@code dd-MM-yyyy HH:mm:ss} format in UTC and
+ * case-insensitive names of registered stops. Like the smart resolver of the DateTimeFormatter, a day
+ * past the end of the month such as 31-02-2023 is the last day of the month, while other out-of-range
+ * values such as 32-01-2023 are rejected.
+ * This class is not thread-safe.
+ */
+public class MappedCsvTapParser {
+    /**
+     * Receives the rows that could not be parsed.
+     */
+    @FunctionalInterface
+    public interface RejectListener {
+        /**
+         * Called for every row that could not be parsed.
+         *
+         * @param reason Why the row was rejected
+         * @param line Supplies the row, without its line terminator, so that rows that are only counted are not
+         *             copied out of the input. It can only be called until this method returns.
+         */
+        void onRejectedLine(RejectReason reason, Supplier<String> line);
+    }
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MappedCsvTapParser.class);
+
+    /**
+     * Decides which of the rows rejected by {@link #LOG_REJECTS} are logged, shared by every parser using it
+     */
+    private static final LogSampler REJECT_LOG_SAMPLER = new LogSampler(RejectReason.values().length,
+            LogSampler.DEFAULT_SAMPLES, LogSampler.DEFAULT_INTERVAL);
+
+    /**
+     * Logs the rejected rows through a {@link LogSampler}, used when no other listener is given:
+     * the first few rows of each reason, then at most one per reason per interval
+     */
+    public static final RejectListener LOG_REJECTS = (reason, line) -> {
+        long skipped = REJECT_LOG_SAMPLER.sample(reason.ordinal());
+        if (skipped == 0) {
+            logger.error("Error parsing line: {} ({})", line.get(), reason);
+        } else if (skipped != LogSampler.SUPPRESSED) {
+            logger.error("Error parsing line: {} ({}), {} more not logged since the last", line.get(), reason, skipped);
+        }
+    };
+
+    /**
+     * Returned by {@link #decodeInt} for a column that is not a decimal int
+     */
+    private static final long INVALID_INT = Long.MIN_VALUE;
+
+    /**
+     * Default maximum number of bytes mapped at once
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    /**
+     * Number of columns in a tap row
+     */
+    private static final int COLUMNS = 7;
+
+    /**
+     * Length of a timestamp in the dd-MM-yyyy HH:mm:ss format
+     */
+    private static final int TIMESTAMP_LENGTH = 19;
+
+    /**
+     * Maximum number of bytes mapped at once. Must be larger than the longest line.
+     */
+    private final int windowSize;
+
+    /**
+     * Start offset of each column of the current row, relative to the window
+     */
+    private final int[] columnStart = new int[COLUMNS];
+
+    /**
+     * End offset (exclusive) of each column of the current row, relative to the window
+     */
+    private final int[] columnEnd = new int[COLUMNS];
+
+    /**
+     * Number of rows that could not be parsed so far
+     */
+    private long rejectedLines;
+
+    /**
+     * Scratch space used to decode the String columns
+     */
+    private byte[] scratch = new byte[64];
+
+    /**
+     * Shares the instances of repeated company ids
+     */
+    private final StringInterner companyIds;
+
+    /**
+     * Shares the instances of repeated bus ids
+     */
+    private final StringInterner busIds;
+
+    /**
+     * Shares the instances of repeated PANs
+     */
+    private final StringInterner pans;
+
+    /**
+     * Receives the rows that could not be parsed
+     */
+    private final RejectListener rejectListener;
+
+    /**
+     * Creates a new parser with the default window size and interner capacity.
+     */
+    public MappedCsvTapParser() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Creates a new parser with the default interner capacity.
+     *
+     * @param windowSize Maximum number of bytes mapped at once. Must be larger than the longest line.
+     */
+    public MappedCsvTapParser(int windowSize) {
+        this(windowSize, new StringInterner(StringInterner.DEFAULT_CAPACITY),
+                new StringInterner(StringInterner.DEFAULT_CAPACITY), new StringInterner(StringInterner.DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Creates a new parser.
+     *
+     * @param windowSize Maximum number of bytes mapped at once. Must be larger than the longest line.
+     * @param companyIds Shares the instances of repeated company ids
+     * @param busIds Shares the instances of repeated bus ids
+     * @param pans Shares the instances of repeated PANs
+     */
+    public MappedCsvTapParser(int windowSize, StringInterner companyIds, StringInterner busIds, StringInterner pans) {
+        this(windowSize, companyIds, busIds, pans, LOG_REJECTS);
+    }
+
+    /**
+     * Creates a new parser that reports the rows it cannot parse to a listener instead of logging them.
+     *
+     * @param windowSize Maximum number of bytes mapped at once. Must be larger than the longest line.
+     * @param companyIds Shares the instances of repeated company ids
+     * @param busIds Shares the instances of repeated bus ids
+     * @param pans Shares the instances of repeated PANs
+     * @param rejectListener Receives the rows that could not be parsed, with the reason
+     */
+    public MappedCsvTapParser(int windowSize, StringInterner companyIds, StringInterner busIds, StringInterner pans,
+                              RejectListener rejectListener) {
+        this.windowSize = windowSize;
+        this.companyIds = companyIds;
+        this.busIds = busIds;
+        this.pans = pans;
+        this.rejectListener = rejectListener;
+    }
+
+    /**
+     * Parses every row of the given file and hands each parsed tap to the consumer, in file order.
+     * Rows that cannot be parsed are reported to the reject listener and skipped.
+     *
+     * @param input The CSV file to parse
+     * @param consumer Receives each parsed tap
+     * @return The number of rows that could not be parsed
+     * @throws IOException if the file cannot be read, or contains a line longer than the window size
+     */
+    public long parse(Path input, Consumer<TapDetail> consumer) throws IOException {
+        long rejectedBefore = rejectedLines;
+        parse(input, 0, Long.MAX_VALUE, false, consumer);
+        return rejectedLines - rejectedBefore;
+    }
+
+    /**
+     * Parses the rows appended to a file since an earlier call, in the same way as {@link #parse(Path, Consumer)}.
+     * Only complete lines are parsed, so a line that is still being written is left for the next call.
+     *
+     * @param input The CSV file to parse
+     * @param offset The offset returned by the earlier call, or 0 to start at the beginning of the file
+     * @param consumer Receives each parsed tap
+     * @return The offset after the last complete line, from which the next call should continue
+     * @throws IOException if the file cannot be read, or contains a line longer than the window size
+     */
+    public long parseAppended(Path input, long offset, Consumer<TapDetail> consumer) throws IOException {
+        return parse(input, offset, Long.MAX_VALUE, true, consumer);
+    }
+
+    /**
+     * Parses the rows between two offsets of a file, in the same way as {@link #parse(Path, Consumer)},
+     * so that separate parts of a file can be parsed by separate parsers.
+     *
+     * @param input The CSV file to parse
+     * @param start The offset of the first line to parse, which must be the start of a line
+     * @param end The offset after the last line to parse, which must be the start of a line or the end of the file
+     * @param consumer Receives each parsed tap
+     * @return The number of rows that could not be parsed
+     * @throws IOException if the file cannot be read, or contains a line longer than the window size
+     */
+    public long parseRange(Path input, long start, long end, Consumer<TapDetail> consumer) throws IOException {
+        long rejectedBefore = rejectedLines;
+        parse(input, start, end, false, consumer);
+        return rejectedLines - rejectedBefore;
+    }
+
+    /**
+     * @return The number of rows that could not be parsed by this parser so far
+     */
+    public long getRejectedLines() {
+        return rejectedLines;
+    }
+
+    /**
+     * Parses the file from the given offset up to the given limit or the end of the file, one window at a time.
+     *
+     * @return The offset after the last line parsed
+     */
+    private long parse(Path input, long offset, long limit, boolean completeLinesOnly, Consumer<TapDetail> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = Math.min(channel.size(), limit);
+            long position = offset;
+            while (position < size) {
+                long length = Math.min(windowSize, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean lastWindow = position + length == size;
+                int end = lastWindow && !completeLinesOnly ? (int) length : lastNewline(window, (int) length) + 1;
+                if (end == 0) {
+                    if (lastWindow) {
+                        break;
+                    }
+                    throw new IOException("Line at offset " + position + " is longer than " + windowSize + " bytes");
+                }
+                rejectedLines += parseWindow(window, end, consumer);
+                position += end;
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Parses every line in the first {@code end} bytes of the window.
+     *
+     * @return The number of rows that could not be parsed
+     */
+    private long parseWindow(MappedByteBuffer window, int end, Consumer<TapDetail> consumer) {
+        long rejected = 0;
+        int lineStart = 0;
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && window.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int next = lineEnd + 1;
+            if (lineEnd > lineStart && window.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            if (!parseLine(window, lineStart, lineEnd, consumer)) {
+                rejected++;
+            }
+            lineStart = next;
+        }
+        return rejected;
+    }
+
+    /**
+     * Parses a single line and hands the tap to the consumer.
+     * A line that cannot be parsed is reported without throwing, so bad rows cost no more than good ones.
+     *
+     * @return false if the line is not a header row and could not be parsed
+     */
+    private boolean parseLine(MappedByteBuffer window, int lineStart, int lineEnd, Consumer<TapDetail> consumer) {
+        int columns = splitColumns(window, lineStart, lineEnd);
+        if (columns > 0 && isHeader(window)) {
+            return true;
+        }
+
+        RejectReason reason = RejectReason.MALFORMED_ROW;
+        if (columns == COLUMNS) {
+            trimColumns(window);
+            reason = decodeTap(window, consumer);
+        }
+        if (reason != null) {
+            rejectListener.onRejectedLine(reason, () -> readString(window, lineStart, lineEnd));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the trimmed columns of the current row and hands the tap to the consumer.
+     *
+     * @return null if the tap was decoded, otherwise why it could not be
+     */
+    private RejectReason decodeTap(MappedByteBuffer window, Consumer<TapDetail> consumer) {
+        long id = decodeInt(window, columnStart[0], columnEnd[0]);
+        if (id == INVALID_INT) {
+            return RejectReason.INVALID_ID;
+        }
+        long epochSecond = decodeTimestamp(window, columnStart[1], columnEnd[1]);
+        if (epochSecond == EpochSeconds.INVALID) {
+            return RejectReason.INVALID_TIMESTAMP;
+        }
+        TapType tapType = decodeTapType(window, columnStart[2], columnEnd[2]);
+        if (tapType == null) {
+            return RejectReason.UNKNOWN_TAP_TYPE;
+        }
+        StopId stopId = decodeStopId(window, columnStart[3], columnEnd[3]);
+        if (stopId == null) {
+            return RejectReason.UNKNOWN_STOP;
+        }
+        consumer.accept(new TapDetail(
+                (int) id,
+                epochSecond,
+                tapType,
+                stopId,
+                companyIds.intern(window, columnStart[4], columnEnd[4]),
+                busIds.intern(window, columnStart[5], columnEnd[5]),
+                pans.intern(window, columnStart[6], columnEnd[6])));
+        return null;
+    }
+
+    /**
+     * Records the start and end of the first seven columns of a line.
+     * Any columns after the seventh are ignored, matching {@code String.split}.
+     *
+     * @return The number of columns found, at most seven
+     */
+    private int splitColumns(MappedByteBuffer window, int lineStart, int lineEnd) {
+        int column = 0;
+        int start = lineStart;
+        for (int index = lineStart; index < lineEnd && column < COLUMNS; index++) {
+            if (window.get(index) == ',') {
+                columnStart[column] = start;
+                columnEnd[column++] = index;
+                start = index + 1;
+            }
+        }
+        if (column < COLUMNS && start <= lineEnd) {
+            columnStart[column] = start;
+            columnEnd[column++] = lineEnd;
+        }
+        return column;
+    }
+
+    /**
+     * Removes leading and trailing whitespace from every column, matching {@code String.trim}.
+     */
+    private void trimColumns(MappedByteBuffer window) {
+        for (int column = 0; column < COLUMNS; column++) {
+            int start = columnStart[column];
+            int end = columnEnd[column];
+            while (start < end && (window.get(start) & 0xff) <= ' ') {
+                start++;
+            }
+            while (end > start && (window.get(end - 1) & 0xff) <= ' ') {
+                end--;
+            }
+            columnStart[column] = start;
+            columnEnd[column] = end;
+        }
+    }
+
+    /**
+     * @return true if the untrimmed first column is exactly {@code ID}
+     */
+    private boolean isHeader(MappedByteBuffer window) {
+        int start = columnStart[0];
+        return columnEnd[0] - start == 2 && window.get(start) == 'I' && window.get(start + 1) == 'D';
+    }
+
+    /**
+     * Decodes a decimal int, with an optional sign, matching {@code Integer.parseInt}.
+     *
+     * @return The int, or {@link #INVALID_INT} if the column is not a decimal int
+     */
+    private static long decodeInt(MappedByteBuffer window, int start, int end) {
+        if (start == end) {
+            return INVALID_INT;
+        }
+        boolean negative = window.get(start) == '-';
+        if (negative || window.get(start) == '+') {
+            start++;
+        }
+        if (start == end) {
+            return INVALID_INT;
+        }
+        long value = 0;
+        for (int index = start; index < end; index++) {
+            int digit = digit(window, index);
+            value = value * 10 + digit;
+            if (digit < 0 || value > (long) Integer.MAX_VALUE + 1) {
+                return INVALID_INT;
+            }
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? INVALID_INT : value;
+    }
+
+    /**
+     * Decodes a timestamp in the fixed {@code dd-MM-yyyy HH:mm:ss} format as seconds since the epoch in UTC.
+     *
+     * @return The seconds since the epoch, or {@link EpochSeconds#INVALID} if the column is not a valid timestamp
+     */
+    private static long decodeTimestamp(MappedByteBuffer window, int start, int end) {
+        if (end - start != TIMESTAMP_LENGTH
+                || window.get(start + 2) != '-' || window.get(start + 5) != '-' || window.get(start + 10) != ' '
+                || window.get(start + 13) != ':' || window.get(start + 16) != ':') {
+            return EpochSeconds.INVALID;
+        }
+        int day = twoDigits(window, start);
+        int month = twoDigits(window, start + 3);
+        int century = twoDigits(window, start + 6);
+        int yearOfCentury = twoDigits(window, start + 8);
+        int hour = twoDigits(window, start + 11);
+        int minute = twoDigits(window, start + 14);
+        int second = twoDigits(window, start + 17);
+        if (century < 0 || yearOfCentury < 0) {
+            return EpochSeconds.INVALID;
+        }
+        int year = century * 100 + yearOfCentury;
+        if (day > 28 && day <= 31 && month >= 1 && month <= 12) {
+            // Like the line based parser, a day past the end of the month is the last day of the month
+            day = Math.min(day, EpochSeconds.lengthOfMonth(year, month));
+        }
+        // Any other field that is not two digits is negative, so out of range
+        return EpochSeconds.ofOrInvalid(year, month, day, hour, minute, second);
+    }
+
+    /**
+     * Decodes the tap type, which is case-sensitive like {@code TapType.valueOf}.
+     *
+     * @return The tap type, or null if unknown
+     */
+    private static TapType decodeTapType(MappedByteBuffer window, int start, int end) {
+        int length = end - start;
+        if (length == 2 && window.get(start) == 'O' && window.get(start + 1) == 'N') {
+            return TapType.ON;
+        }
+        if (length == 3 && window.get(start) == 'O' && window.get(start + 1) == 'F' && window.get(start + 2) == 'F') {
+            return TapType.OFF;
+        }
+        return null;
+    }
+
+    /**
+     * Decodes the stop, ignoring case.
+     *
+     * @return The stop, or null if unknown
+     */
+    private static StopId decodeStopId(MappedByteBuffer window, int start, int end) {
+        return StopId.lookup(window, start, end);
+    }
+
+    /**
+     * Decodes the UTF-8 String between the given offsets.
+     */
+    private String readString(MappedByteBuffer window, int start, int end) {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        window.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The value of two decimal digits, or -1 if either byte is not a digit
+     */
+    private static int twoDigits(MappedByteBuffer window, int index) {
+        int tens = digit(window, index);
+        int units = digit(window, index + 1);
+        return tens < 0 || units < 0 ? -1 : tens * 10 + units;
+    }
+
+    /**
+     * @return The value of a decimal digit, or -1 if the byte is not a digit
+     */
+    private static int digit(MappedByteBuffer window, int index) {
+        int value = window.get(index) - '0';
+        return value < 0 || value > 9 ? -1 : value;
+    }
+
+    /**
+     * @return The offset of the last newline in the first {@code length} bytes of the window, or -1 if none
+     */
+    private static int lastNewline(MappedByteBuffer window, int length) {
+        for (int index = length - 1; index >= 0; index--) {
+            if (window.get(index) == '\n') {
+                return index;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,237 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Parses a taps CSV file on several threads by splitting it into chunks of about the same number of bytes.
+ * Each chunk ends at the end of a line, so no line is split between chunks, and is parsed by a
+ * {@link MappedCsvTapParser} of its own thread. The taps of each chunk are handed to the consumer on the
+ * calling thread, a chunk at a time and in file order, so the consumer sees exactly the taps a single
+ * {@link MappedCsvTapParser} would, in the same order.
+ * <p>
+ * At most two chunks per thread are parsed or waiting to be consumed at once, which bounds the memory used
+ * when the consumer is slower than the parsers. Each thread interns the company, bus and PAN values of the
+ * chunks it parses in its own caches.
+ * This class is not thread-safe.
+ */
+public class ParallelCsvTapParser {
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ParallelCsvTapParser.class);
+
+    /**
+     * Default number of bytes in a chunk
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 24;
+
+    /**
+     * Number of chunks per thread parsed or waiting to be consumed at once
+     */
+    private static final int CHUNKS_PER_THREAD = 2;
+
+    /**
+     * Number of bytes read at a time while looking for the end of a chunk
+     */
+    private static final int SCAN_SIZE = 1 << 13;
+
+    /**
+     * Number of bytes in a chunk, before it is extended to the end of its last line
+     */
+    private final int chunkSize;
+
+    private final int threads;
+
+    /**
+     * Number of distinct values each thread caches in each of its interners
+     */
+    private final int internCapacity;
+
+    /**
+     * Receives the rows that could not be parsed, from the parser threads
+     */
+    private final MappedCsvTapParser.RejectListener rejectListener;
+
+    /**
+     * Number of rows that could not be parsed so far
+     */
+    private final AtomicLong rejectedLines = new AtomicLong();
+
+    /**
+     * Number of chunks parsed so far
+     */
+    private long chunks;
+
+    /**
+     * Creates a new parser.
+     *
+     * @param chunkSize Number of bytes in a chunk, before it is extended to the end of its last line
+     * @param threads Number of chunks parsed at once
+     * @param internCapacity Number of distinct company ids, bus ids and PANs each thread caches
+     */
+    public ParallelCsvTapParser(int chunkSize, int threads, int internCapacity) {
+        this(chunkSize, threads, internCapacity, MappedCsvTapParser.LOG_REJECTS);
+    }
+
+    /**
+     * Creates a new parser that reports the rows it cannot parse to a listener instead of logging them.
+     * The listener is called from the parser threads as each chunk is parsed, so it must be thread-safe,
+     * and rows of different chunks may be reported out of file order.
+     *
+     * @param chunkSize Number of bytes in a chunk, before it is extended to the end of its last line
+     * @param threads Number of chunks parsed at once
+     * @param internCapacity Number of distinct company ids, bus ids and PANs each thread caches
+     * @param rejectListener Receives the rows that could not be parsed, with the reason
+     */
+    public ParallelCsvTapParser(int chunkSize, int threads, int internCapacity, MappedCsvTapParser.RejectListener rejectListener) {
+        if (chunkSize < 1 || threads < 1) {
+            throw new IllegalArgumentException("Chunk size and threads must be positive: " + chunkSize + ", " + threads);
+        }
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+        this.internCapacity = internCapacity;
+        this.rejectListener = rejectListener;
+    }
+
+    /**
+     * Parses every row of the given file and hands each parsed tap to the consumer, in file order.
+     * Rows that cannot be parsed are reported to the reject listener and skipped.
+     *
+     * @param input The CSV file to parse
+     * @param consumer Receives each parsed tap, on the calling thread
+     * @return The number of rows that could not be parsed
+     * @throws IOException if the file cannot be read, or contains a line longer than {@link MappedCsvTapParser#DEFAULT_WINDOW_SIZE}
+     */
+    public long parse(Path input, Consumer<TapDetail> consumer) throws IOException {
+        long rejectedBefore = rejectedLines.get();
+        long chunksBefore = chunks;
+        BlockingQueue<MappedCsvTapParser> parsers = new ArrayBlockingQueue<>(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            parsers.add(new MappedCsvTapParser(MappedCsvTapParser.DEFAULT_WINDOW_SIZE, new StringInterner(internCapacity),
+                    new StringInterner(internCapacity), new StringInterner(internCapacity), rejectListener));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "tap-chunk-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deque<Future<List<TapDetail>>> pending = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            while (start < size) {
+                long chunkStart = start;
+                long chunkEnd = size - start <= chunkSize ? size : nextLineStart(channel, start + chunkSize - 1, size);
+                pending.add(executor.submit(() -> parseChunk(input, chunkStart, chunkEnd, parsers)));
+                chunks++;
+                start = chunkEnd;
+                if (pending.size() == threads * CHUNKS_PER_THREAD) {
+                    consume(pending.poll(), consumer);
+                }
+            }
+            while (!pending.isEmpty()) {
+                consume(pending.poll(), consumer);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.debug("Parsed {} in {} chunks on {} threads", input, chunks - chunksBefore, threads);
+        return rejectedLines.get() - rejectedBefore;
+    }
+
+    /**
+     * @return The number of rows that could not be parsed by this parser so far
+     */
+    public long getRejectedLines() {
+        return rejectedLines.get();
+    }
+
+    /**
+     * @return The number of chunks parsed by this parser so far
+     */
+    public long getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Parses a chunk with a parser not used by any other thread.
+     *
+     * @return The taps of the chunk, in file order
+     */
+    private List<TapDetail> parseChunk(Path input, long start, long end, BlockingQueue<MappedCsvTapParser> parsers)
+            throws IOException, InterruptedException {
+        MappedCsvTapParser parser = parsers.take();
+        try {
+            List<TapDetail> taps = new ArrayList<>();
+            rejectedLines.addAndGet(parser.parseRange(input, start, end, taps::add));
+            return taps;
+        } finally {
+            parsers.add(parser);
+        }
+    }
+
+    /**
+     * Waits for a chunk to be parsed and hands its taps to the consumer.
+     */
+    private static void consume(Future<List<TapDetail>> chunk, Consumer<TapDetail> consumer) throws IOException {
+        List<TapDetail> taps;
+        try {
+            taps = chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IOException("Failed to parse chunk", e.getCause());
+        }
+        taps.forEach(consumer);
+    }
+
+    /**
+     * @return The offset after the first newline at or after {@code from}, or the size of the file if there is none
+     */
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int index = 0; index < read; index++) {
+                if (buffer.get(index) == '\n') {
+                    return position + index + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,192 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A bounded cache of String instances, so that a column with few distinct values, such as the company or
+ * bus of a tap, shares one instance per value instead of creating a String for every row.
+ * Values are looked up by their characters in place, so a hit does not allocate.
+ * <p>
+ * The cache is a direct-mapped table of a fixed number of slots: a value that hashes to an occupied slot
+ * replaces the value in it. Memory use is therefore fixed, and a column with more distinct values than
+ * slots, such as the PAN of a busy network, simply gets a lower hit rate.
+ * The hits, misses and evictions are counted so the capacity can be tuned.
+ * This class is not thread-safe.
+ */
+public final class StringInterner {
+    /**
+     * Default number of slots
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * The cached values, indexed by hash
+     */
+    private final String[] slots;
+
+    /**
+     * Scratch space used to copy the bytes of a missed value
+     */
+    private byte[] scratch = new byte[64];
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    /**
+     * Creates an interner.
+     *
+     * @param capacity Number of values cached, rounded up to a power of two, or 0 to disable interning
+     */
+    public StringInterner(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative: " + capacity);
+        }
+        this.slots = new String[capacity == 0 ? 0 : Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1)];
+    }
+
+    /**
+     * Gets the shared instance of the characters between the given offsets.
+     *
+     * @param value The characters to intern
+     * @param start Offset of the first character
+     * @param end Offset after the last character
+     * @return A String equal to {@code value.subSequence(start, end)}
+     */
+    public String intern(CharSequence value, int start, int end) {
+        if (slots.length == 0) {
+            misses++;
+            return value.subSequence(start, end).toString();
+        }
+        int hash = 0;
+        for (int index = start; index < end; index++) {
+            hash = 31 * hash + value.charAt(index);
+        }
+        int slot = slot(hash);
+        String candidate = slots[slot];
+        if (candidate != null && candidate.length() == end - start && matches(candidate, value, start)) {
+            hits++;
+            return candidate;
+        }
+        return store(slot, value.subSequence(start, end).toString());
+    }
+
+    /**
+     * Gets the shared instance of the UTF-8 String between the given offsets.
+     *
+     * @param buffer Buffer holding the value
+     * @param start Offset of the first byte
+     * @param end Offset after the last byte
+     * @return A String decoded from the bytes between the offsets
+     */
+    public String intern(ByteBuffer buffer, int start, int end) {
+        int hash = 0;
+        for (int index = start; index < end; index++) {
+            byte b = buffer.get(index);
+            if (b < 0) {
+                // Values outside ASCII are decoded and hashed over their characters
+                String decoded = decode(buffer, start, end, StandardCharsets.UTF_8);
+                return intern(decoded, 0, decoded.length());
+            }
+            hash = 31 * hash + b;
+        }
+        if (slots.length == 0) {
+            misses++;
+            return decode(buffer, start, end, StandardCharsets.US_ASCII);
+        }
+        int slot = slot(hash);
+        String candidate = slots[slot];
+        if (candidate != null && candidate.length() == end - start && matches(candidate, buffer, start)) {
+            hits++;
+            return candidate;
+        }
+        return store(slot, decode(buffer, start, end, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return The number of lookups that returned a cached instance
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of lookups that created a new String
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The number of cached values replaced by a different value
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return The fraction of lookups that returned a cached instance, or 0 if there were none
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return The number of values that can be cached
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d misses, %d evictions (%.1f%% hit rate)",
+                hits, misses, evictions, getHitRate() * 100);
+    }
+
+    private String store(int slot, String value) {
+        misses++;
+        if (slots[slot] != null) {
+            evictions++;
+        }
+        slots[slot] = value;
+        return value;
+    }
+
+    private int slot(int hash) {
+        int spread = hash * 0x9E3779B9;
+        return (spread ^ (spread >>> 16)) & (slots.length - 1);
+    }
+
+    private String decode(ByteBuffer buffer, int start, int end, Charset charset) {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, charset);
+    }
+
+    private static boolean matches(String candidate, CharSequence value, int start) {
+        for (int index = 0; index < candidate.length(); index++) {
+            if (candidate.charAt(index) != value.charAt(start + index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String candidate, ByteBuffer buffer, int start) {
+        for (int index = 0; index < candidate.length(); index++) {
+            if (candidate.charAt(index) != buffer.get(start + index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,265 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * How far an appended taps file has been processed: the byte offset after the last line read,
+ * a fingerprint of the start of the file, and the tap ON event of every card that was still travelling at that point.
+ * A checkpoint of a tailed directory holds the position reached in each of its files instead.
+ * <p>
+ * The fingerprint tells a file that was only appended to from one that was replaced, for example by log rotation,
+ * even when the new file has already grown past the offset.
+ * <p>
+ * A checkpoint is stored as a small CSV file: an {@code Offset} row, a {@code Fingerprint} row and a {@code File} row
+ * per tailed file, followed by the open taps in the same format as the input file. It is replaced atomically,
+ * so a run that fails part way leaves the previous checkpoint in place.
+ * This class is immutable.
+ */
+@Value
+@AllArgsConstructor
+public class TapCheckpoint {
+    /**
+     * How far one of the files of a tailed directory has been processed.
+     * This class is immutable.
+     */
+    @Value
+    public static class FilePosition {
+        /**
+         * The name of the file within the directory
+         */
+        String fileName;
+
+        /**
+         * The offset in bytes after the last line that was processed
+         */
+        long offset;
+
+        /**
+         * The CRC-32 of the bytes of the file before the offset, up to {@link TapCheckpoint#FINGERPRINT_BYTES} of them
+         */
+        long fingerprint;
+
+        /**
+         * Tells whether a file still starts with the bytes this position was taken from, so that it can be resumed
+         * from the offset.
+         *
+         * @param path The file
+         * @return true if the file can be resumed from this position
+         * @throws IOException if the file cannot be read
+         */
+        public boolean matches(Path path) throws IOException {
+            return TapCheckpoint.matches(path, offset, fingerprint);
+        }
+    }
+
+    /**
+     * A checkpoint of a file that has not been read yet
+     */
+    public static final TapCheckpoint START = new TapCheckpoint(0, 0, List.of());
+
+    /**
+     * The fingerprint of a checkpoint written before fingerprints were stored, which matches any file
+     */
+    public static final long NO_FINGERPRINT = -1;
+
+    /**
+     * The number of bytes at the start of a file that its fingerprint covers
+     */
+    public static final int FINGERPRINT_BYTES = 4096;
+
+    private static final String OFFSET_COLUMN = "Offset";
+
+    private static final String FINGERPRINT_COLUMN = "Fingerprint";
+
+    private static final String FILE_COLUMN = "File";
+
+    /**
+     * The offset in bytes after the last line that was processed
+     */
+    long offset;
+
+    /**
+     * The CRC-32 of the bytes of the file before the offset, up to {@link #FINGERPRINT_BYTES} of them,
+     * or {@link #NO_FINGERPRINT}
+     */
+    long fingerprint;
+
+    /**
+     * The tap ON event of every card that was still travelling, in the order the trips started,
+     * followed by the taps that were still held to be put back in time order, if any
+     */
+    List<TapDetail> openTaps;
+
+    /**
+     * The position reached in each file of a tailed directory, empty for a single file
+     */
+    List<FilePosition> files;
+
+    /**
+     * Creates a checkpoint of a single file.
+     *
+     * @param offset The offset in bytes after the last line that was processed
+     * @param fingerprint The fingerprint of the file up to the offset, see {@link #fingerprint(Path, long)}
+     * @param openTaps The tap ON event of every card that was still travelling
+     */
+    public TapCheckpoint(long offset, long fingerprint, List<TapDetail> openTaps) {
+        this(offset, fingerprint, openTaps, List.of());
+    }
+
+    /**
+     * Reads a checkpoint.
+     *
+     * @param path The checkpoint file
+     * @return The checkpoint, or {@link #START} if the file does not exist
+     * @throws IOException if the file cannot be read or is not a valid checkpoint
+     */
+    public static TapCheckpoint load(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return START;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String[] offsetRow = split(reader.readLine(), 2);
+            if (!OFFSET_COLUMN.equals(offsetRow[0])) {
+                throw new IOException("Checkpoint " + path + " does not start with an " + OFFSET_COLUMN + " row");
+            }
+            long offset = Long.parseLong(offsetRow[1]);
+
+            long fingerprint = NO_FINGERPRINT;
+            List<TapDetail> openTaps = new ArrayList<>();
+            List<FilePosition> files = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("ID,")) {
+                    continue;
+                }
+                if (line.startsWith(FINGERPRINT_COLUMN + ",")) {
+                    fingerprint = Long.parseLong(split(line, 2)[1], 16);
+                    continue;
+                }
+                if (line.startsWith(FILE_COLUMN + ",")) {
+                    // The file name may itself hold commas, so the numbers are taken from the end of the row
+                    int fingerprintStart = line.lastIndexOf(',');
+                    int offsetStart = line.lastIndexOf(',', fingerprintStart - 1);
+                    if (offsetStart <= FILE_COLUMN.length()) {
+                        throw new IllegalArgumentException("Expected 4 columns in " + line);
+                    }
+                    files.add(new FilePosition(line.substring(FILE_COLUMN.length() + 1, offsetStart).trim(),
+                            Long.parseLong(line.substring(offsetStart + 1, fingerprintStart).trim()),
+                            Long.parseLong(line.substring(fingerprintStart + 1).trim(), 16)));
+                    continue;
+                }
+                String[] columns = split(line, 7);
+                openTaps.add(new TapDetail(
+                        Integer.parseInt(columns[0]),
+                        ZonedDateTime.parse(columns[1], TapCsvFormat.FORMATTER),
+                        TapType.valueOf(columns[2]),
+                        StopId.valueOf(columns[3]),
+                        columns[4],
+                        columns[5],
+                        columns[6]));
+            }
+            return new TapCheckpoint(offset, fingerprint, openTaps, files);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IOException("Invalid checkpoint " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes this checkpoint, atomically replacing any existing checkpoint.
+     *
+     * @param path The checkpoint file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary)) {
+            writer.write(OFFSET_COLUMN + ", " + offset);
+            writer.newLine();
+            if (fingerprint != NO_FINGERPRINT) {
+                writer.write(FINGERPRINT_COLUMN + ", " + Long.toHexString(fingerprint));
+                writer.newLine();
+            }
+            for (FilePosition file : files) {
+                writer.write(FILE_COLUMN + ", " + file.getFileName() + ", " + file.getOffset() + ", " + Long.toHexString(file.getFingerprint()));
+                writer.newLine();
+            }
+            writer.write(TapCsvFormat.HEADER);
+            writer.newLine();
+            for (TapDetail tap : openTaps) {
+                writer.write(TapCsvFormat.format(tap));
+                writer.newLine();
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Tells whether a file still starts with the bytes this checkpoint was taken from, so that it can be resumed
+     * from the offset. A file that is shorter than the offset never matches.
+     *
+     * @param path The file
+     * @return true if the file can be resumed from this checkpoint
+     * @throws IOException if the file cannot be read
+     */
+    public boolean matches(Path path) throws IOException {
+        return matches(path, offset, fingerprint);
+    }
+
+    /**
+     * Computes the fingerprint of a file processed up to an offset: the CRC-32 of the bytes before the offset,
+     * up to {@link #FINGERPRINT_BYTES} of them.
+     *
+     * @param path The file
+     * @param offset The offset in bytes after the last line that was processed
+     * @return The fingerprint
+     * @throws IOException if the file cannot be read
+     */
+    public static long fingerprint(Path path, long offset) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream input = Files.newInputStream(path)) {
+            crc.update(input.readNBytes((int) Math.min(offset, FINGERPRINT_BYTES)));
+        }
+        return crc.getValue();
+    }
+
+    private static boolean matches(Path path, long offset, long fingerprint) throws IOException {
+        if (offset > Files.size(path)) {
+            return false;
+        }
+        return fingerprint == NO_FINGERPRINT || fingerprint == fingerprint(path, offset);
+    }
+
+    /**
+     * Splits a row into the given number of trimmed columns.
+     */
+    private static String[] split(String line, int columns) {
+        if (line == null) {
+            throw new IllegalArgumentException("Missing row");
+        }
+        String[] values = line.split(",");
+        if (values.length != columns) {
+            throw new IllegalArgumentException("Expected " + columns + " columns in " + line);
+        }
+        for (int index = 0; index < values.length; index++) {
+            values[index] = values[index].trim();
+        }
+        return values;
+    }
+}
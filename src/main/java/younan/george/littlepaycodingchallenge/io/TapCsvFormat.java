@@ -0,0 +1,56 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The format of a taps CSV file, shared by every class that writes taps back out as CSV
+ * so that checkpoints, converted files and dead-letter rows read like the input file.
+ */
+public final class TapCsvFormat {
+    /**
+     * Header row of a taps CSV file, without the line separator
+     */
+    public static final String HEADER = "ID, DateTimeUTC, TapType, StopId, CompanyId, BusID, PAN";
+
+    /**
+     * Format of the DateTimeUTC column, in the UTC timezone
+     */
+    public static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    private TapCsvFormat() {
+    }
+
+    /**
+     * Formats a tap as a row of a taps CSV file, without the line separator.
+     *
+     * @param tapDetail The tap
+     * @return The row
+     */
+    public static String format(TapDetail tapDetail) {
+        return format(tapDetail.getId(), tapDetail.getEpochSecondUTC(), tapDetail.getTapType(), String.valueOf(tapDetail.getStopId()),
+                tapDetail.getCompanyId(), tapDetail.getBusId(), tapDetail.getPan());
+    }
+
+    /**
+     * Formats the columns of a tap as a row of a taps CSV file, without the line separator,
+     * for taps whose stop is not known.
+     *
+     * @param id The id of the tap
+     * @param epochSecond The time of the tap in seconds since the epoch
+     * @param tapType The tap type, or null
+     * @param stop The name of the stop
+     * @param companyId The company id
+     * @param busId The bus id
+     * @param pan The PAN
+     * @return The row
+     */
+    public static String format(int id, long epochSecond, TapType tapType, String stop, String companyId, String busId, String pan) {
+        return id + ", " + FORMATTER.format(Instant.ofEpochSecond(epochSecond)) + ", " + tapType + ", "
+                + stop + ", " + companyId + ", " + busId + ", " + pan;
+    }
+}
@@ -0,0 +1,250 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails every taps CSV file in a directory, handing each tap to a listener as soon as its line is complete.
+ * The directory is watched with a WatchService, so new files and appended lines are picked up as they arrive.
+ * As some WatchService implementations poll, the sizes of the known files are also checked whenever no event
+ * arrives within the poll interval, which bounds the latency on every platform.
+ * <p>
+ * The offset reached in each file is kept in memory, so each line is parsed exactly once while the tailer runs.
+ * The offsets can be saved between batches with {@link #getOffsets()} and handed to a new tailer with
+ * {@link #resume(Map)}, so that a restart does not parse the files again.
+ * A file that shrinks is assumed to have been replaced and is read again from the start.
+ * If the listener fails, tailing stops rather than reading the file again, which would hand its taps
+ * before the failure over twice.
+ * Files are read on the thread that calls {@link #run()}; {@link #close()} may be called from any thread.
+ */
+public class TapFileTailer implements Runnable, Closeable {
+    /**
+     * Receives the taps read by a TapFileTailer.
+     */
+    public interface TapListener {
+        /**
+         * Called for every tap, in the order of the lines in each file.
+         *
+         * @param tapDetail The parsed tap
+         */
+        void onTap(TapDetail tapDetail);
+
+        /**
+         * Called after the taps of a batch of file changes have been handed over, e.g. to flush results.
+         *
+         * @throws IOException if the results cannot be written
+         */
+        default void onBatchEnd() throws IOException {
+        }
+    }
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(TapFileTailer.class);
+
+    private final Path directory;
+
+    /**
+     * Glob that the names of the tailed files must match, e.g. {@code *.csv}
+     */
+    private final String fileNameGlob;
+
+    /**
+     * Matches the names of the tailed files against {@link #fileNameGlob}
+     */
+    private final PathMatcher fileNameMatcher;
+
+    /**
+     * How long to wait for a file event before checking the sizes of the known files, in milliseconds
+     */
+    private final long pollIntervalMs;
+
+    private final MappedCsvTapParser parser;
+
+    private final TapListener listener;
+
+    private final WatchService watchService;
+
+    /**
+     * The offset after the last complete line read from each file
+     */
+    private final Map<Path, Long> offsets = new HashMap<>();
+
+    /**
+     * Creates a tailer and starts watching the directory. Files are only read once {@link #run()} is called.
+     *
+     * @param directory The directory to tail
+     * @param fileNameGlob Glob that the names of the tailed files must match, e.g. {@code *.csv}
+     * @param pollIntervalMs How long to wait for a file event before checking the sizes of the known files
+     * @param parser Parser used to read the files
+     * @param listener Receives every tap
+     * @throws IOException if the directory cannot be watched
+     */
+    public TapFileTailer(Path directory, String fileNameGlob, long pollIntervalMs, MappedCsvTapParser parser,
+                         TapListener listener) throws IOException {
+        this.directory = directory;
+        this.fileNameGlob = fileNameGlob;
+        this.fileNameMatcher = directory.getFileSystem().getPathMatcher("glob:" + fileNameGlob);
+        this.pollIntervalMs = pollIntervalMs;
+        this.parser = parser;
+        this.listener = listener;
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    /**
+     * Resumes reading files from the offsets reached by an earlier tailer. This must be called before {@link #run()}.
+     *
+     * @param resumedOffsets The offset after the last complete line read from each file
+     */
+    public void resume(Map<Path, Long> resumedOffsets) {
+        offsets.putAll(resumedOffsets);
+    }
+
+    /**
+     * Returns the offset after the last complete line read from each file. This must be called on the thread
+     * running the tailer, e.g. from {@link TapListener#onBatchEnd()}.
+     *
+     * @return A copy of the offsets, by file
+     */
+    public Map<Path, Long> getOffsets() {
+        return new HashMap<>(offsets);
+    }
+
+    /**
+     * Reads the files already in the directory, then reads new files and lines as they arrive,
+     * until {@link #close()} is called.
+     *
+     * @throws IllegalStateException if the listener fails, after the tailer has been closed
+     */
+    @Override
+    public void run() {
+        try {
+            readAll(listFiles());
+            while (true) {
+                WatchKey key = watchService.poll(pollIntervalMs, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    readAll(new TreeSet<>(offsets.keySet()));
+                    continue;
+                }
+                readAll(changedFiles(key));
+                key.reset();
+            }
+        } catch (ClosedWatchServiceException e) {
+            logger.info("Stopped tailing {}", directory);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.info("Interrupted while tailing {}", directory);
+        } catch (RuntimeException e) {
+            try {
+                close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stops tailing. A call to {@link #run()} in progress returns once it has finished reading the current files.
+     *
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    /**
+     * @return The matching files affected by the events of a key, or every file if events were lost
+     */
+    private TreeSet<Path> changedFiles(WatchKey key) {
+        TreeSet<Path> files = new TreeSet<>();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                return listFiles();
+            }
+            Path file = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                offsets.remove(file);
+            } else if (matches(file)) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @return Every matching file in the directory, ordered by name
+     */
+    private TreeSet<Path> listFiles() {
+        TreeSet<Path> files = new TreeSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, fileNameGlob)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            logger.error("Error listing {}", directory, e);
+        }
+        return files;
+    }
+
+    private boolean matches(Path file) {
+        return fileNameMatcher.matches(file.getFileName());
+    }
+
+    /**
+     * Reads the lines appended to each file since it was last read, then ends the batch.
+     */
+    private void readAll(Iterable<Path> files) {
+        List<Path> read = new ArrayList<>();
+        for (Path file : files) {
+            try {
+                if (!Files.isRegularFile(file)) {
+                    continue;
+                }
+                long offset = offsets.getOrDefault(file, 0L);
+                long size = Files.size(file);
+                if (size < offset) {
+                    logger.warn("{} shrank from {} to {} bytes, reading it from the start", file, offset, size);
+                    offset = 0;
+                } else if (size == offset && offsets.containsKey(file)) {
+                    continue;
+                }
+                offsets.put(file, parser.parseAppended(file, offset, listener::onTap));
+                read.add(file);
+            } catch (IOException e) {
+                logger.error("Error reading {}", file, e);
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Error processing the taps of " + file, e);
+            }
+        }
+        if (!read.isEmpty()) {
+            try {
+                listener.onBatchEnd();
+            } catch (IOException e) {
+                logger.error("Error ending batch of {}", read, e);
+            }
+            logger.debug("Read {}", read);
+        }
+    }
+}
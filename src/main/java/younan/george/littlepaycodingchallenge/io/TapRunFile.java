@@ -0,0 +1,151 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A temporary file holding a run of taps in a compact binary format, used to sort taps that do not fit in memory.
+ * Each record holds the sequence number of the tap, followed by its id, time in seconds since the epoch,
+ * tap type, stop, company, bus and PAN. Strings are written as modified UTF-8 with a two byte length prefix.
+ * A run is written once with a {@link Writer} and read once, in the same order, with a {@link Reader}.
+ */
+public final class TapRunFile {
+    /**
+     * Default number of bytes buffered by each reader and writer
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private static final TapType[] TAP_TYPES = TapType.values();
+
+    private TapRunFile() {
+    }
+
+    /**
+     * Writes the taps of a run. This class is not thread-safe.
+     */
+    public static final class Writer implements Closeable {
+        private final DataOutputStream output;
+
+        private long count;
+
+        /**
+         * Creates a run file, replacing any existing file.
+         *
+         * @param path The run file
+         * @param bufferSize Number of bytes buffered before they are written
+         * @throws IOException if the file cannot be created
+         */
+        public Writer(Path path, int bufferSize) throws IOException {
+            this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), bufferSize));
+        }
+
+        /**
+         * Appends a tap to the run.
+         *
+         * @param sequence The sequence number of the tap
+         * @param tapDetail The tap
+         * @throws IOException if the tap cannot be written
+         */
+        public void write(long sequence, TapDetail tapDetail) throws IOException {
+            output.writeLong(sequence);
+            output.writeInt(tapDetail.getId());
+            output.writeLong(tapDetail.getEpochSecondUTC());
+            output.writeByte(tapDetail.getTapType().ordinal());
+            output.writeUTF(tapDetail.getStopId().name());
+            output.writeUTF(tapDetail.getCompanyId());
+            output.writeUTF(tapDetail.getBusId());
+            output.writeUTF(tapDetail.getPan());
+            count++;
+        }
+
+        /**
+         * @return The number of taps written
+         */
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.close();
+        }
+    }
+
+    /**
+     * Reads the taps of a run in the order they were written. This class is not thread-safe.
+     */
+    public static final class Reader implements Closeable {
+        private final DataInputStream input;
+
+        private long sequence;
+
+        private TapDetail tapDetail;
+
+        /**
+         * Opens a run file.
+         *
+         * @param path The run file
+         * @param bufferSize Number of bytes read from the file at a time
+         * @throws IOException if the file cannot be opened
+         */
+        public Reader(Path path, int bufferSize) throws IOException {
+            this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), bufferSize));
+        }
+
+        /**
+         * Reads the next tap, which is then returned by {@link #getTapDetail()} and {@link #getSequence()}.
+         *
+         * @return true if a tap was read, false at the end of the run
+         * @throws IOException if the file cannot be read or ends part way through a tap
+         */
+        public boolean next() throws IOException {
+            long nextSequence;
+            try {
+                nextSequence = input.readLong();
+            } catch (EOFException e) {
+                tapDetail = null;
+                return false;
+            }
+            sequence = nextSequence;
+            tapDetail = new TapDetail(
+                    input.readInt(),
+                    input.readLong(),
+                    TAP_TYPES[input.readByte()],
+                    StopId.of(input.readUTF()),
+                    input.readUTF(),
+                    input.readUTF(),
+                    input.readUTF());
+            return true;
+        }
+
+        /**
+         * @return The sequence number of the tap last read
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * @return The tap last read, or null before the first tap and at the end of the run
+         */
+        public TapDetail getTapDetail() {
+            return tapDetail;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
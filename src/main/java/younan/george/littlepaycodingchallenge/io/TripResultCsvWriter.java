@@ -0,0 +1,309 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Writes trip results to a CSV file through a single file channel.
+ * Each row is formatted directly into a reusable byte array and copied into a buffer,
+ * which is only written to the channel once it is full or the writer is closed.
+ * <p>
+ * The output is byte-for-byte the same as joining the columns with {@code StringUtils.join},
+ * i.e. timestamps use {@code ZonedDateTime.toString} and amounts use {@code BigDecimal.toString}.
+ * Timestamps are formatted straight from their epoch seconds. Values outside the common case
+ * (years outside 0-9999, amounts that would be printed in scientific notation) fall back to those methods.
+ * This class is not thread-safe.
+ */
+public class TripResultCsvWriter implements TripResultWriter {
+    /**
+     * Default size of the write buffer in bytes
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Header row of the output CSV file
+     */
+    public static final String HEADER_ROW = "Started, Finished, DurationSecs, FromStopId, ToStopId, ChargeAmount, CompanyId, BusID, PAN, Status" + System.lineSeparator();
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte SEPARATOR = ',';
+
+    private final FileChannel channel;
+
+    /**
+     * Rows waiting to be written to the channel
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The row currently being formatted
+     */
+    private byte[] row = new byte[256];
+
+    /**
+     * Number of bytes of the current row
+     */
+    private int rowLength;
+
+    private long rowsWritten;
+
+    private long bytesWritten;
+
+    /**
+     * Creates the output file, replacing any existing file, and writes the header row.
+     *
+     * @param output The file to write to
+     * @param bufferSize Number of bytes buffered before they are written to the file
+     * @throws IOException if the file cannot be created
+     */
+    public TripResultCsvWriter(Path output, int bufferSize) throws IOException {
+        this(output, bufferSize, false);
+    }
+
+    /**
+     * Opens the output file, and writes the header row if the file is new or replaced.
+     *
+     * @param output The file to write to
+     * @param bufferSize Number of bytes buffered before they are written to the file
+     * @param append Whether to add rows to the end of an existing file instead of replacing it.
+     *               The header row is only written when the file is empty.
+     * @throws IOException if the file cannot be opened
+     */
+    public TripResultCsvWriter(Path output, int bufferSize, boolean append) throws IOException {
+        this.channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        if (channel.size() == 0) {
+            appendAscii(HEADER_ROW);
+            writeRow();
+        }
+    }
+
+    /**
+     * Formats a trip result as a CSV row and adds it to the buffer.
+     *
+     * @param tripResult The trip result to write
+     * @throws IOException if the buffer is full and cannot be written to the file
+     */
+    public void write(TripResult tripResult) throws IOException {
+        appendTimestamp(tripResult.getStartedEpochSecond());
+        append(SEPARATOR);
+        appendTimestamp(tripResult.getFinishedEpochSecond());
+        append(SEPARATOR);
+        appendLong(tripResult.getDurationSecs());
+        append(SEPARATOR);
+        appendString(String.valueOf(tripResult.getFromStopId()));
+        append(SEPARATOR);
+        appendString(String.valueOf(tripResult.getToStopId()));
+        append(SEPARATOR);
+        appendAmount(tripResult.getChargeAmount());
+        append(SEPARATOR);
+        appendString(tripResult.getCompanyId());
+        append(SEPARATOR);
+        appendString(tripResult.getBusID());
+        append(SEPARATOR);
+        appendString(String.valueOf(tripResult.getStatus()));
+        appendBytes(LINE_SEPARATOR);
+        writeRow();
+        rowsWritten++;
+    }
+
+    /**
+     * Writes all buffered rows to the file.
+     *
+     * @throws IOException if the rows cannot be written
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes all buffered rows to the file and closes it.
+     *
+     * @throws IOException if the rows cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return The number of trip results written, excluding the header row
+     */
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * @return The number of bytes written to the file so far, excluding any still buffered
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Moves the formatted row into the buffer, flushing the buffer first if the row does not fit.
+     */
+    private void writeRow() throws IOException {
+        if (rowLength > buffer.remaining()) {
+            flush();
+        }
+        if (rowLength > buffer.capacity()) {
+            ByteBuffer wrapped = ByteBuffer.wrap(row, 0, rowLength);
+            while (wrapped.hasRemaining()) {
+                bytesWritten += channel.write(wrapped);
+            }
+        } else {
+            buffer.put(row, 0, rowLength);
+        }
+        rowLength = 0;
+    }
+
+    /**
+     * Appends a timestamp in seconds since the epoch in the format of {@code ZonedDateTime.toString}
+     * in UTC, e.g. 2023-01-22T13:00Z
+     */
+    private void appendTimestamp(long epochSecond) {
+        int year = EpochSeconds.year(epochSecond);
+        if (year < 0 || year > 9999) {
+            appendString(ZonedDateTime.of(LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC), ZoneOffset.UTC).toString());
+            return;
+        }
+        int secondOfDay = EpochSeconds.secondOfDay(epochSecond);
+        int second = secondOfDay % 60;
+        appendDigits(year, 4);
+        append((byte) '-');
+        appendDigits(EpochSeconds.month(epochSecond), 2);
+        append((byte) '-');
+        appendDigits(EpochSeconds.dayOfMonth(epochSecond), 2);
+        append((byte) 'T');
+        appendDigits(secondOfDay / 3600, 2);
+        append((byte) ':');
+        appendDigits(secondOfDay / 60 % 60, 2);
+        if (second != 0) {
+            append((byte) ':');
+            appendDigits(second, 2);
+        }
+        append((byte) 'Z');
+    }
+
+    /**
+     * Appends an amount in the format of {@code BigDecimal.toString}, e.g. 7.30
+     */
+    private void appendAmount(BigDecimal amount) {
+        if (amount == null || amount.scale() < 0 || amount.scale() > 18 || amount.precision() > 18
+                || amount.precision() - amount.scale() - 1 < -6) {
+            appendString(String.valueOf(amount));
+            return;
+        }
+        long unscaled = amount.unscaledValue().longValue();
+        if (unscaled < 0) {
+            append((byte) '-');
+            unscaled = -unscaled;
+        }
+        int scale = amount.scale();
+        if (scale == 0) {
+            appendLong(unscaled);
+            return;
+        }
+        long divisor = 1;
+        for (int i = 0; i < scale; i++) {
+            divisor *= 10;
+        }
+        appendLong(unscaled / divisor);
+        append((byte) '.');
+        appendDigits(unscaled % divisor, scale);
+    }
+
+    private void appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            appendAscii(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            append((byte) '-');
+            value = -value;
+        }
+        long divisor = 1;
+        int digits = 1;
+        while (digits < 19 && divisor * 10 <= value) {
+            divisor *= 10;
+            digits++;
+        }
+        appendDigits(value, digits);
+    }
+
+    /**
+     * Appends the lowest {@code digits} decimal digits of a non-negative value, padded with zeros.
+     */
+    private void appendDigits(long value, int digits) {
+        ensureCapacity(digits);
+        for (int index = rowLength + digits - 1; index >= rowLength; index--) {
+            row[index] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        rowLength += digits;
+    }
+
+    /**
+     * Appends a String in UTF-8, without allocating when it is pure ASCII.
+     * Null values are appended as an empty column, like {@code StringUtils.join}.
+     */
+    private void appendString(String value) {
+        if (value == null) {
+            return;
+        }
+        int length = value.length();
+        ensureCapacity(length);
+        for (int index = 0; index < length; index++) {
+            char c = value.charAt(index);
+            if (c >= 0x80) {
+                appendBytes(value.substring(index).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            row[rowLength++] = (byte) c;
+        }
+    }
+
+    private void appendAscii(String value) {
+        appendBytes(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void appendBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, row, rowLength, bytes.length);
+        rowLength += bytes.length;
+    }
+
+    private void append(byte value) {
+        ensureCapacity(1);
+        row[rowLength++] = value;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (rowLength + additional > row.length) {
+            byte[] grown = new byte[Math.max(row.length * 2, rowLength + additional)];
+            System.arraycopy(row, 0, grown, 0, rowLength);
+            row = grown;
+        }
+    }
+}
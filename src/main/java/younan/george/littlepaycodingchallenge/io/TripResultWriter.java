@@ -0,0 +1,36 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes trip results to an output file in one of the supported formats.
+ */
+public interface TripResultWriter extends Closeable {
+    /**
+     * Adds a trip result to the output.
+     *
+     * @param tripResult The trip result to write
+     * @throws IOException if the output cannot be written
+     */
+    void write(TripResult tripResult) throws IOException;
+
+    /**
+     * Writes every buffered trip result to the file.
+     *
+     * @throws IOException if the output cannot be written
+     */
+    void flush() throws IOException;
+
+    /**
+     * @return The number of trip results written
+     */
+    long getRowsWritten();
+
+    /**
+     * @return The number of bytes written to the file so far, excluding any still buffered
+     */
+    long getBytesWritten();
+}
@@ -0,0 +1,149 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+import younan.george.littlepaycodingchallenge.enums.ProcessingMode;
+import younan.george.littlepaycodingchallenge.io.TripResultWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the whole input CSV file into memory, calculates trip costs for all taps,
+ * and then writes all results to the output CSV file.
+ * In PARALLEL mode the trip costs are calculated on several cores,
+ * and in COLUMNAR mode the taps are held off-heap in a columnar store.
+ */
+class BatchRunner implements ModeRunner {
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(BatchRunner.class);
+
+    private final TravelCostCsvProducer producer;
+
+    /**
+     * BATCH, PARALLEL or COLUMNAR
+     */
+    private final ProcessingMode processingMode;
+
+    /**
+     * Number of partitions priced in parallel in PARALLEL mode, or 0 to use one per available processor
+     */
+    private final int partitions;
+
+    /**
+     * Creates a runner.
+     *
+     * @param producer The producer whose input is read and whose output is written
+     * @param processingMode BATCH, PARALLEL or COLUMNAR
+     * @param partitions Number of partitions priced in parallel in PARALLEL mode, or 0 to use one per available processor
+     */
+    BatchRunner(TravelCostCsvProducer producer, ProcessingMode processingMode, int partitions) {
+        this.producer = producer;
+        this.processingMode = processingMode;
+        this.partitions = partitions;
+    }
+
+    @Override
+    public void run() throws Exception {
+        logger.info("Starting to read taps from {}", producer.getInputFile());
+        List<TripResult> allResults;
+        if (processingMode == ProcessingMode.COLUMNAR) {
+            allResults = priceColumnar();
+        } else {
+            allResults = priceList();
+        }
+
+        // Validate trip results
+        List<TripResult> validResults = new ArrayList<>();
+        for (TripResult result : allResults) {
+            if (producer.isValidTripResult(result)) {
+                validResults.add(result);
+            }
+        }
+
+        logger.info("Generated {} trip results, {} valid", allResults.size(), validResults.size());
+
+        // Write the results to the output file
+        PricingMetrics metrics = producer.getMetrics();
+        long start = metrics.startStage();
+        try (TripResultWriter writer = producer.openWriter(false)) {
+            for (TripResult result : validResults) {
+                writer.write(result);
+            }
+            writer.flush();
+            metrics.stageFinished("write", start);
+            logger.info("Successfully wrote {} trip results to {}", validResults.size(), producer.getOutputFile());
+        } catch (Exception e) {
+            logger.error("Error writing to output file: {}", producer.getOutputFile(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads every tap into a list and calculates the trip costs, on several cores in PARALLEL mode.
+     *
+     * @return The trip results, in the order the trips closed
+     * @throws IOException if the input file cannot be read
+     */
+    private List<TripResult> priceList() throws IOException {
+        PricingMetrics metrics = producer.getMetrics();
+        List<TapDetail> tapDetails = new ArrayList<>();
+
+        // Read and parse the input CSV file
+        long start = metrics.startStage();
+        try {
+            producer.readTaps(tapDetails::add);
+            metrics.stageFinished("read", start);
+            logger.info("Successfully parsed {} tap details", tapDetails.size());
+        } catch (IOException e) {
+            logger.error("Error reading input file: {}", producer.getInputFile(), e);
+            throw e;
+        }
+
+        // Calculate trip costs for all tap details
+        start = metrics.startStage();
+        List<TripResult> tripResults;
+        if (processingMode == ProcessingMode.PARALLEL) {
+            int partitionCount = partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors();
+            logger.debug("Calculating trip costs for {} tap details in {} partitions", tapDetails.size(), partitionCount);
+            tripResults = producer.getTravelCostService().calculateCostForAll(tapDetails, partitionCount, producer.getRejectedRecords());
+        } else {
+            logger.debug("Calculating trip costs for {} tap details", tapDetails.size());
+            tripResults = producer.getTravelCostService().calculateCostForAll(tapDetails, producer.getRejectedRecords());
+        }
+        metrics.stageFinished("price", start);
+        return tripResults;
+    }
+
+    /**
+     * Reads every tap into an off-heap columnar store and calculates the trip costs from its columns.
+     *
+     * @return The trip results, in the order the trips closed
+     * @throws IOException if the input file cannot be read
+     */
+    private List<TripResult> priceColumnar() throws IOException {
+        PricingMetrics metrics = producer.getMetrics();
+        ColumnarTapStore tapStore = new ColumnarTapStore();
+        long start = metrics.startStage();
+        try {
+            producer.readTaps(tapStore::append);
+            metrics.stageFinished("read", start);
+            logger.info("Successfully parsed {} tap details of {} cards into {} off-heap bytes",
+                    tapStore.size(), tapStore.getPanCount(), tapStore.getOffHeapBytes());
+        } catch (IOException e) {
+            logger.error("Error reading input file: {}", producer.getInputFile(), e);
+            throw e;
+        }
+
+        logger.debug("Calculating trip costs for {} tap details", tapStore.size());
+        start = metrics.startStage();
+        List<TripResult> tripResults = producer.getTravelCostService().calculateCostForAll(tapStore, producer.getRejectedRecords());
+        metrics.stageFinished("price", start);
+        return tripResults;
+    }
+}
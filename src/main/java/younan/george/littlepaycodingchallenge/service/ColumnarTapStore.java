@@ -0,0 +1,229 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Stores a day of taps off-heap, one direct buffer per column, instead of as a list of TapDetail objects.
+ * The id, time, tap type and stop of every tap are held as primitives, and the company, bus and PAN
+ * as int codes into dictionaries that hold each distinct value once. A tap therefore takes
+ * {@value #BYTES_PER_ROW} bytes outside the heap, and the heap only grows with the number of distinct
+ * companies, buses and cards, which keeps large days out of the garbage collector's way.
+ * <p>
+ * PAN codes are dense, so {@link TravelCostService#calculateCostForAll(ColumnarTapStore)} can track
+ * the open trip of every card in a plain array. Rows are numbered in the order they are appended.
+ * This class is not thread-safe.
+ */
+public final class ColumnarTapStore {
+    /**
+     * Number of off-heap bytes taken by each tap
+     */
+    public static final int BYTES_PER_ROW = Integer.BYTES + Long.BYTES + Byte.BYTES + 4 * Integer.BYTES;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private static final TapType[] TAP_TYPES = TapType.values();
+
+    private final StringDictionary companies = new StringDictionary();
+
+    private final StringDictionary buses = new StringDictionary();
+
+    private final StringDictionary pans = new StringDictionary();
+
+    private ByteBuffer ids;
+
+    private ByteBuffer epochSeconds;
+
+    /**
+     * The ordinal of the TapType of every tap
+     */
+    private ByteBuffer tapTypes;
+
+    /**
+     * The {@code StopId.id()} of every tap
+     */
+    private ByteBuffer stopIds;
+
+    private ByteBuffer companyCodes;
+
+    private ByteBuffer busCodes;
+
+    private ByteBuffer panCodes;
+
+    /**
+     * Number of rows the columns can hold before they are grown
+     */
+    private int capacity;
+
+    private int size;
+
+    /**
+     * Creates an empty store with room for 1024 taps.
+     */
+    public ColumnarTapStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty store.
+     *
+     * @param initialCapacity Number of taps the store can hold before its columns are grown
+     */
+    public ColumnarTapStore(int initialCapacity) {
+        resize(Math.max(initialCapacity, 1));
+    }
+
+    /**
+     * Adds a tap after the last row.
+     *
+     * @param tapDetail The tap to add
+     * @return The row of the tap
+     */
+    public int append(TapDetail tapDetail) {
+        if (size == capacity) {
+            resize(Math.toIntExact(Math.min((long) capacity * 2, Integer.MAX_VALUE / Long.BYTES)));
+        }
+        int row = size++;
+        ids.putInt(row * Integer.BYTES, tapDetail.getId());
+        epochSeconds.putLong(row * Long.BYTES, tapDetail.getEpochSecondUTC());
+        tapTypes.put(row, (byte) tapDetail.getTapType().ordinal());
+        stopIds.putInt(row * Integer.BYTES, tapDetail.getStopId().id());
+        companyCodes.putInt(row * Integer.BYTES, companies.encode(tapDetail.getCompanyId()));
+        busCodes.putInt(row * Integer.BYTES, buses.encode(tapDetail.getBusId()));
+        panCodes.putInt(row * Integer.BYTES, pans.encode(tapDetail.getPan()));
+        return row;
+    }
+
+    /**
+     * @return The number of taps in the store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param row The row of a tap
+     * @return The id of the tap in a row
+     */
+    public int getId(int row) {
+        return ids.getInt(checkRow(row) * Integer.BYTES);
+    }
+
+    /**
+     * @param row The row of a tap
+     * @return The time of the tap in a row, in seconds since the epoch (UTC)
+     */
+    public long getEpochSecondUTC(int row) {
+        return epochSeconds.getLong(checkRow(row) * Long.BYTES);
+    }
+
+    /**
+     * @param row The row of a tap
+     * @return The type of the tap in a row
+     */
+    public TapType getTapType(int row) {
+        return TAP_TYPES[tapTypes.get(checkRow(row))];
+    }
+
+    /**
+     * @param row The row of a tap
+     * @return The stop of the tap in a row
+     */
+    public StopId getStopId(int row) {
+        return StopId.byId(stopIds.getInt(checkRow(row) * Integer.BYTES));
+    }
+
+    /**
+     * @param row The row of a tap
+     * @return The company of the tap in a row, shared by every row of that company
+     */
+    public String getCompanyId(int row) {
+        return companies.decode(companyCodes.getInt(checkRow(row) * Integer.BYTES));
+    }
+
+    /**
+     * @param row The row of a tap
+     * @return The bus of the tap in a row, shared by every row of that bus
+     */
+    public String getBusId(int row) {
+        return buses.decode(busCodes.getInt(checkRow(row) * Integer.BYTES));
+    }
+
+    /**
+     * @param row The row of a tap
+     * @return The PAN of the tap in a row, shared by every row of that card
+     */
+    public String getPan(int row) {
+        return pans.decode(getPanCode(row));
+    }
+
+    /**
+     * @param row The row of a tap
+     * @return The code of the PAN of the tap, between 0 and {@link #getPanCount()} (exclusive)
+     */
+    public int getPanCode(int row) {
+        return panCodes.getInt(checkRow(row) * Integer.BYTES);
+    }
+
+    /**
+     * @return The number of distinct PANs in the store
+     */
+    public int getPanCount() {
+        return pans.size();
+    }
+
+    /**
+     * Recreates the TapDetail of a row, e.g. to report an error.
+     *
+     * @param row The row of a tap
+     * @return A TapDetail equal to the one that was appended
+     */
+    public TapDetail get(int row) {
+        return new TapDetail(getId(row), getEpochSecondUTC(row), getTapType(row), getStopId(row),
+                getCompanyId(row), getBusId(row), getPan(row));
+    }
+
+    /**
+     * @return The number of bytes allocated outside the heap for the columns
+     */
+    public long getOffHeapBytes() {
+        return (long) capacity * BYTES_PER_ROW;
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+        return row;
+    }
+
+    /**
+     * Moves every column into new buffers with room for the given number of rows.
+     * The old buffers are released when they are garbage collected.
+     */
+    private void resize(int newCapacity) {
+        if (newCapacity <= size) {
+            throw new IllegalStateException("Tap store is full at " + size + " taps");
+        }
+        ids = grow(ids, newCapacity * Integer.BYTES);
+        epochSeconds = grow(epochSeconds, newCapacity * Long.BYTES);
+        tapTypes = grow(tapTypes, newCapacity);
+        stopIds = grow(stopIds, newCapacity * Integer.BYTES);
+        companyCodes = grow(companyCodes, newCapacity * Integer.BYTES);
+        busCodes = grow(busCodes, newCapacity * Integer.BYTES);
+        panCodes = grow(panCodes, newCapacity * Integer.BYTES);
+        capacity = newCapacity;
+    }
+
+    private static ByteBuffer grow(ByteBuffer column, int bytes) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        if (column != null) {
+            grown.put(0, column, 0, column.capacity());
+        }
+        return grown;
+    }
+}
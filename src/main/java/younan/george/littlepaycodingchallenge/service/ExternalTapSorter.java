@@ -0,0 +1,342 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.io.TapRunFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sorts taps by PAN and then by time, for inputs that do not fit in memory.
+ * <p>
+ * Taps are collected into runs that fit in a share of the memory budget. Each full run is sorted and spilled to a
+ * temporary {@link TapRunFile} on a background thread while the next run is collected, so parsing and run
+ * generation overlap and several runs are sorted at once. When every tap has been added, the runs are merged with
+ * a k-way merge that holds only one tap per run in memory. If there are more runs than can be merged at once,
+ * groups of runs are first merged into longer runs. Input that fits in a single run is sorted in memory without
+ * touching the disk.
+ * <p>
+ * Taps with the same PAN and time keep the order they were added in, so the sort is stable.
+ * Taps must be added from a single thread. The temporary files are deleted by {@link #close()}.
+ */
+public class ExternalTapSorter implements Closeable {
+    /**
+     * Estimated heap used by each tap held in a run, including its list entry and the strings it does not share
+     */
+    public static final int ESTIMATED_TAP_BYTES = 160;
+
+    /**
+     * Default maximum number of runs merged at once
+     */
+    public static final int DEFAULT_MAX_FAN_IN = 64;
+
+    /**
+     * A tap together with the order it was added in, which makes the sort stable.
+     */
+    private record SequencedTap(long sequence, TapDetail tapDetail) {
+    }
+
+    /**
+     * Receives the taps of a merge, which may be written to a longer run.
+     */
+    @FunctionalInterface
+    private interface RunSink {
+        void accept(long sequence, TapDetail tapDetail) throws IOException;
+    }
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ExternalTapSorter.class);
+
+    private static final Comparator<SequencedTap> RUN_ORDER =
+            (left, right) -> compare(left.tapDetail(), left.sequence(), right.tapDetail(), right.sequence());
+
+    private static final Comparator<TapRunFile.Reader> MERGE_ORDER =
+            (left, right) -> compare(left.getTapDetail(), left.getSequence(), right.getTapDetail(), right.getSequence());
+
+    /**
+     * Directory in which the runs are written
+     */
+    private final Path directory;
+
+    /**
+     * Number of taps in a full run
+     */
+    private final int runSize;
+
+    /**
+     * Maximum number of runs merged at once
+     */
+    private final int maxFanIn;
+
+    /**
+     * Sorts and spills full runs
+     */
+    private final ExecutorService runWriters;
+
+    /**
+     * Limits the full runs held in memory to one per run writer, so adding taps waits while every writer is busy
+     */
+    private final Semaphore runPermits;
+
+    /**
+     * The runs being spilled or spilled, in the order they were collected
+     */
+    private final List<Future<Path>> spilledRuns = new ArrayList<>();
+
+    /**
+     * Every run file created, so they can be deleted even if the sort fails
+     */
+    private final Queue<Path> runFiles = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of runs written, including the longer runs of intermediate merges
+     */
+    private final AtomicInteger runCount = new AtomicInteger();
+
+    /**
+     * The run being collected
+     */
+    private List<SequencedTap> currentRun;
+
+    /**
+     * Sequence number given to the next tap passed to {@link #add(TapDetail)}
+     */
+    private long nextSequence;
+
+    private long size;
+
+    /**
+     * Creates a sorter.
+     *
+     * @param directory Directory in which the runs are written
+     * @param memoryBudgetBytes Heap available to hold the taps of the runs being collected and spilled
+     * @param threads Number of runs sorted and spilled at once
+     */
+    public ExternalTapSorter(Path directory, long memoryBudgetBytes, int threads) {
+        this(directory, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, memoryBudgetBytes / ESTIMATED_TAP_BYTES / (threads + 1))),
+                threads, DEFAULT_MAX_FAN_IN);
+    }
+
+    /**
+     * Creates a sorter with a given run size.
+     *
+     * @param directory Directory in which the runs are written
+     * @param runSize Number of taps in a full run
+     * @param threads Number of runs sorted and spilled at once
+     * @param maxFanIn Maximum number of runs merged at once
+     */
+    ExternalTapSorter(Path directory, int runSize, int threads, int maxFanIn) {
+        if (runSize < 1 || threads < 1 || maxFanIn < 2) {
+            throw new IllegalArgumentException("Invalid run size, threads or fan in: " + runSize + ", " + threads + ", " + maxFanIn);
+        }
+        this.directory = directory;
+        this.runSize = runSize;
+        this.maxFanIn = maxFanIn;
+        this.runPermits = new Semaphore(threads);
+        this.runWriters = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "tap-run-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.currentRun = new ArrayList<>(Math.min(runSize, 1 << 16));
+    }
+
+    /**
+     * Adds a tap, numbering taps in the order they are added.
+     * Waits if the current run is full and every run writer is busy.
+     *
+     * @param tapDetail The tap
+     */
+    public void add(TapDetail tapDetail) {
+        currentRun.add(new SequencedTap(nextSequence++, tapDetail));
+        size++;
+        if (currentRun.size() == runSize) {
+            spill();
+        }
+    }
+
+    /**
+     * Hands every tap added to the sink, sorted by PAN and then by time.
+     * This should be called once, after every tap has been added.
+     *
+     * @param sink Receives the sorted taps, with the sequence numbers they were added in
+     * @throws IOException if a run cannot be written or read
+     */
+    public void sort(TapReorderBuffer.TapSink sink) throws IOException {
+        if (spilledRuns.isEmpty()) {
+            currentRun.sort(RUN_ORDER);
+            for (SequencedTap tap : currentRun) {
+                sink.accept(tap.sequence(), tap.tapDetail());
+            }
+            currentRun = new ArrayList<>();
+            return;
+        }
+        if (!currentRun.isEmpty()) {
+            spill();
+        }
+
+        List<Path> runs = new ArrayList<>();
+        for (Future<Path> spilledRun : spilledRuns) {
+            runs.add(await(spilledRun));
+        }
+        spilledRuns.clear();
+        logger.debug("Spilled {} taps into {} runs in {}", size, runs.size(), directory);
+
+        while (runs.size() > maxFanIn) {
+            List<Path> group = runs.subList(0, maxFanIn);
+            Path mergedRun = createRunFile();
+            try (TapRunFile.Writer writer = new TapRunFile.Writer(mergedRun, TapRunFile.DEFAULT_BUFFER_SIZE)) {
+                merge(group, writer::write);
+            }
+            group.clear();
+            runs.add(mergedRun);
+        }
+        merge(runs, sink::accept);
+    }
+
+    /**
+     * @return The number of taps added
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return The number of runs written to disk so far, including the longer runs of intermediate merges
+     */
+    public int getRunCount() {
+        return runCount.get();
+    }
+
+    /**
+     * Stops the run writers and deletes every run file.
+     *
+     * @throws IOException if a run file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        runWriters.shutdownNow();
+        for (Path runFile : runFiles) {
+            Files.deleteIfExists(runFile);
+        }
+    }
+
+    /**
+     * Sorts and writes the current run on a run writer, and starts a new run.
+     */
+    private void spill() {
+        List<SequencedTap> run = currentRun;
+        currentRun = new ArrayList<>(run.size());
+        runPermits.acquireUninterruptibly();
+        try {
+            spilledRuns.add(runWriters.submit(() -> {
+                try {
+                    return writeRun(run);
+                } finally {
+                    runPermits.release();
+                }
+            }));
+        } catch (RuntimeException e) {
+            runPermits.release();
+            throw e;
+        }
+    }
+
+    private Path writeRun(List<SequencedTap> run) throws IOException {
+        run.sort(RUN_ORDER);
+        Path runFile = createRunFile();
+        try (TapRunFile.Writer writer = new TapRunFile.Writer(runFile, TapRunFile.DEFAULT_BUFFER_SIZE)) {
+            for (SequencedTap tap : run) {
+                writer.write(tap.sequence(), tap.tapDetail());
+            }
+        }
+        return runFile;
+    }
+
+    /**
+     * Merges sorted runs into one sorted sequence of taps, and deletes them.
+     */
+    private void merge(List<Path> runs, RunSink sink) throws IOException {
+        PriorityQueue<TapRunFile.Reader> heads = new PriorityQueue<>(runs.size(), MERGE_ORDER);
+        List<TapRunFile.Reader> readers = new ArrayList<>(runs.size());
+        try {
+            for (Path run : runs) {
+                TapRunFile.Reader reader = new TapRunFile.Reader(run, TapRunFile.DEFAULT_BUFFER_SIZE);
+                readers.add(reader);
+                if (reader.next()) {
+                    heads.add(reader);
+                }
+            }
+            while (!heads.isEmpty()) {
+                TapRunFile.Reader reader = heads.poll();
+                sink.accept(reader.getSequence(), reader.getTapDetail());
+                if (reader.next()) {
+                    heads.add(reader);
+                }
+            }
+        } finally {
+            for (TapRunFile.Reader reader : readers) {
+                reader.close();
+            }
+        }
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+            runFiles.remove(run);
+        }
+    }
+
+    private Path createRunFile() throws IOException {
+        Path runFile = Files.createTempFile(directory, "taps-", ".run");
+        runFiles.add(runFile);
+        runCount.incrementAndGet();
+        return runFile;
+    }
+
+    /**
+     * Waits for a run to be spilled.
+     */
+    private static Path await(Future<Path> spilledRun) throws IOException {
+        try {
+            return spilledRun.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a run to be spilled");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Error spilling a run", e.getCause());
+        }
+    }
+
+    /**
+     * Orders taps by PAN, then by time, then by the order they were added in.
+     */
+    private static int compare(TapDetail left, long leftSequence, TapDetail right, long rightSequence) {
+        int byPan = left.getPan().compareTo(right.getPan());
+        if (byPan != 0) {
+            return byPan;
+        }
+        int byTime = Long.compare(left.getEpochSecondUTC(), right.getEpochSecondUTC());
+        return byTime != 0 ? byTime : Long.compare(leftSequence, rightSequence);
+    }
+}
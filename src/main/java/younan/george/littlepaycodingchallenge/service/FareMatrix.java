@@ -0,0 +1,191 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TravelPriceId;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A fare table compiled into a symmetric matrix keyed by {@code StopId.id()}, holding every fare as
+ * a whole number of cents. As a real network has tens of thousands of stops but each stop only has
+ * fares to some of them, the matrix is stored sparsely in a primitive open addressing hash table.
+ * The highest fare from every stop, and the destination it is charged for, is indexed when the matrix
+ * is compiled so that incomplete trips can be priced without scanning the routes.
+ * Looking up a fare is O(1) and does not allocate.
+ * This class is immutable.
+ */
+public final class FareMatrix {
+    /**
+     * Returned by {@link #getFareCents(StopId, StopId)} when there is no fare between two stops
+     */
+    public static final long UNKNOWN_FARE = -1;
+
+    /**
+     * Number of decimal places of an amount in cents
+     */
+    private static final int CENTS_SCALE = 2;
+
+    /**
+     * Marks an empty slot in {@link #routes}; real routes are never negative
+     */
+    private static final long EMPTY = -1;
+
+    /**
+     * The route of every slot, as the lower stop id in the high 32 bits and the higher stop id in the low 32 bits
+     */
+    private final long[] routes;
+
+    /**
+     * The fare in cents of every slot
+     */
+    private final long[] fares;
+
+    /**
+     * {@code routes.length - 1}, as the length is a power of two
+     */
+    private final int mask;
+
+    /**
+     * The highest fare in cents from every stop, or {@link #UNKNOWN_FARE}, indexed by stop id
+     */
+    private final long[] maxFares;
+
+    /**
+     * The destination of the highest fare from every stop, or null, indexed by stop id
+     */
+    private final StopId[] maxFareDestinations;
+
+    private FareMatrix(int routeCount, int stopCount) {
+        int capacity = Integer.highestOneBit(Math.max(routeCount, 1) * 2 - 1) << 1;
+        this.routes = new long[capacity];
+        this.fares = new long[capacity];
+        this.mask = capacity - 1;
+        this.maxFares = new long[stopCount];
+        this.maxFareDestinations = new StopId[stopCount];
+        Arrays.fill(routes, EMPTY);
+        Arrays.fill(maxFares, UNKNOWN_FARE);
+    }
+
+    /**
+     * Compiles a map of travel prices into a fare matrix.
+     *
+     * @param travelPrices The price of travelling between two stops, in either direction
+     * @return The compiled fare matrix
+     * @throws ArithmeticException if a price is negative or has a fraction of a cent
+     */
+    public static FareMatrix compile(Map<TravelPriceId, BigDecimal> travelPrices) {
+        FareMatrix fareMatrix = new FareMatrix(travelPrices.size(), StopId.count());
+        for (Map.Entry<TravelPriceId, BigDecimal> travelPrice : travelPrices.entrySet()) {
+            StopId[] stops = travelPrice.getKey().getStops().toArray(new StopId[0]);
+            StopId from = stops[0];
+            StopId to = stops.length > 1 ? stops[1] : stops[0];
+            fareMatrix.put(from, to, toCents(travelPrice.getValue()));
+        }
+        return fareMatrix;
+    }
+
+    /**
+     * Gets the fare between two stops, in either direction.
+     *
+     * @param from The stop where the trip started
+     * @param to The stop where the trip ended
+     * @return The fare in cents, or {@link #UNKNOWN_FARE} if there is no fare between the stops
+     */
+    public long getFareCents(StopId from, StopId to) {
+        long route = route(from, to);
+        for (int slot = slot(route); ; slot = (slot + 1) & mask) {
+            long candidate = routes[slot];
+            if (candidate == route) {
+                return fares[slot];
+            }
+            if (candidate == EMPTY) {
+                return UNKNOWN_FARE;
+            }
+        }
+    }
+
+    /**
+     * Gets the highest fare from a stop, which is charged for incomplete trips.
+     *
+     * @param from The stop where the trip started
+     * @return The highest fare in cents, or {@link #UNKNOWN_FARE} if there are no fares from the stop
+     */
+    public long getMaxFareCents(StopId from) {
+        return from.id() < maxFares.length ? maxFares[from.id()] : UNKNOWN_FARE;
+    }
+
+    /**
+     * Gets the destination of the highest fare from a stop, which is assumed for incomplete trips.
+     * When several destinations share the highest fare, the one with the lowest id is returned.
+     *
+     * @param from The stop where the trip started
+     * @return The destination, or null if there are no fares from the stop
+     */
+    public StopId getMaxFareDestination(StopId from) {
+        return from.id() < maxFareDestinations.length ? maxFareDestinations[from.id()] : null;
+    }
+
+    /**
+     * Adds a fare in both directions and updates the max fare index of both stops.
+     */
+    private void put(StopId from, StopId to, long cents) {
+        long route = route(from, to);
+        int slot = slot(route);
+        while (routes[slot] != EMPTY && routes[slot] != route) {
+            slot = (slot + 1) & mask;
+        }
+        routes[slot] = route;
+        fares[slot] = cents;
+        indexMaxFare(from, to, cents);
+        indexMaxFare(to, from, cents);
+    }
+
+    private void indexMaxFare(StopId from, StopId to, long cents) {
+        StopId currentDestination = maxFareDestinations[from.id()];
+        long currentFare = maxFares[from.id()];
+        if (cents > currentFare || (cents == currentFare && to.id() < currentDestination.id())) {
+            maxFares[from.id()] = cents;
+            maxFareDestinations[from.id()] = to;
+        }
+    }
+
+    private int slot(long route) {
+        long hash = route * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Packs the ids of two stops into a single key that is the same in both directions.
+     */
+    private static long route(StopId from, StopId to) {
+        int low = Math.min(from.id(), to.id());
+        int high = Math.max(from.id(), to.id());
+        return ((long) low << 32) | high;
+    }
+
+    /**
+     * Converts an amount in cents to the amount charged in a TripResult.
+     *
+     * @param cents The amount in cents
+     * @return The amount with two decimal places
+     */
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, CENTS_SCALE);
+    }
+
+    /**
+     * Converts an amount to a whole number of cents.
+     *
+     * @param amount The amount
+     * @return The amount in cents
+     * @throws ArithmeticException if the amount is negative or has a fraction of a cent
+     */
+    static long toCents(BigDecimal amount) {
+        if (amount.signum() < 0) {
+            throw new ArithmeticException("Fare cannot be negative: " + amount);
+        }
+        return amount.movePointRight(CENTS_SCALE).longValueExact();
+    }
+}
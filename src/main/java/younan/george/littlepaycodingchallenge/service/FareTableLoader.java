@@ -0,0 +1,165 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ResourceUtils;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TravelPriceId;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service responsible for loading travel prices from a CSV file into the TravelCostService,
+ * and, in TAILING mode, reloading them whenever the file changes (see {@code SchedulingConfiguration}).
+ * The file has a header row and one row per route: {@code FromStopId, ToStopId, Cost}.
+ * Stops that are not known yet are registered, so the fare file defines the stops of the network.
+ * A file that cannot be read or contains an invalid row is rejected as a whole and the current prices are kept,
+ * and none of its new stops are registered.
+ */
+@Service
+public class FareTableLoader {
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(FareTableLoader.class);
+
+    /**
+     * Path to the CSV file containing the travel prices, or empty to keep the built-in prices.
+     * This value is injected from application.properties.
+     */
+    @Value("${file.fares:}")
+    private String faresFile;
+
+    /**
+     * Service whose travel prices are replaced on every load.
+     */
+    @Autowired
+    private TravelCostService travelCostService;
+
+    /**
+     * Modification time of the fare file when it was last loaded
+     */
+    private FileTime lastLoaded;
+
+    /**
+     * Loads the travel prices when the application starts.
+     *
+     * @throws IOException if the configured fare file cannot be loaded
+     */
+    @PostConstruct
+    public void load() throws IOException {
+        if (faresFile.isBlank()) {
+            logger.info("No fare file configured, using the built-in travel prices");
+            return;
+        }
+        Path faresPath = ResourceUtils.getFile(faresFile).toPath();
+        FileTime modified = Files.getLastModifiedTime(faresPath);
+        load(faresPath);
+        lastLoaded = modified;
+    }
+
+    /**
+     * Reloads the travel prices if the fare file has changed since it was last loaded.
+     * This is only scheduled in TAILING mode, as the other modes exit once they have written their output.
+     * Pricing continues against the previous prices until the new ones are swapped in.
+     */
+    @Scheduled(fixedDelayString = "${file.fares.reload-interval-ms:5000}", initialDelayString = "${file.fares.reload-interval-ms:5000}")
+    public void reloadIfChanged() {
+        if (faresFile.isBlank()) {
+            return;
+        }
+        try {
+            Path faresPath = ResourceUtils.getFile(faresFile).toPath();
+            FileTime modified = Files.getLastModifiedTime(faresPath);
+            if (!modified.equals(lastLoaded)) {
+                logger.info("Fare file {} changed, reloading", faresFile);
+                load(faresPath);
+                lastLoaded = modified;
+            }
+        } catch (Exception e) {
+            logger.error("Error reloading fare file {}, keeping the current travel prices", faresFile, e);
+        }
+    }
+
+    /**
+     * Reads every travel price in the file and swaps them into the TravelCostService in one step.
+     */
+    private void load(Path faresPath) throws IOException {
+        long start = System.nanoTime();
+        Map<TravelPriceId, BigDecimal> travelPrices = readTravelPrices(faresPath);
+        travelCostService.updateTravelPrices(travelPrices);
+        logger.info("Loaded {} travel prices from {} in {} ms",
+                travelPrices.size(), faresPath, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * A route of the fare file between stops of which at least one is not registered yet.
+     */
+    private record NewRoute(String fromStop, String toStop, BigDecimal cost) {
+    }
+
+    /**
+     * Reads the travel prices from a fare file.
+     * Stops that are not known yet are only registered once every row of the file has been read.
+     *
+     * @param faresPath The fare file
+     * @return Map of travel routes to their corresponding prices
+     * @throws IOException if the file cannot be read or contains an invalid row
+     */
+    static Map<TravelPriceId, BigDecimal> readTravelPrices(Path faresPath) throws IOException {
+        Map<TravelPriceId, BigDecimal> travelPrices = new HashMap<>();
+        List<NewRoute> newRoutes = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(faresPath)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String[] columns = line.split(",");
+                // Skip the header row and blank lines
+                if ("FromStopId".equals(columns[0].trim()) || line.isBlank()) {
+                    continue;
+                }
+                try {
+                    if (columns[0].isBlank() || columns[1].isBlank()) {
+                        throw new IllegalArgumentException("Stop name cannot be blank");
+                    }
+                    StopId fromStop = StopId.lookup(columns[0]);
+                    StopId toStop = StopId.lookup(columns[1]);
+                    BigDecimal cost = new BigDecimal(columns[2].trim());
+                    if (fromStop != null && toStop != null) {
+                        travelPrices.put(new TravelPriceId(fromStop, toStop), cost);
+                    } else {
+                        newRoutes.add(new NewRoute(columns[0], columns[1], cost));
+                    }
+                } catch (RuntimeException e) {
+                    throw new IOException("Invalid travel price on line " + lineNumber + " of " + faresPath + ": " + line, e);
+                }
+            }
+        }
+        // Every row is valid, so a rejected file cannot leave stops behind in the registry
+        List<String> newStops = new ArrayList<>(newRoutes.size() * 2);
+        for (NewRoute route : newRoutes) {
+            newStops.add(route.fromStop());
+            newStops.add(route.toStop());
+        }
+        List<StopId> stopIds = StopId.registerAll(newStops);
+        for (int index = 0; index < newRoutes.size(); index++) {
+            travelPrices.put(new TravelPriceId(stopIds.get(2 * index), stopIds.get(2 * index + 1)), newRoutes.get(index).cost());
+        }
+        return travelPrices;
+    }
+}
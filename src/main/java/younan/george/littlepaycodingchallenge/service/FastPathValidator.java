@@ -0,0 +1,93 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+
+import java.time.Clock;
+
+/**
+ * Checks the constraints declared on TapDetail and TripResult with plain code instead of reflection.
+ * Every check mirrors a Bean Validation annotation on the corresponding field, so this validator accepts
+ * exactly the objects the full validator accepts, without allocating. It only answers whether an object
+ * is valid; the full validator is still needed to describe why an object is invalid.
+ * This class is thread-safe.
+ */
+public class FastPathValidator {
+    /**
+     * Clock that {@code @PastOrPresent} values are compared against
+     */
+    private final Clock clock;
+
+    /**
+     * Creates a validator that compares {@code @PastOrPresent} values against the system clock.
+     */
+    public FastPathValidator() {
+        this(Clock.systemUTC());
+    }
+
+    /**
+     * Creates a validator.
+     *
+     * @param clock Clock that {@code @PastOrPresent} values are compared against
+     */
+    public FastPathValidator(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Checks the constraints declared on TapDetail.
+     *
+     * @param tapDetail The tap to check
+     * @return true if the tap satisfies every constraint
+     */
+    public boolean isValid(TapDetail tapDetail) {
+        return tapDetail.getId() >= 1
+                && isPastOrPresent(tapDetail.getEpochSecondUTC())
+                && tapDetail.getTapType() != null
+                && tapDetail.getStopId() != null
+                && isNotBlank(tapDetail.getCompanyId())
+                && isNotBlank(tapDetail.getBusId())
+                && isNotBlank(tapDetail.getPan());
+    }
+
+    /**
+     * Checks the constraints declared on TripResult.
+     *
+     * @param tripResult The trip to check
+     * @return true if the trip satisfies every constraint
+     */
+    public boolean isValid(TripResult tripResult) {
+        return isPastOrPresent(tripResult.getStartedEpochSecond())
+                && isPastOrPresent(tripResult.getFinishedEpochSecond())
+                && tripResult.getDurationSecs() >= 0
+                && tripResult.getFromStopId() != null
+                && tripResult.getToStopId() != null
+                && tripResult.getChargeAmount() != null
+                && isNotBlank(tripResult.getCompanyId())
+                && isNotBlank(tripResult.getBusID())
+                && isNotBlank(tripResult.getPan())
+                && tripResult.getStatus() != null;
+    }
+
+    /**
+     * Mirrors {@code @NotNull @PastOrPresent} on a time in whole seconds since the epoch, which is never null.
+     */
+    private boolean isPastOrPresent(long epochSecond) {
+        return epochSecond <= Math.floorDiv(clock.millis(), 1000);
+    }
+
+    /**
+     * Mirrors {@code @NotBlank}: not null, and not empty once surrounding whitespace is trimmed.
+     */
+    private static boolean isNotBlank(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int index = 0; index < value.length(); index++) {
+            if (value.charAt(index) > ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
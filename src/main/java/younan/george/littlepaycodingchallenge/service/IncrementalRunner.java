@@ -0,0 +1,91 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.io.MappedCsvTapParser;
+import younan.george.littlepaycodingchallenge.io.TapCheckpoint;
+import younan.george.littlepaycodingchallenge.io.TripResultWriter;
+
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Reads only the rows appended to the input CSV file since the last run, and appends the trips they close
+ * to the output CSV file. The byte offset reached and the taps of cards that are still travelling are saved
+ * in the checkpoint file, so each run only costs as much as the rows added since the previous one.
+ * Trips that are still open at the end of a run are carried over in the checkpoint instead of being charged
+ * as incomplete. A partially written last line is left for the next run.
+ * Taps are only put back in time order within a run, as every tap held is released at the end of the run.
+ * The input is always read with the mapped parser, which tracks byte offsets.
+ * An input that was truncated or replaced, for example by log rotation, since the checkpoint is processed
+ * from the start as the continuation of the previous file: its results are still appended to the output
+ * and the taps that were open are kept.
+ * <p>
+ * The checkpoint is only saved once the results have been written, so a run that fails is repeated
+ * from the previous checkpoint, which may append some results a second time.
+ */
+class IncrementalRunner implements ModeRunner {
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalRunner.class);
+
+    private final TravelCostCsvProducer producer;
+
+    private final Path inputPath;
+
+    private final Path checkpointPath;
+
+    /**
+     * Creates a runner.
+     *
+     * @param producer The producer whose output is written
+     * @param inputPath The input CSV file, which is appended to between runs
+     * @param checkpointPath The checkpoint file
+     */
+    IncrementalRunner(TravelCostCsvProducer producer, Path inputPath, Path checkpointPath) {
+        this.producer = producer;
+        this.inputPath = inputPath;
+        this.checkpointPath = checkpointPath;
+    }
+
+    @Override
+    public void run() throws Exception {
+        TapCheckpoint checkpoint = TapCheckpoint.load(checkpointPath);
+        boolean resumed = checkpoint.getOffset() > 0;
+        if (!checkpoint.matches(inputPath)) {
+            logger.warn("{} was truncated or replaced since the checkpoint at offset {}, processing it from the start",
+                    inputPath, checkpoint.getOffset());
+            checkpoint = new TapCheckpoint(0, 0, checkpoint.getOpenTaps());
+        }
+        logger.info("Resuming {} from offset {} with {} open taps", inputPath, checkpoint.getOffset(), checkpoint.getOpenTaps().size());
+
+        long[] parsed = new long[1];
+        try (TripResultWriter writer = producer.openWriter(resumed)) {
+            TripResultSink sink = producer.newResultSink(writer::write);
+            TripAssembler tripAssembler = producer.newTripAssembler(sink);
+            checkpoint.getOpenTaps().forEach(tripAssembler::accept);
+            TapReorderBuffer reorderBuffer = producer.newReorderBuffer(tripAssembler::accept);
+            Consumer<TapDetail> consumer = reorderBuffer != null ? reorderBuffer::accept : tripAssembler::accept;
+
+            MappedCsvTapParser parser = producer.newAppendedLinesParser();
+            long offset = parser.parseAppended(inputPath, checkpoint.getOffset(), tapDetail -> {
+                if (producer.isValid(tapDetail)) {
+                    parsed[0]++;
+                    consumer.accept(tapDetail);
+                }
+            });
+            TravelCostCsvProducer.flush(reorderBuffer);
+            writer.flush();
+            producer.getMetrics().parseErrors(parser.getRejectedLines());
+
+            new TapCheckpoint(offset, TapCheckpoint.fingerprint(inputPath, offset), tripAssembler.getOpenTaps()).save(checkpointPath);
+            logger.info("Processed {} new tap details up to offset {} into {} trip results ({} invalid), {} trips still open",
+                    parsed[0], offset, writer.getRowsWritten(), sink.getInvalid(), tripAssembler.getOpenTripCount());
+        } catch (Exception e) {
+            logger.error("Error processing {} incrementally into {}", inputPath, producer.getOutputFile(), e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package younan.george.littlepaycodingchallenge.service;
+
+/**
+ * Runs one of the processing modes of the {@link TravelCostCsvProducer} to completion,
+ * from reading the input file to writing the results.
+ */
+@FunctionalInterface
+interface ModeRunner {
+    /**
+     * Processes the input file and writes the results.
+     *
+     * @throws Exception if there is an error reading from or writing to the files
+     */
+    void run() throws Exception;
+}
@@ -0,0 +1,167 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * Runs the stages of a pipeline concurrently, each on its own thread, connected by {@link SpscQueue}s.
+ * If a stage fails, every queue of the pipeline is cancelled so the other stages stop instead of waiting
+ * forever, and the first failure is thrown by {@link #run(Stage)}.
+ */
+public class Pipeline {
+    /**
+     * A stage of a pipeline, which typically takes batches from one queue and puts batches on the next.
+     */
+    @FunctionalInterface
+    public interface Stage {
+        /**
+         * Runs the stage to completion.
+         *
+         * @throws Exception if the stage fails
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * Collects the items produced by a stage into batches and hands each full batch to the next stage.
+     * This class is not thread-safe: it is used by the stage feeding the queue.
+     *
+     * @param <T> The type of the items
+     */
+    public static final class Batcher<T> implements Consumer<T> {
+        private final SpscQueue<List<T>> queue;
+
+        private final PipelineStageMetrics metrics;
+
+        private final int batchSize;
+
+        private List<T> batch;
+
+        /**
+         * Creates a batcher.
+         *
+         * @param queue The queue to the next stage
+         * @param metrics The metrics of the stage feeding the queue
+         * @param batchSize Number of items in a full batch
+         */
+        public Batcher(SpscQueue<List<T>> queue, PipelineStageMetrics metrics, int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+            }
+            this.queue = queue;
+            this.metrics = metrics;
+            this.batchSize = batchSize;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        /**
+         * Adds an item to the current batch, handing the batch over once it is full.
+         * Waits while the queue to the next stage is full.
+         *
+         * @param item The item
+         */
+        @Override
+        public void accept(T item) {
+            batch.add(item);
+            if (batch.size() == batchSize) {
+                handOver();
+            }
+        }
+
+        /**
+         * Hands over the last batch, if it has any items, and closes the queue to the next stage.
+         */
+        public void close() {
+            if (!batch.isEmpty()) {
+                handOver();
+            }
+            queue.close();
+        }
+
+        private void handOver() {
+            metrics.put(queue, batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    private final String name;
+
+    private final List<SpscQueue<?>> queues = new ArrayList<>();
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    /**
+     * The first failure of any stage
+     */
+    private Exception failure;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param name The name of the pipeline, used to name the threads of its stages
+     */
+    public Pipeline(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Creates a queue between two stages, which is cancelled if any stage fails.
+     *
+     * @param capacity Maximum number of batches held
+     * @param <T> The type of the batches
+     * @return The queue
+     */
+    public <T> SpscQueue<T> newQueue(int capacity) {
+        SpscQueue<T> queue = new SpscQueue<>(capacity);
+        queues.add(queue);
+        return queue;
+    }
+
+    /**
+     * Starts a stage on a new thread.
+     *
+     * @param stageName The name of the stage
+     * @param stage The stage
+     */
+    public void start(String stageName, Stage stage) {
+        Thread thread = new Thread(() -> runStage(stage), name + "-" + stageName);
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+    }
+
+    /**
+     * Runs the last stage on the calling thread, then waits for every other stage to finish.
+     *
+     * @param stage The last stage
+     * @throws Exception the first failure of any stage
+     */
+    public void run(Stage stage) throws Exception {
+        runStage(stage);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private void runStage(Stage stage) {
+        try {
+            stage.run();
+        } catch (CancellationException e) {
+            // Another stage failed first
+        } catch (Exception | Error e) {
+            synchronized (this) {
+                if (failure == null) {
+                    failure = e instanceof Exception exception ? exception : new IllegalStateException(e);
+                }
+            }
+            queues.forEach(SpscQueue::cancel);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package younan.george.littlepaycodingchallenge.service;
+
+/**
+ * Throughput and queue metrics of one stage of a {@link Pipeline}.
+ * The stage counts the items it processes and moves its batches through the queues with
+ * {@link #put(SpscQueue, Object)} and {@link #take(SpscQueue)}, which time how long it waits on them
+ * and sample the depth of the queue it takes from. The time a stage spends waiting shows which stage is
+ * the bottleneck: the slowest stage hardly waits, while the others wait for it.
+ * This class is not thread-safe: it is written by its stage and read once the pipeline has finished.
+ */
+public final class PipelineStageMetrics {
+    private final String name;
+
+    private long startNanos;
+
+    private long endNanos;
+
+    private long items;
+
+    private long batches;
+
+    /**
+     * Time spent waiting for a full queue to have room or an empty queue to have a batch
+     */
+    private long waitNanos;
+
+    /**
+     * Sum of the depths of the queue taken from, sampled at every take
+     */
+    private long queueDepthTotal;
+
+    private long queueDepthSamples;
+
+    private int maxQueueDepth;
+
+    /**
+     * Creates the metrics of a stage.
+     *
+     * @param name The name of the stage
+     */
+    public PipelineStageMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records the time the stage started.
+     */
+    public void start() {
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Records the time the stage finished.
+     */
+    public void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * Counts items processed by the stage.
+     *
+     * @param count The number of items
+     */
+    public void addItems(long count) {
+        items += count;
+    }
+
+    /**
+     * Hands a batch to the next stage, timing how long the queue is full.
+     *
+     * @param queue The queue to the next stage
+     * @param batch The batch
+     * @param <T> The type of the batches
+     */
+    public <T> void put(SpscQueue<T> queue, T batch) {
+        long before = System.nanoTime();
+        queue.put(batch);
+        waitNanos += System.nanoTime() - before;
+        batches++;
+    }
+
+    /**
+     * Takes a batch from the previous stage, timing how long the queue is empty and sampling its depth.
+     *
+     * @param queue The queue from the previous stage
+     * @param <T> The type of the batches
+     * @return The batch, or null once the previous stage has finished
+     */
+    public <T> T take(SpscQueue<T> queue) {
+        int depth = queue.size();
+        queueDepthTotal += depth;
+        queueDepthSamples++;
+        maxQueueDepth = Math.max(maxQueueDepth, depth);
+        long before = System.nanoTime();
+        T batch = queue.take();
+        waitNanos += System.nanoTime() - before;
+        return batch;
+    }
+
+    /**
+     * @return The name of the stage
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The number of items processed
+     */
+    public long getItems() {
+        return items;
+    }
+
+    /**
+     * @return The number of batches handed to the next stage
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * @return The time spent waiting on queues, in nanoseconds
+     */
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    /**
+     * @return The time from the start to the end of the stage, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return endNanos - startNanos;
+    }
+
+    /**
+     * @return The number of items processed per second of elapsed time, or 0 if no time has elapsed
+     */
+    public double getItemsPerSecond() {
+        long elapsedNanos = getElapsedNanos();
+        return elapsedNanos <= 0 ? 0 : items * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return The average depth of the queue taken from, or 0 if the stage does not take from a queue
+     */
+    public double getAverageQueueDepth() {
+        return queueDepthSamples == 0 ? 0 : (double) queueDepthTotal / queueDepthSamples;
+    }
+
+    /**
+     * @return The maximum depth of the queue taken from
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d items (%.0f/s) in %d ms, waited %d ms, queue depth %.1f average, %d max",
+                name, items, getItemsPerSecond(), getElapsedNanos() / 1_000_000, waitNanos / 1_000_000,
+                getAverageQueueDepth(), maxQueueDepth);
+    }
+}
@@ -0,0 +1,114 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+import younan.george.littlepaycodingchallenge.io.TripResultWriter;
+
+import java.util.List;
+
+/**
+ * Parses, prices and writes the taps of the input CSV file as three concurrent stages, so that parsing,
+ * pricing and writing overlap instead of running one after the other. Parsing and validating the taps runs on
+ * one thread, assembling and pricing the trips and validating the results on another, and formatting and
+ * writing them on the calling thread. The stages hand batches to each other through bounded single-producer
+ * single-consumer queues, so a stage that gets ahead waits for the next one instead of buffering the file.
+ * The throughput, waiting time and queue depth of each stage are logged at the end.
+ * The output is identical to the {@link StreamingRunner}'s.
+ */
+class PipelinedRunner implements ModeRunner {
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(PipelinedRunner.class);
+
+    private final TravelCostCsvProducer producer;
+
+    /**
+     * Number of taps or trip results handed between the stages at a time
+     */
+    private final int batchSize;
+
+    /**
+     * Number of batches each queue between the stages holds before the stage feeding it waits
+     */
+    private final int queueCapacity;
+
+    /**
+     * Creates a runner.
+     *
+     * @param producer The producer whose input is read and whose output is written
+     * @param batchSize Number of taps or trip results handed between the stages at a time
+     * @param queueCapacity Number of batches each queue between the stages holds before the stage feeding it waits
+     */
+    PipelinedRunner(TravelCostCsvProducer producer, int batchSize, int queueCapacity) {
+        this.producer = producer;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Override
+    public void run() throws Exception {
+        logger.info("Starting to pipeline taps from {}", producer.getInputFile());
+        PricingMetrics metrics = producer.getMetrics();
+        Pipeline pipeline = new Pipeline("pipeline");
+        SpscQueue<List<TapDetail>> tapBatches = pipeline.newQueue(queueCapacity);
+        SpscQueue<List<TripResult>> tripBatches = pipeline.newQueue(queueCapacity);
+        PipelineStageMetrics parseMetrics = new PipelineStageMetrics("parse");
+        PipelineStageMetrics priceMetrics = new PipelineStageMetrics("price");
+        PipelineStageMetrics writeMetrics = new PipelineStageMetrics("write");
+        Pipeline.Batcher<TripResult> tripBatcher = new Pipeline.Batcher<>(tripBatches, priceMetrics, batchSize);
+        TripResultSink sink = producer.newResultSink(tripBatcher::accept);
+
+        pipeline.start("parse", () -> {
+            parseMetrics.start();
+            long start = metrics.startStage();
+            Pipeline.Batcher<TapDetail> batcher = new Pipeline.Batcher<>(tapBatches, parseMetrics, batchSize);
+            parseMetrics.addItems(producer.readTaps(batcher));
+            batcher.close();
+            metrics.stageFinished("read", start);
+            parseMetrics.finish();
+        });
+
+        pipeline.start("price", () -> {
+            priceMetrics.start();
+            long start = metrics.startStage();
+            TripAssembler tripAssembler = producer.newTripAssembler(sink);
+            List<TapDetail> tapDetails;
+            while ((tapDetails = priceMetrics.take(tapBatches)) != null) {
+                for (TapDetail tapDetail : tapDetails) {
+                    tripAssembler.accept(tapDetail);
+                }
+                priceMetrics.addItems(tapDetails.size());
+            }
+            tripAssembler.finish();
+            tripBatcher.close();
+            metrics.stageFinished("price", start);
+            priceMetrics.finish();
+        });
+
+        try (TripResultWriter writer = producer.openWriter(false)) {
+            pipeline.run(() -> {
+                writeMetrics.start();
+                long start = metrics.startStage();
+                List<TripResult> tripResults;
+                while ((tripResults = writeMetrics.take(tripBatches)) != null) {
+                    for (TripResult tripResult : tripResults) {
+                        writer.write(tripResult);
+                    }
+                    writeMetrics.addItems(tripResults.size());
+                }
+                writer.flush();
+                metrics.stageFinished("write", start);
+                writeMetrics.finish();
+            });
+            logger.info("Pipelined {} tap details into {} trip results ({} invalid, {} bytes) to {}",
+                    parseMetrics.getItems(), writer.getRowsWritten(), sink.getInvalid(), writer.getBytesWritten(), producer.getOutputFile());
+            logger.info("Pipeline stages: {}; {}; {}", parseMetrics, priceMetrics, writeMetrics);
+        } catch (Exception e) {
+            logger.error("Error pipelining from {} to {}", producer.getInputFile(), producer.getOutputFile(), e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.logging.LoggingMeterRegistry;
+import io.micrometer.core.instrument.logging.LoggingRegistryConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import younan.george.littlepaycodingchallenge.enums.TripStatus;
+import younan.george.littlepaycodingchallenge.io.TripResultWriter;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters of the pricing pipeline: taps parsed, parse errors, validation rejects, trips priced by status,
+ * fare lookup latency, bytes written and the time spent in each stage of a run.
+ * When enabled, the meters are logged at a fixed interval and once more when the application shuts down, as the
+ * application has no web server to expose an actuator endpoint.
+ * <p>
+ * When disabled, which is the default, no registry is created and every method returns after testing a single
+ * field, so the meters cost nothing on the per-row path; in particular the fare lookup is not timed.
+ */
+@Component
+public class PricingMetrics {
+    /**
+     * Logger for this class, which receives the periodic dumps
+     */
+    private static final Logger logger = LoggerFactory.getLogger(PricingMetrics.class);
+
+    /**
+     * Metrics that are never enabled, used by services created outside of Spring
+     */
+    public static final PricingMetrics DISABLED = new PricingMetrics();
+
+    private static final TripStatus[] STATUSES = TripStatus.values();
+
+    /**
+     * Whether the meters are recorded and logged.
+     * This value is injected from application.properties.
+     */
+    @Value("${metrics.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Interval at which the meters are logged.
+     * This value is injected from application.properties.
+     */
+    @Value("${metrics.dump-interval:60s}")
+    private Duration dumpInterval;
+
+    private MeterRegistry registry;
+
+    private Counter tapsParsed;
+
+    private Counter parseErrors;
+
+    private Counter tapsRejected;
+
+    private Counter tripsRejected;
+
+    /**
+     * Trips priced, indexed by the ordinal of their status
+     */
+    private Counter[] trips;
+
+    private Timer fareLookup;
+
+    /**
+     * The writer whose bytes are counted as they are written
+     */
+    private volatile TripResultWriter writer;
+
+    /**
+     * Bytes written by the writers tracked before the current one
+     */
+    private volatile long previousBytesWritten;
+
+    /**
+     * Creates a registry that logs the meters at the dump interval, if enabled.
+     */
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            LoggingRegistryConfig config = new LoggingRegistryConfig() {
+                @Override
+                public String get(String key) {
+                    return null;
+                }
+
+                @Override
+                public Duration step() {
+                    return dumpInterval;
+                }
+            };
+            bind(LoggingMeterRegistry.builder(config).clock(Clock.SYSTEM).loggingSink(logger::info).build());
+            logger.info("Logging pricing metrics every {}", dumpInterval);
+        }
+    }
+
+    /**
+     * Logs the meters one last time and closes the registry, if enabled.
+     */
+    @PreDestroy
+    public void close() {
+        if (registry != null) {
+            registry.close();
+        }
+    }
+
+    /**
+     * Registers the meters in the given registry and starts recording them.
+     *
+     * @param meterRegistry The registry holding the meters
+     */
+    void bind(MeterRegistry meterRegistry) {
+        registry = meterRegistry;
+        tapsParsed = Counter.builder("littlepay.taps.parsed").description("Taps decoded from the input").register(registry);
+        parseErrors = Counter.builder("littlepay.taps.parse.errors").description("Input rows that could not be decoded").register(registry);
+        tapsRejected = Counter.builder("littlepay.validation.rejects").tag("type", "tap").register(registry);
+        tripsRejected = Counter.builder("littlepay.validation.rejects").tag("type", "trip").register(registry);
+        trips = new Counter[STATUSES.length];
+        for (TripStatus status : STATUSES) {
+            trips[status.ordinal()] = Counter.builder("littlepay.trips").tag("status", status.name()).register(registry);
+        }
+        fareLookup = Timer.builder("littlepay.fare.lookup")
+                .description("Time to price a trip against the fare matrix")
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .register(registry);
+        FunctionCounter.builder("littlepay.writer.bytes", this, PricingMetrics::getBytesWritten)
+                .baseUnit("bytes")
+                .register(registry);
+        enabled = true;
+    }
+
+    /**
+     * @return Whether the meters are recorded
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Counts a tap decoded from the input.
+     */
+    public void tapParsed() {
+        if (enabled) {
+            tapsParsed.increment();
+        }
+    }
+
+    /**
+     * Counts input rows that could not be decoded.
+     *
+     * @param count The number of rows
+     */
+    public void parseErrors(long count) {
+        if (enabled && count > 0) {
+            parseErrors.increment(count);
+        }
+    }
+
+    /**
+     * Counts a tap rejected by validation.
+     */
+    public void tapRejected() {
+        if (enabled) {
+            tapsRejected.increment();
+        }
+    }
+
+    /**
+     * Counts a trip result rejected by validation.
+     */
+    public void tripRejected() {
+        if (enabled) {
+            tripsRejected.increment();
+        }
+    }
+
+    /**
+     * Starts timing a fare lookup.
+     *
+     * @return The start time to pass to {@link #tripPriced(long, TripStatus)}, or 0 if disabled
+     */
+    public long startFareLookup() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the latency of a fare lookup and counts the trip it priced.
+     *
+     * @param start The time returned by {@link #startFareLookup()}
+     * @param status The status of the trip
+     */
+    public void tripPriced(long start, TripStatus status) {
+        if (enabled) {
+            fareLookup.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            trips[status.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Counts the bytes written by a writer from now on, in addition to those of the writers tracked before.
+     *
+     * @param tripResultWriter The writer
+     */
+    public void trackWriter(TripResultWriter tripResultWriter) {
+        if (enabled) {
+            TripResultWriter previous = writer;
+            if (previous != null) {
+                previousBytesWritten += previous.getBytesWritten();
+            }
+            writer = tripResultWriter;
+        }
+    }
+
+    /**
+     * Starts timing a stage of a run.
+     *
+     * @return The start time to pass to {@link #stageFinished(String, long)}, or 0 if disabled
+     */
+    public long startStage() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time spent in a stage of a run.
+     *
+     * @param stage The name of the stage
+     * @param start The time returned by {@link #startStage()}
+     */
+    public void stageFinished(String stage, long start) {
+        if (enabled) {
+            registry.timer("littlepay.stage", "stage", stage).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return The number of bytes written by every writer tracked so far
+     */
+    private double getBytesWritten() {
+        TripResultWriter current = writer;
+        return previousBytesWritten + (current == null ? 0 : current.getBytesWritten());
+    }
+}
@@ -0,0 +1,256 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+import younan.george.littlepaycodingchallenge.enums.RejectReason;
+import younan.george.littlepaycodingchallenge.io.DeadLetterWriter;
+import younan.george.littlepaycodingchallenge.io.LogSampler;
+import younan.george.littlepaycodingchallenge.io.MappedCsvTapParser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Collects the rows, taps and trips rejected during a run: each is counted by reason and, if a dead-letter file
+ * is configured, written to it with its reason code. Rejected records are passed here instead of an exception
+ * being thrown and logged with its stack trace for each, so a feed with many bad rows is processed as fast as
+ * a clean one. The dead-letter file is only created once the first record is rejected.
+ * <p>
+ * Rejected records are logged through a {@link LogSampler}: the first few of each reason, then at most one
+ * per reason per interval with the number of records not logged since, so the log stays short whatever the
+ * number of bad records. Every record is still counted, and the counts by reason are logged when closed.
+ * This class is thread-safe, as rows are rejected by the parser threads of the CHUNKED parser and trips
+ * by the pricing threads of PARALLEL mode.
+ */
+class RejectedRecords implements MappedCsvTapParser.RejectListener, TravelCostService.TripRejectListener, Closeable {
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(RejectedRecords.class);
+
+    private static final RejectReason[] REASONS = RejectReason.values();
+
+    /**
+     * The dead-letter file, or null to only count the rejected records
+     */
+    private final Path deadLetterFile;
+
+    /**
+     * Whether to add to an existing dead-letter file instead of replacing it
+     */
+    private final boolean append;
+
+    /**
+     * Number of records rejected, indexed by the ordinal of their reason
+     */
+    private final long[] counts = new long[REASONS.length];
+
+    /**
+     * Decides which of the rejected records of each reason are logged
+     */
+    private final LogSampler logSampler;
+
+    /**
+     * Writes to the dead-letter file, once the first record is rejected
+     */
+    private DeadLetterWriter writer;
+
+    /**
+     * Creates a collector that only counts the rejected records.
+     */
+    RejectedRecords() {
+        this(null, false, LogSampler.DEFAULT_SAMPLES, LogSampler.DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Creates a collector that writes the rejected records to a dead-letter file.
+     *
+     * @param deadLetterFile The dead-letter file, or null to only count the rejected records
+     * @param append Whether to add to an existing dead-letter file instead of replacing it
+     * @param logSamples Number of records of each reason logged before the rate limit applies
+     * @param logInterval Minimum time between two records of the same reason logged after the first samples,
+     *                    or zero to only log the first samples
+     */
+    RejectedRecords(Path deadLetterFile, boolean append, int logSamples, Duration logInterval) {
+        this.deadLetterFile = deadLetterFile;
+        this.append = append;
+        this.logSampler = new LogSampler(REASONS.length, logSamples, logInterval);
+    }
+
+    /**
+     * Counts a row that could not be parsed, and writes it to the dead-letter file.
+     * The row is only joined back together if it is logged or written.
+     *
+     * @param reason Why the row was rejected
+     * @param columns The row, split into columns
+     */
+    public synchronized void onRejectedLine(RejectReason reason, String[] columns) {
+        onRejectedLine(reason, () -> String.join(",", columns));
+    }
+
+    /**
+     * Counts a row that could not be parsed, and writes it to the dead-letter file.
+     * Whether the row is logged is decided before it is read, and the row is only read if it is logged or written.
+     *
+     * @param reason Why the row was rejected
+     * @param line Supplies the row
+     */
+    @Override
+    public synchronized void onRejectedLine(RejectReason reason, Supplier<String> line) {
+        counts[reason.ordinal()]++;
+        long skipped = logSampler.sample(reason.ordinal());
+        String record = skipped != LogSampler.SUPPRESSED || deadLetterFile != null ? line.get() : null;
+        log(reason, "Rejected line", record, skipped);
+        try {
+            if (open()) {
+                writer.write(reason, record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Counts a tap that was rejected after it was parsed, and writes it to the dead-letter file.
+     *
+     * @param reason Why the tap was rejected
+     * @param tapDetail The tap
+     * @return true if the tap was logged, so the caller may log more about it
+     */
+    public synchronized boolean onRejectedTap(RejectReason reason, TapDetail tapDetail) {
+        counts[reason.ordinal()]++;
+        boolean logged = log(reason, "Rejected tap", tapDetail);
+        try {
+            if (open()) {
+                writer.write(reason, tapDetail);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return logged;
+    }
+
+    @Override
+    public synchronized void onRejectedTrip(RejectReason reason, TapDetail currentTap, TapDetail nextTap) {
+        counts[reason.ordinal()]++;
+        log(reason, reason == RejectReason.UNMATCHED_TAP_OFF ? "Rejected tap" : "Rejected trip from tap", currentTap.getId());
+        try {
+            if (open()) {
+                writer.write(reason, currentTap);
+                if (nextTap != null) {
+                    writer.write(reason, nextTap);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Counts a trip result that was rejected after it was priced, and writes it to the dead-letter file.
+     *
+     * @param reason Why the trip result was rejected
+     * @param tripResult The trip result
+     * @return true if the trip result was logged, so the caller may log more about it
+     */
+    public synchronized boolean onRejectedTripResult(RejectReason reason, TripResult tripResult) {
+        counts[reason.ordinal()]++;
+        boolean logged = log(reason, "Rejected trip result", tripResult);
+        try {
+            if (open()) {
+                writer.write(reason, tripResult.toString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return logged;
+    }
+
+    /**
+     * @param reason The reason
+     * @return The number of records rejected for the reason so far
+     */
+    public synchronized long getCount(RejectReason reason) {
+        return counts[reason.ordinal()];
+    }
+
+    /**
+     * @return The number of records rejected so far, whatever the reason
+     */
+    public synchronized long getTotal() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Logs the number of records rejected for each reason and closes the dead-letter file, if it was created.
+     *
+     * @throws IOException if the dead-letter file cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (getTotal() > 0) {
+            Map<RejectReason, Long> byReason = new EnumMap<>(RejectReason.class);
+            for (RejectReason reason : REASONS) {
+                if (counts[reason.ordinal()] > 0) {
+                    byReason.put(reason, counts[reason.ordinal()]);
+                }
+            }
+            logger.warn("Rejected {} records: {}{}", getTotal(), byReason,
+                    writer == null ? "" : ", written to " + deadLetterFile);
+        }
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    /**
+     * Logs a rejected record, if sampled.
+     *
+     * @return true if the record was logged
+     */
+    private boolean log(RejectReason reason, String message, Object record) {
+        return log(reason, message, record, logSampler.sample(reason.ordinal()));
+    }
+
+    /**
+     * Logs a rejected record that was already sampled.
+     *
+     * @param skipped What {@link LogSampler#sample} returned for the record
+     * @return true if the record was logged
+     */
+    private boolean log(RejectReason reason, String message, Object record, long skipped) {
+        if (skipped == LogSampler.SUPPRESSED) {
+            return false;
+        }
+        if (skipped == 0) {
+            logger.warn("{} ({}): {}", message, reason, record);
+        } else {
+            logger.warn("{} ({}): {}, {} more not logged since the last", message, reason, record, skipped);
+        }
+        return true;
+    }
+
+    /**
+     * Opens the dead-letter file, if configured and not open yet.
+     *
+     * @return true if rejected records are written to a dead-letter file
+     */
+    private boolean open() throws IOException {
+        if (writer == null && deadLetterFile != null) {
+            writer = new DeadLetterWriter(deadLetterFile, append);
+        }
+        return writer != null;
+    }
+}
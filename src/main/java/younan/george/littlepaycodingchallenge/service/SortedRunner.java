@@ -0,0 +1,85 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import younan.george.littlepaycodingchallenge.io.TripResultWriter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Sorts the taps of the input CSV file by card and then by time with an external merge sort, then prices and
+ * writes them in a single pass. As the taps of each card arrive together, a card's open trip is closed as soon
+ * as the next card starts, so at most one trip is open at a time.
+ * Runs that do not fit in the memory budget are spilled to the sort directory and merged from there.
+ * The trips are the same as the {@link BatchRunner}'s, but are written in order of card.
+ * Open taps do not expire in this mode, as the taps are no longer in time order across cards.
+ */
+class SortedRunner implements ModeRunner {
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SortedRunner.class);
+
+    private final TravelCostCsvProducer producer;
+
+    /**
+     * Directory in which the sorted runs are spilled
+     */
+    private final Path sortDirectory;
+
+    /**
+     * Heap available to hold the taps of the runs being sorted, in bytes
+     */
+    private final long memoryBudgetBytes;
+
+    /**
+     * Number of runs sorted and spilled at once, or 0 to use one per available processor
+     */
+    private final int threads;
+
+    /**
+     * Creates a runner.
+     *
+     * @param producer The producer whose input is read and whose output is written
+     * @param sortDirectory Directory in which the sorted runs are spilled
+     * @param memoryBudgetBytes Heap available to hold the taps of the runs being sorted, in bytes
+     * @param threads Number of runs sorted and spilled at once, or 0 to use one per available processor
+     */
+    SortedRunner(TravelCostCsvProducer producer, Path sortDirectory, long memoryBudgetBytes, int threads) {
+        this.producer = producer;
+        this.sortDirectory = sortDirectory;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.threads = threads;
+    }
+
+    @Override
+    public void run() throws Exception {
+        logger.info("Starting to sort taps from {}", producer.getInputFile());
+        int sortThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        Path directory = Files.createDirectories(sortDirectory);
+
+        try (ExternalTapSorter sorter = new ExternalTapSorter(directory, memoryBudgetBytes, sortThreads);
+             TripResultWriter writer = producer.openWriter(false)) {
+            TripResultSink sink = producer.newResultSink(writer::write);
+            TripAssembler tripAssembler = new TripAssembler(producer.getTravelCostService(), sink, producer.getRejectedRecords(), 0);
+
+            producer.readTaps(sorter::add);
+            String[] currentPan = new String[1];
+            sorter.sort((sequence, tapDetail) -> {
+                if (currentPan[0] != null && !currentPan[0].equals(tapDetail.getPan())) {
+                    tripAssembler.finishCard(currentPan[0]);
+                }
+                currentPan[0] = tapDetail.getPan();
+                tripAssembler.accept(sequence, tapDetail);
+            });
+            tripAssembler.finish();
+            writer.flush();
+            logger.info("Sorted {} tap details in {} spilled runs into {} trip results ({} invalid) to {}",
+                    sorter.size(), sorter.getRunCount(), writer.getRowsWritten(), sink.getInvalid(), producer.getOutputFile());
+        } catch (Exception e) {
+            logger.error("Error sorting {} into {}", producer.getInputFile(), producer.getOutputFile(), e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, lock-free queue between exactly one producer thread and one consumer thread.
+ * <p>
+ * Items are held in a ring buffer indexed by two counters: the producer only writes the tail and the consumer
+ * only writes the head, each with release semantics, so neither side takes a lock. Each side caches the other's
+ * counter and only reads it again when the queue looks full or empty. A producer that finds the queue full
+ * waits for the consumer, which gives backpressure; a waiting side spins briefly, then yields, then parks.
+ * <p>
+ * The producer calls {@link #close()} after its last item, after which {@link #take()} returns null once the
+ * queue is drained. Either side, or a third thread, can {@link #cancel()} the queue to stop both sides.
+ *
+ * @param <T> The type of the items
+ */
+public final class SpscQueue<T> {
+    /**
+     * Number of times a waiting side spins before it starts yielding
+     */
+    private static final int SPINS = 100;
+
+    /**
+     * Number of times a waiting side yields before it starts parking
+     */
+    private static final int YIELDS = 200;
+
+    private static final long PARK_NANOS = 50_000;
+
+    private final Object[] items;
+
+    private final int mask;
+
+    /**
+     * Index of the next item to take, only written by the consumer
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Index of the next item to put, only written by the producer
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The producer's last view of {@link #head}
+     */
+    private long cachedHead;
+
+    /**
+     * The consumer's last view of {@link #tail}
+     */
+    private long cachedTail;
+
+    private volatile boolean closed;
+
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a queue.
+     *
+     * @param capacity Maximum number of items held, rounded up to a power of two
+     */
+    public SpscQueue(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.items = new Object[Integer.highestOneBit(capacity * 2 - 1)];
+        this.mask = items.length - 1;
+    }
+
+    /**
+     * Adds an item, waiting while the queue is full. Must only be called by the producer.
+     *
+     * @param item The item, which cannot be null
+     * @throws CancellationException if the queue is cancelled while waiting
+     */
+    public void put(T item) {
+        long index = tail.getPlain();
+        if (index - cachedHead == items.length) {
+            cachedHead = head.get();
+            for (int attempt = 0; index - cachedHead == items.length; attempt++) {
+                idle(attempt);
+                cachedHead = head.get();
+            }
+        }
+        items[(int) index & mask] = item;
+        tail.setRelease(index + 1);
+    }
+
+    /**
+     * Removes the next item, waiting while the queue is empty. Must only be called by the consumer.
+     *
+     * @return The item, or null if the queue is closed and every item has been taken
+     * @throws CancellationException if the queue is cancelled while waiting
+     */
+    @SuppressWarnings("unchecked")
+    public T take() {
+        long index = head.getPlain();
+        if (index == cachedTail) {
+            cachedTail = tail.get();
+            for (int attempt = 0; index == cachedTail; attempt++) {
+                if (closed) {
+                    // The tail is released before the queue is closed, so this sees the last item
+                    cachedTail = tail.get();
+                    if (index == cachedTail) {
+                        return null;
+                    }
+                    break;
+                }
+                idle(attempt);
+                cachedTail = tail.get();
+            }
+        }
+        int slot = (int) index & mask;
+        T item = (T) items[slot];
+        items[slot] = null;
+        head.setRelease(index + 1);
+        return item;
+    }
+
+    /**
+     * Marks the end of the items. Must only be called by the producer, after its last {@link #put(Object)}.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Stops both sides: a side waiting on the queue, or that starts waiting, throws a CancellationException.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return The number of items in the queue, which may already be out of date
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * @return The maximum number of items held
+     */
+    public int capacity() {
+        return items.length;
+    }
+
+    private void idle(int attempt) {
+        if (cancelled) {
+            throw new CancellationException("Queue cancelled");
+        }
+        if (attempt < SPINS) {
+            Thread.onSpinWait();
+        } else if (attempt < SPINS + YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
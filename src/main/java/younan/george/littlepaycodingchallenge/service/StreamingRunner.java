@@ -0,0 +1,47 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import younan.george.littlepaycodingchallenge.io.TripResultWriter;
+
+/**
+ * Reads the input CSV file line by line and parses, validates, prices and writes each tap as it is read.
+ * Only the taps of cards that are currently travelling are held in memory, so the heap needed is
+ * independent of the input size.
+ * The output is identical to the {@link BatchRunner}'s.
+ */
+class StreamingRunner implements ModeRunner {
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(StreamingRunner.class);
+
+    private final TravelCostCsvProducer producer;
+
+    /**
+     * Creates a runner.
+     *
+     * @param producer The producer whose input is read and whose output is written
+     */
+    StreamingRunner(TravelCostCsvProducer producer) {
+        this.producer = producer;
+    }
+
+    @Override
+    public void run() throws Exception {
+        logger.info("Starting to stream taps from {}", producer.getInputFile());
+        try (TripResultWriter writer = producer.openWriter(false)) {
+            TripResultSink sink = producer.newResultSink(writer::write);
+            TripAssembler tripAssembler = producer.newTripAssembler(sink);
+
+            long parsed = producer.readTaps(tripAssembler::accept);
+            tripAssembler.finish();
+            writer.flush();
+            logger.info("Streamed {} tap details into {} trip results ({} invalid, {} bytes) to {}",
+                    parsed, writer.getRowsWritten(), sink.getInvalid(), writer.getBytesWritten(), producer.getOutputFile());
+        } catch (Exception e) {
+            logger.error("Error streaming from {} to {}", producer.getInputFile(), producer.getOutputFile(), e);
+            throw e;
+        }
+    }
+}
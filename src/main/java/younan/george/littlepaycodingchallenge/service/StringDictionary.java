@@ -0,0 +1,59 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes Strings as dense int codes, assigned in order of first appearance starting from 0.
+ * Each distinct value is stored once, so a column of repeated values can be held as ints.
+ * This class is not thread-safe.
+ */
+public final class StringDictionary {
+    /**
+     * The code of every distinct value
+     */
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    /**
+     * Every distinct value, indexed by code
+     */
+    private String[] values = new String[16];
+
+    /**
+     * Gets the code of a value, adding the value if it is not known yet.
+     *
+     * @param value The value to encode, which may be null
+     * @return The code of the value
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        int newCode = codes.size();
+        if (newCode == values.length) {
+            values = Arrays.copyOf(values, newCode * 2);
+        }
+        values[newCode] = value;
+        codes.put(value, newCode);
+        return newCode;
+    }
+
+    /**
+     * Gets the value of a code.
+     *
+     * @param code A code returned by {@link #encode(String)}
+     * @return The value, shared by every row with this code
+     */
+    public String decode(int code) {
+        return values[code];
+    }
+
+    /**
+     * @return The number of distinct values, which is also the next code to be assigned
+     */
+    public int size() {
+        return codes.size();
+    }
+}
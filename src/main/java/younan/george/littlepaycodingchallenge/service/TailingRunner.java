@@ -0,0 +1,234 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.io.MappedCsvTapParser;
+import younan.george.littlepaycodingchallenge.io.TapCheckpoint;
+import younan.george.littlepaycodingchallenge.io.TapFileTailer;
+import younan.george.littlepaycodingchallenge.io.TripResultWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Tails every taps file in the watch directory on a background thread, which keeps the application running
+ * until it is stopped. Taps are validated, priced and appended to the output CSV file as soon as their lines
+ * are complete, and the output is flushed after every batch of file changes.
+ * The taps of cards that are still travelling are kept in memory, so a trip may start in one file and end
+ * in another. When taps are put back in time order, a tap is held until a tap at least the skew later
+ * has been read, and the taps still held are only released when tailing stops.
+ * <p>
+ * After every batch, once its results have been written, the position reached in each file and the taps
+ * still open or held are saved in the checkpoint file. Tailing started with a checkpoint resumes from it
+ * and appends to the output, so a restart neither parses the files again nor loses the trips in progress.
+ * Without a checkpoint, the output is replaced. As in INCREMENTAL mode, a batch whose checkpoint could not
+ * be saved is read again on restart, which may append some results a second time.
+ */
+class TailingRunner {
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(TailingRunner.class);
+
+    private final TravelCostCsvProducer producer;
+
+    /**
+     * Directory whose taps files are tailed
+     */
+    private final Path directory;
+
+    /**
+     * Glob that the names of the tailed taps files must match
+     */
+    private final String pattern;
+
+    /**
+     * How often the tailed files are checked for changes the watch service has not reported, in milliseconds
+     */
+    private final long pollIntervalMs;
+
+    private final Path checkpointPath;
+
+    /**
+     * Called on the tailing thread once tailing has failed and its files have been closed
+     */
+    private final Runnable onFailure;
+
+    /**
+     * The position reached in each tailed file at the last checkpoint, by file
+     */
+    private final Map<Path, TapCheckpoint.FilePosition> positions = new TreeMap<>();
+
+    /**
+     * The tailer, or null until tailing starts
+     */
+    private TapFileTailer tapFileTailer;
+
+    /**
+     * The thread running {@link #tapFileTailer}, or null until tailing starts
+     */
+    private Thread tailingThread;
+
+    /**
+     * Creates a runner.
+     *
+     * @param producer The producer whose output is written
+     * @param directory Directory whose taps files are tailed
+     * @param pattern Glob that the names of the tailed taps files must match
+     * @param pollIntervalMs How often the tailed files are checked for changes the watch service has not reported
+     * @param checkpointPath The checkpoint file
+     * @param onFailure Called on the tailing thread once tailing has failed and its files have been closed
+     */
+    TailingRunner(TravelCostCsvProducer producer, Path directory, String pattern, long pollIntervalMs, Path checkpointPath,
+                  Runnable onFailure) {
+        this.producer = producer;
+        this.directory = directory;
+        this.pattern = pattern;
+        this.pollIntervalMs = pollIntervalMs;
+        this.checkpointPath = checkpointPath;
+        this.onFailure = onFailure;
+    }
+
+    /**
+     * Resumes from the checkpoint, if any, and starts tailing on a background thread.
+     *
+     * @throws IOException if the watch directory cannot be watched, or the checkpoint or output file cannot be opened
+     */
+    void start() throws IOException {
+        Files.createDirectories(directory);
+        TapCheckpoint checkpoint = TapCheckpoint.load(checkpointPath);
+        Map<Path, Long> offsets = new HashMap<>();
+        for (TapCheckpoint.FilePosition position : checkpoint.getFiles()) {
+            Path file = directory.resolve(position.getFileName());
+            if (Files.isRegularFile(file) && position.matches(file)) {
+                offsets.put(file, position.getOffset());
+                positions.put(file, position);
+            } else {
+                logger.warn("{} was removed, truncated or replaced since the checkpoint at offset {}, reading it from the start if it exists",
+                        file, position.getOffset());
+            }
+        }
+        boolean resumed = !checkpoint.getFiles().isEmpty();
+
+        TripResultWriter writer = producer.openWriter(resumed);
+        TripAssembler tripAssembler = producer.newTripAssembler(producer.newResultSink(writer::write));
+        TapReorderBuffer reorderBuffer = producer.newReorderBuffer(tripAssembler::accept);
+        Consumer<TapDetail> consumer = reorderBuffer != null ? reorderBuffer::accept : tripAssembler::accept;
+        if (resumed) {
+            logger.info("Resuming tailing {} files with {} open taps", offsets.size(), checkpoint.getOpenTaps().size());
+            checkpoint.getOpenTaps().forEach(consumer);
+        }
+
+        MappedCsvTapParser parser = producer.newAppendedLinesParser();
+        long[] reportedRejectedLines = new long[1];
+        tapFileTailer = new TapFileTailer(directory, pattern, pollIntervalMs, parser, new TapFileTailer.TapListener() {
+            @Override
+            public void onTap(TapDetail tapDetail) {
+                if (producer.isValid(tapDetail)) {
+                    consumer.accept(tapDetail);
+                }
+            }
+
+            @Override
+            public void onBatchEnd() throws IOException {
+                producer.getMetrics().parseErrors(parser.getRejectedLines() - reportedRejectedLines[0]);
+                reportedRejectedLines[0] = parser.getRejectedLines();
+                writer.flush();
+                saveCheckpoint(tripAssembler, reorderBuffer);
+            }
+        });
+        tapFileTailer.resume(offsets);
+
+        tailingThread = new Thread(() -> {
+            boolean failed = false;
+            try {
+                tapFileTailer.run();
+            } catch (RuntimeException e) {
+                failed = true;
+                logger.error("Stopped tailing {} after an error, shutting down", directory.toAbsolutePath(), e);
+            } finally {
+                // Each resource is released on its own, so that a full disk cannot leave the others open
+                try {
+                    TravelCostCsvProducer.flush(reorderBuffer);
+                } catch (RuntimeException e) {
+                    failed = true;
+                    logger.error("Error writing the taps still held to output file: {}", producer.getOutputFile(), e);
+                }
+                try {
+                    writer.close();
+                } catch (IOException | RuntimeException e) {
+                    failed = true;
+                    logger.error("Error closing output file: {}", producer.getOutputFile(), e);
+                }
+                try {
+                    producer.getRejectedRecords().close();
+                } catch (IOException | RuntimeException e) {
+                    failed = true;
+                    logger.error("Error closing dead-letter file", e);
+                }
+                if (!failed) {
+                    try {
+                        saveCheckpoint(tripAssembler, null);
+                    } catch (IOException e) {
+                        logger.error("Error saving checkpoint file: {}", checkpointPath, e);
+                    }
+                }
+                logger.info("Wrote {} trip results to {}, {} trips still open",
+                        writer.getRowsWritten(), producer.getOutputFile(), tripAssembler.getOpenTripCount());
+            }
+            if (failed) {
+                onFailure.run();
+            }
+        }, "tap-file-tailer");
+        tailingThread.start();
+        logger.info("Tailing {} files in {} into {}", pattern, directory.toAbsolutePath(), producer.getOutputFile());
+    }
+
+    /**
+     * Stops tailing and waits for the results read so far to be written, unless called by the tailing thread itself.
+     *
+     * @throws IOException if the watch service cannot be closed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void stop() throws IOException, InterruptedException {
+        tapFileTailer.close();
+        // The tailing thread itself stops the application when tailing fails
+        if (Thread.currentThread() != tailingThread) {
+            tailingThread.join();
+        }
+    }
+
+    /**
+     * Saves the position reached in each tailed file and the taps still open or held, once the results of the taps
+     * read so far have been written. Only the files read since the previous checkpoint are fingerprinted again.
+     * This must be called on the tailing thread.
+     *
+     * @param tripAssembler Holds the taps of the cards that are still travelling
+     * @param reorderBuffer Holds the taps not yet put back in time order, or null
+     * @throws IOException if a file or the checkpoint cannot be read or written
+     */
+    private void saveCheckpoint(TripAssembler tripAssembler, TapReorderBuffer reorderBuffer) throws IOException {
+        Map<Path, Long> offsets = tapFileTailer.getOffsets();
+        positions.keySet().retainAll(offsets.keySet());
+        for (Map.Entry<Path, Long> offset : offsets.entrySet()) {
+            TapCheckpoint.FilePosition position = positions.get(offset.getKey());
+            if (position == null || position.getOffset() != offset.getValue()) {
+                positions.put(offset.getKey(), new TapCheckpoint.FilePosition(offset.getKey().getFileName().toString(),
+                        offset.getValue(), TapCheckpoint.fingerprint(offset.getKey(), offset.getValue())));
+            }
+        }
+        List<TapDetail> openTaps = tripAssembler.getOpenTaps();
+        if (reorderBuffer != null) {
+            openTaps.addAll(reorderBuffer.getPendingTaps());
+        }
+        new TapCheckpoint(0, 0, openTaps, new ArrayList<>(positions.values())).save(checkpointPath);
+    }
+}
@@ -0,0 +1,180 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Puts taps that arrive slightly out of order back into time order before they are assembled into trips,
+ * without sorting the whole input.
+ * <p>
+ * Taps are held until the watermark, the latest tap time seen minus the allowed skew, passes them, and are then
+ * released in order of time, with ties kept in arrival order. As each card's taps are released in time order,
+ * the taps of every card reach the TripAssembler sorted, as long as no tap is more than the skew behind the
+ * latest tap of any card. A tap that arrives further behind than that is released straight away and counted
+ * as late. At most {@code capacity} taps are held; beyond that the earliest tap is released early.
+ * This class is not thread-safe.
+ */
+public class TapReorderBuffer {
+    /**
+     * Receives the taps released by a TapReorderBuffer, such as {@link TripAssembler#accept(long, TapDetail)}.
+     */
+    @FunctionalInterface
+    public interface TapSink {
+        /**
+         * Called for every tap, in the order of their times.
+         *
+         * @param sequence The sequence number of the tap, in the order the taps arrived
+         * @param tapDetail The tap
+         */
+        void accept(long sequence, TapDetail tapDetail);
+    }
+
+    /**
+     * A tap waiting for the watermark, together with its sequence number.
+     */
+    private record PendingTap(TapDetail tapDetail, long sequence) {
+    }
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(TapReorderBuffer.class);
+
+    private static final Comparator<PendingTap> TIME_ORDER = Comparator
+            .comparingLong((PendingTap pendingTap) -> pendingTap.tapDetail().getEpochSecondUTC())
+            .thenComparingLong(PendingTap::sequence);
+
+    /**
+     * How far in seconds a tap may be behind the latest tap and still be put back in order
+     */
+    private final long skewSeconds;
+
+    /**
+     * Maximum number of taps held
+     */
+    private final int capacity;
+
+    private final TapSink sink;
+
+    private final PriorityQueue<PendingTap> pendingTaps = new PriorityQueue<>(TIME_ORDER);
+
+    /**
+     * Taps at or before this time, in seconds since the epoch, are released
+     */
+    private long watermark = Long.MIN_VALUE;
+
+    /**
+     * Sequence number given to the next tap passed to {@link #accept(TapDetail)}
+     */
+    private long nextSequence;
+
+    /**
+     * Number of taps that arrived behind the watermark
+     */
+    private long lateTaps;
+
+    /**
+     * Creates a new TapReorderBuffer.
+     *
+     * @param skewSeconds How far in seconds a tap may be behind the latest tap and still be put back in order
+     * @param capacity Maximum number of taps held
+     * @param sink Receives the taps in time order
+     */
+    public TapReorderBuffer(long skewSeconds, int capacity, TapSink sink) {
+        if (skewSeconds < 0 || capacity < 1) {
+            throw new IllegalArgumentException("Skew cannot be negative and capacity must be positive: " + skewSeconds + ", " + capacity);
+        }
+        this.skewSeconds = skewSeconds;
+        this.capacity = capacity;
+        this.sink = sink;
+    }
+
+    /**
+     * Adds the next tap, numbering taps in the order they are passed in.
+     *
+     * @param tapDetail The tap
+     * @see #accept(long, TapDetail)
+     */
+    public void accept(TapDetail tapDetail) {
+        accept(nextSequence++, tapDetail);
+    }
+
+    /**
+     * Adds the next tap and releases every tap the watermark has passed.
+     *
+     * @param sequence The sequence number of the tap, e.g. its position in the input file
+     * @param tapDetail The tap
+     */
+    public void accept(long sequence, TapDetail tapDetail) {
+        long time = tapDetail.getEpochSecondUTC();
+        if (time < watermark) {
+            lateTaps++;
+            logger.debug("Tap {} is more than {} seconds late, releasing it out of order", tapDetail.getId(), skewSeconds);
+            sink.accept(sequence, tapDetail);
+            return;
+        }
+
+        pendingTaps.add(new PendingTap(tapDetail, sequence));
+        watermark = Math.max(watermark, time - skewSeconds);
+        while (!pendingTaps.isEmpty() && pendingTaps.peek().tapDetail().getEpochSecondUTC() <= watermark) {
+            release();
+        }
+        while (pendingTaps.size() > capacity) {
+            // Later taps that are earlier than the tap released early can no longer be put in order
+            watermark = Math.max(watermark, release());
+        }
+    }
+
+    /**
+     * Releases every tap still held, in time order. This should be called once there are no more taps.
+     */
+    public void flush() {
+        while (!pendingTaps.isEmpty()) {
+            release();
+        }
+    }
+
+    /**
+     * @return The number of taps held
+     */
+    public int size() {
+        return pendingTaps.size();
+    }
+
+    /**
+     * @return The taps held, in the order they will be released
+     */
+    public List<TapDetail> getPendingTaps() {
+        List<PendingTap> sorted = new ArrayList<>(pendingTaps);
+        sorted.sort(TIME_ORDER);
+        List<TapDetail> tapDetails = new ArrayList<>(sorted.size());
+        for (PendingTap pendingTap : sorted) {
+            tapDetails.add(pendingTap.tapDetail());
+        }
+        return tapDetails;
+    }
+
+    /**
+     * @return The number of taps that arrived too late to be put in order
+     */
+    public long getLateTaps() {
+        return lateTaps;
+    }
+
+    /**
+     * Releases the earliest tap held.
+     *
+     * @return The time of the released tap
+     */
+    private long release() {
+        PendingTap pendingTap = pendingTaps.poll();
+        sink.accept(pendingTap.sequence(), pendingTap.tapDetail());
+        return pendingTap.tapDetail().getEpochSecondUTC();
+    }
+}
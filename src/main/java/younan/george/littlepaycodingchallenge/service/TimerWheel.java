@@ -0,0 +1,250 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timer wheel with a resolution of one second, used to expire open taps.
+ * Each of the {@value #LEVELS} levels has {@value #SLOTS} slots, and every slot of a level covers as many
+ * seconds as a whole turn of the level below it, so the wheel spans {@code SLOTS^LEVELS} seconds (about 194 days).
+ * A timer is scheduled in the level whose span covers its deadline and moved down a level each time that
+ * slot comes round, until it expires from the lowest level. Timers due further ahead than the wheel spans
+ * are parked in the last slot they can reach and rescheduled when it comes round.
+ * <p>
+ * Scheduling and cancelling a timer are O(1), as every slot is a doubly linked list of timers.
+ * The wheel is driven by {@link #advanceTo(long, Consumer)} rather than by a clock, so it can run on the
+ * times of the taps themselves. Timers with the same deadline expire in the order they were scheduled.
+ * This class is not thread-safe.
+ *
+ * @param <T> The type of value held by each timer
+ */
+public final class TimerWheel<T> {
+    /**
+     * A scheduled timer, which can be cancelled until it expires.
+     *
+     * @param <T> The type of value held by the timer
+     */
+    public static final class Timer<T> {
+        private final T value;
+
+        private final long deadline;
+
+        private Timer<T> previous;
+
+        private Timer<T> next;
+
+        /**
+         * The slot holding this timer, or -1 once it has expired or been cancelled
+         */
+        private int slot = -1;
+
+        private Timer(T value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return The value held by this timer
+         */
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * @return The time at which this timer expires, in seconds
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+    }
+
+    private static final int SLOT_BITS = 6;
+
+    private static final int SLOTS = 1 << SLOT_BITS;
+
+    private static final int LEVELS = 4;
+
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    /**
+     * Number of seconds ahead of the current time that the wheel can hold without parking a timer
+     */
+    private static final long SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    /**
+     * The first timer of every slot, indexed by {@code level * SLOTS + slot}
+     */
+    private final Timer<T>[] heads;
+
+    /**
+     * The last timer of every slot, so timers are appended in the order they are scheduled
+     */
+    private final Timer<T>[] tails;
+
+    /**
+     * The time up to which timers have expired, or {@link Long#MIN_VALUE} until the wheel is first advanced
+     */
+    private long currentTime = Long.MIN_VALUE;
+
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel() {
+        this.heads = new Timer[LEVELS * SLOTS];
+        this.tails = new Timer[LEVELS * SLOTS];
+    }
+
+    /**
+     * Schedules a timer. A timer whose deadline has already passed expires on the next advance of the wheel.
+     * The wheel must have been advanced at least once, to establish the current time.
+     *
+     * @param value The value held by the timer
+     * @param deadline The time at which the timer expires, in seconds
+     * @return The timer, which can be passed to {@link #cancel(Timer)}
+     * @throws IllegalStateException if the wheel has never been advanced
+     */
+    public Timer<T> schedule(T value, long deadline) {
+        if (currentTime == Long.MIN_VALUE) {
+            throw new IllegalStateException("The wheel must be advanced to the current time before scheduling");
+        }
+        Timer<T> timer = new Timer<>(value, deadline);
+        // The slot of the current time has already expired, so a late timer goes in the next one
+        insert(timer, Math.max(deadline, currentTime + 1));
+        size++;
+        return timer;
+    }
+
+    /**
+     * Cancels a timer, if it has not expired or been cancelled yet.
+     *
+     * @param timer The timer to cancel
+     * @return true if the timer was cancelled
+     */
+    public boolean cancel(Timer<T> timer) {
+        if (timer.slot < 0) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to the given time, expiring every timer whose deadline is at or before it.
+     * Moving the wheel backwards has no effect.
+     *
+     * @param time The new current time, in seconds
+     * @param onExpiry Receives the value of every expired timer, in order of deadline
+     */
+    public void advanceTo(long time, Consumer<T> onExpiry) {
+        if (currentTime == Long.MIN_VALUE) {
+            currentTime = time;
+            return;
+        }
+        while (currentTime < time) {
+            if (size == 0) {
+                // Nothing can expire, so skip the empty turns of the wheel
+                currentTime = time;
+                return;
+            }
+            currentTime++;
+            cascade(currentTime);
+            expireSlot(slotIndex(0, currentTime), currentTime, onExpiry);
+        }
+    }
+
+    /**
+     * @return The number of scheduled timers
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Moves the timers of every higher level slot that starts at the given time down the wheel.
+     * Higher levels are cascaded first, so a timer can fall through several levels at once.
+     */
+    private void cascade(long time) {
+        int level = 1;
+        while (level < LEVELS && (time & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+            level++;
+        }
+        for (int cascaded = level - 1; cascaded >= 1; cascaded--) {
+            int index = slotIndex(cascaded, time);
+            Timer<T> timer = heads[index];
+            heads[index] = null;
+            tails[index] = null;
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                timer.previous = null;
+                timer.next = null;
+                insert(timer, timer.deadline);
+                timer = next;
+            }
+        }
+    }
+
+    /**
+     * Expires every timer in a lowest level slot that is due at the given time.
+     */
+    private void expireSlot(int index, long time, Consumer<T> onExpiry) {
+        Timer<T> timer = heads[index];
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            if (timer.deadline <= time) {
+                unlink(timer);
+                size--;
+                onExpiry.accept(timer.value);
+            }
+            timer = next;
+        }
+    }
+
+    /**
+     * Appends a timer to the slot of the level that covers the given deadline.
+     * A slot is only cascaded or expired when the wheel reaches its first second,
+     * so the deadline must not be before the current time.
+     */
+    private void insert(Timer<T> timer, long deadline) {
+        long delta = deadline - currentTime;
+        int index;
+        if (delta >= SPAN) {
+            index = slotIndex(LEVELS - 1, currentTime + SPAN - 1);
+        } else {
+            int level = 0;
+            while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+                level++;
+            }
+            index = slotIndex(level, deadline);
+        }
+
+        timer.slot = index;
+        timer.previous = tails[index];
+        if (tails[index] == null) {
+            heads[index] = timer;
+        } else {
+            tails[index].next = timer;
+        }
+        tails[index] = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        int index = timer.slot;
+        if (timer.previous == null) {
+            heads[index] = timer.next;
+        } else {
+            timer.previous.next = timer.next;
+        }
+        if (timer.next == null) {
+            tails[index] = timer.previous;
+        } else {
+            timer.next.previous = timer.previous;
+        }
+        timer.previous = null;
+        timer.next = null;
+        timer.slot = -1;
+    }
+
+    private static int slotIndex(int level, long time) {
+        return level * SLOTS + (int) ((time >>> (SLOT_BITS * level)) & SLOT_MASK);
+    }
+}
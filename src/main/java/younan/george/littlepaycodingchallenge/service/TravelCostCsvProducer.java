@@ -1,42 +1,59 @@
 package younan.george.littlepaycodingchallenge.service;
 
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.util.ResourceUtils;
-import org.springframework.validation.BeanPropertyBindingResult;
-import org.springframework.validation.Errors;
-import org.springframework.validation.Validator;
+import younan.george.littlepaycodingchallenge.dto.StopId;
 import younan.george.littlepaycodingchallenge.dto.TapDetail;
 import younan.george.littlepaycodingchallenge.dto.TripResult;
-import younan.george.littlepaycodingchallenge.enums.StopId;
+import younan.george.littlepaycodingchallenge.enums.FileFormat;
+import younan.george.littlepaycodingchallenge.enums.ProcessingMode;
+import younan.george.littlepaycodingchallenge.enums.RejectReason;
+import younan.george.littlepaycodingchallenge.enums.TapParserType;
 import younan.george.littlepaycodingchallenge.enums.TapType;
+import younan.george.littlepaycodingchallenge.enums.ValidationMode;
+import younan.george.littlepaycodingchallenge.io.BinaryTapFile;
+import younan.george.littlepaycodingchallenge.io.BinaryTripFile;
+import younan.george.littlepaycodingchallenge.io.MappedCsvTapParser;
+import younan.george.littlepaycodingchallenge.io.ParallelCsvTapParser;
+import younan.george.littlepaycodingchallenge.io.StringInterner;
+import younan.george.littlepaycodingchallenge.io.TripResultCsvWriter;
+import younan.george.littlepaycodingchallenge.io.TripResultWriter;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.text.ParsePosition;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.function.Consumer;
 
 /**
  * Service responsible for reading tap data from a CSV file, processing it using the TravelCostService,
  * and writing the results to another CSV file.
  * This service is triggered automatically when the application is ready.
+ * Each processing mode is run by a {@link ModeRunner} of its own, or a {@link TailingRunner} in TAILING mode,
+ * which reads, validates and writes through the steps this service shares between them.
  */
 @Service
 public class TravelCostCsvProducer {
@@ -48,7 +65,12 @@ public class TravelCostCsvProducer {
     /**
      * Validator for bean validation
      */
-    private final jakarta.validation.Validator validator;
+    private final Validator validator;
+
+    /**
+     * Validator that checks the same constraints without reflection or allocation
+     */
+    private final FastPathValidator fastPathValidator = new FastPathValidator();
 
     /**
      * Constructor initializes the validator
@@ -63,6 +85,17 @@ public class TravelCostCsvProducer {
      */
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss").withZone(ZoneOffset.UTC);
 
+    /**
+     * Fields of a timestamp in the input CSV file, checked before it is resolved
+     */
+    private static final ChronoField[] TIMESTAMP_FIELDS = {ChronoField.YEAR_OF_ERA, ChronoField.MONTH_OF_YEAR,
+            ChronoField.DAY_OF_MONTH, ChronoField.HOUR_OF_DAY, ChronoField.MINUTE_OF_HOUR, ChronoField.SECOND_OF_MINUTE};
+
+    /**
+     * Returned by the column parsers of the LINES parser for a column that cannot be parsed
+     */
+    private static final long INVALID_COLUMN = Long.MIN_VALUE;
+
     /**
      * Path to the input CSV file containing tap data.
      * This value is injected from application.properties.
@@ -70,6 +103,13 @@ public class TravelCostCsvProducer {
     @Value("${file.input}")
     private String inputFile;
 
+    /**
+     * Format of the input file, CSV or BINARY. INCREMENTAL and TAILING modes only support CSV.
+     * This value is injected from application.properties.
+     */
+    @Value("${file.input.format:CSV}")
+    private FileFormat inputFormat;
+
     /**
      * Path to the output CSV file where trip results will be written.
      * This value is injected from application.properties.
@@ -77,6 +117,176 @@ public class TravelCostCsvProducer {
     @Value("${file.output}")
     private String outputFile;
 
+    /**
+     * Format of the output file, CSV or BINARY. INCREMENTAL and TAILING modes only support CSV.
+     * This value is injected from application.properties.
+     */
+    @Value("${file.output.format:CSV}")
+    private FileFormat outputFormat;
+
+    /**
+     * Path to the checkpoint file that records how far the input has been processed in INCREMENTAL mode,
+     * or how far each tailed file has been processed in TAILING mode.
+     * This value is injected from application.properties.
+     */
+    @Value("${file.checkpoint:output.csv.checkpoint}")
+    private String checkpointFile;
+
+    /**
+     * Directory whose taps files are tailed in TAILING mode.
+     * This value is injected from application.properties.
+     */
+    @Value("${file.watch.directory:taps}")
+    private String watchDirectory;
+
+    /**
+     * Glob that the names of the tailed taps files must match in TAILING mode.
+     * This value is injected from application.properties.
+     */
+    @Value("${file.watch.pattern:*.csv}")
+    private String watchPattern;
+
+    /**
+     * How often the tailed files are checked for changes the watch service has not reported, in milliseconds.
+     * This value is injected from application.properties.
+     */
+    @Value("${file.watch.poll-interval-ms:250}")
+    private long watchPollIntervalMs;
+
+    /**
+     * The tailing started in TAILING mode, or null
+     */
+    private TailingRunner tailingRunner;
+
+    /**
+     * Number of bytes buffered before they are written to the output CSV file.
+     * This value is injected from application.properties.
+     */
+    @Value("${file.output.buffer-size:65536}")
+    private int outputBufferSize;
+
+    /**
+     * Whether to process the input as a single batch or stream it row by row.
+     * This value is injected from application.properties.
+     */
+    @Value("${processing.mode:BATCH}")
+    private ProcessingMode processingMode;
+
+    /**
+     * Number of seconds after its tap ON that an open trip is closed as incomplete in STREAMING, INCREMENTAL
+     * and TAILING mode, or 0 to keep trips open until the card taps again.
+     * This value is injected from application.properties.
+     */
+    @Value("${processing.open-tap-expiry-seconds:0}")
+    private long openTapExpirySeconds;
+
+    /**
+     * Number of seconds a tap may arrive behind the latest tap and still be put back in time order before its
+     * trip is assembled, or 0 to process taps in the order they are read.
+     * This value is injected from application.properties.
+     */
+    @Value("${processing.reorder-skew-seconds:0}")
+    private long reorderSkewSeconds;
+
+    /**
+     * Maximum number of taps held to be put back in time order.
+     * This value is injected from application.properties.
+     */
+    @Value("${processing.reorder-capacity:1048576}")
+    private int reorderCapacity;
+
+    /**
+     * Heap available to hold the taps of the runs being sorted in SORTED mode, in bytes.
+     * This value is injected from application.properties.
+     */
+    @Value("${processing.sort.memory-budget-bytes:67108864}")
+    private long sortMemoryBudgetBytes;
+
+    /**
+     * Number of runs sorted and spilled at once in SORTED mode, or 0 to use one per available processor.
+     * This value is injected from application.properties.
+     */
+    @Value("${processing.sort.threads:0}")
+    private int sortThreads;
+
+    /**
+     * Directory in which the sorted runs are spilled in SORTED mode.
+     * This value is injected from application.properties.
+     */
+    @Value("${processing.sort.directory:${java.io.tmpdir}}")
+    private String sortDirectory;
+
+    /**
+     * Number of taps or trip results handed between the stages at a time in PIPELINED mode.
+     * This value is injected from application.properties.
+     */
+    @Value("${processing.pipeline.batch-size:1024}")
+    private int pipelineBatchSize;
+
+    /**
+     * Number of batches each queue between the stages holds in PIPELINED mode before the stage feeding it waits.
+     * This value is injected from application.properties.
+     */
+    @Value("${processing.pipeline.queue-capacity:16}")
+    private int pipelineQueueCapacity;
+
+    /**
+     * Number of partitions priced in parallel in PARALLEL mode, or 0 to use one per available processor.
+     * This value is injected from application.properties.
+     */
+    @Value("${processing.partitions:0}")
+    private int partitions;
+
+    /**
+     * Which parser reads the input CSV file.
+     * This value is injected from application.properties.
+     */
+    @Value("${file.input.parser:LINES}")
+    private TapParserType inputParser;
+
+    /**
+     * Number of bytes of the input CSV file parsed as one chunk by the CHUNKED parser.
+     * This value is injected from application.properties.
+     */
+    @Value("${file.input.chunk-size-bytes:16777216}")
+    private int inputChunkSize;
+
+    /**
+     * Number of chunks parsed at once by the CHUNKED parser, or 0 to use one per available processor.
+     * This value is injected from application.properties.
+     */
+    @Value("${file.input.parser-threads:0}")
+    private int inputParserThreads;
+
+    /**
+     * Number of distinct company ids, bus ids and PANs each cached while parsing, or 0 to disable interning.
+     * This value is injected from application.properties.
+     */
+    @Value("${file.input.intern-capacity:65536}")
+    private int internCapacity;
+
+    /**
+     * Shares the instances of repeated company ids in the file being read, created by {@link #readTaps(Consumer)}
+     */
+    private StringInterner companyIds;
+
+    /**
+     * Shares the instances of repeated bus ids in the file being read, created by {@link #readTaps(Consumer)}
+     */
+    private StringInterner busIds;
+
+    /**
+     * Shares the instances of repeated PANs in the file being read, created by {@link #readTaps(Consumer)}
+     */
+    private StringInterner pans;
+
+    /**
+     * How taps and trip results are validated.
+     * This value is injected from application.properties.
+     */
+    @Value("${validation.mode:COMPILED}")
+    private ValidationMode validationMode;
+
     /**
      * Service for calculating travel costs based on tap events.
      */
@@ -84,21 +294,71 @@ public class TravelCostCsvProducer {
     private TravelCostService travelCostService;
 
     /**
-     * Validates a TapDetail object using the validator.
+     * Counts the taps, rejects and bytes written, and times the stages of each run, if enabled.
+     */
+    @Autowired
+    private PricingMetrics metrics = PricingMetrics.DISABLED;
+
+    /**
+     * The application context, closed to stop the application when tailing fails.
+     */
+    @Autowired(required = false)
+    private ApplicationContext applicationContext;
+
+    /**
+     * Path to the file the rejected rows, taps and trips are written to, or empty to only count them.
+     * This value is injected from application.properties.
+     */
+    @Value("${file.dead-letter:}")
+    private String deadLetterFile;
+
+    /**
+     * Number of rejected records of each reason logged before the rate limit applies.
+     * This value is injected from application.properties.
+     */
+    @Value("${rejects.log-samples:10}")
+    private int rejectLogSamples;
+
+    /**
+     * Minimum time between two rejected records of the same reason logged after the first samples,
+     * or zero to only log the first samples.
+     * This value is injected from application.properties.
+     */
+    @Value("${rejects.log-interval:10s}")
+    private Duration rejectLogInterval;
+
+    /**
+     * The rows, taps and trips rejected during the current run, created by {@link #readCsvAndProduceResult()}
+     */
+    private RejectedRecords rejectedRecords = new RejectedRecords();
+
+    /**
+     * Validates a TapDetail object.
+     * In COMPILED mode the constraints are checked by the fast path validator first,
+     * and the full validator only runs to log the violations of invalid objects.
      * 
      * @param tapDetail The TapDetail object to validate
      * @return true if the object is valid, false otherwise
      */
-    private boolean isValid(TapDetail tapDetail) {
+    boolean isValid(TapDetail tapDetail) {
         if (tapDetail == null) {
             return false;
         }
+        // Every decoded tap is validated exactly once, so this counts the taps parsed
+        metrics.tapParsed();
+        if (validationMode == ValidationMode.COMPILED && fastPathValidator.isValid(tapDetail)) {
+            return true;
+        }
 
         var violations = validator.validate(tapDetail);
         if (!violations.isEmpty()) {
-            for (ConstraintViolation<TapDetail> violation : violations) {
-                logger.warn("Validation error for tap detail {}: {} - {}", 
-                    tapDetail.getId(), violation.getPropertyPath(), violation.getMessage());
+            metrics.tapRejected();
+            // The violations are only logged for the rejected taps that are sampled
+            if (rejectedRecords.onRejectedTap(RejectReason.INVALID_TAP, tapDetail)) {
+                for (ConstraintViolation<TapDetail> violation : violations) {
+                    logger.warn("Validation error for tap detail {}: {} - {}",
+                        tapDetail.getId(), violation.getPropertyPath(), violation.getMessage());
+                }
             }
             return false;
         }
@@ -106,22 +366,28 @@ public class TravelCostCsvProducer {
     }
 
     /**
-     * Validates a TripResult object using the validator.
+     * Validates a TripResult object, in the same way as {@link #isValid(TapDetail)}.
      * 
      * @param tripResult The TripResult object to validate
      * @return true if the object is valid, false otherwise
      */
-    private boolean isValidTripResult(TripResult tripResult) {
+    boolean isValidTripResult(TripResult tripResult) {
         if (tripResult == null) {
             return false;
         }
+        if (validationMode == ValidationMode.COMPILED && fastPathValidator.isValid(tripResult)) {
+            return true;
+        }
 
         var violations = validator.validate(tripResult);
         if (!violations.isEmpty()) {
-            for (ConstraintViolation<TripResult> violation : violations) {
-                logger.warn("Validation error for trip result from {} to {}: {} - {}", 
-                    tripResult.getFromStopId(), tripResult.getToStopId(), 
-                    violation.getPropertyPath(), violation.getMessage());
+            metrics.tripRejected();
+            if (rejectedRecords.onRejectedTripResult(RejectReason.INVALID_TRIP, tripResult)) {
+                for (ConstraintViolation<TripResult> violation : violations) {
+                    logger.warn("Validation error for trip result from {} to {}: {} - {}",
+                        tripResult.getFromStopId(), tripResult.getToStopId(),
+                        violation.getPropertyPath(), violation.getMessage());
+                }
             }
             return false;
         }
@@ -130,111 +396,365 @@ public class TravelCostCsvProducer {
 
     /**
      * Reads tap data from the input CSV file, processes it to calculate trip costs,
-     * and writes the results to the output CSV file.
+     * and writes the results to the output CSV file, with the runner of the configured processing mode.
      * This method is automatically triggered when the application is ready.
      *
      * @throws Exception if there is an error reading from or writing to the files
      */
     @EventListener(ApplicationReadyEvent.class)
     public void readCsvAndProduceResult() throws Exception {
-        logger.info("Starting to read taps from {}", inputFile);
-        List<TapDetail> tapDetails = new ArrayList<>();
-
-        // Read and parse the input CSV file
-        try (Stream<String> fileStream = Files.lines(ResourceUtils.getFile(inputFile).toPath())) {
-            List<String[]> lines = fileStream.map(line -> line.split(",")).toList();
-            logger.debug("Found {} lines in the input file", lines.size());
-
-            for (String[] line : lines) {
-                // Skip the header row
-                if (!"ID".equals(line[0])) {
-                    try {
-                        TapDetail tapDetail = new TapDetail(
-                                Integer.parseInt(line[0].trim()),
-                                ZonedDateTime.parse(line[1].trim(), formatter),
-                                TapType.valueOf(line[2].trim()),
-                                StopId.valueOf(line[3].trim().toUpperCase()),
-                                line[4].trim(),
-                                line[5].trim(),
-                                line[6].trim()
-                        );
-
-                        // Validate the tap detail before adding it
-                        if (isValid(tapDetail)) {
-                            tapDetails.add(tapDetail);
-                        } else {
-                            logger.warn("Skipping invalid tap detail: {}", String.join(",", line));
-                        }
-                    } catch (Exception e) {
-                        logger.error("Error parsing line: {}", String.join(",", line), e);
+        if (inputFormat == FileFormat.BINARY
+                && (processingMode == ProcessingMode.INCREMENTAL || processingMode == ProcessingMode.TAILING)) {
+            throw new IllegalStateException(processingMode + " mode reads appended lines, so it only supports CSV input");
+        }
+        // Records are appended over the dictionary of a binary file, so a run that dies before its next flush
+        // would leave a file that can neither be read nor appended to
+        if (outputFormat == FileFormat.BINARY
+                && (processingMode == ProcessingMode.INCREMENTAL || processingMode == ProcessingMode.TAILING)) {
+            throw new IllegalStateException(processingMode + " mode appends to the output file, so it only supports CSV output");
+        }
+        // Appending runs add to the dead-letter file of the runs before, like they do to the output file
+        rejectedRecords = new RejectedRecords(deadLetterFile == null || deadLetterFile.isBlank() ? null : Paths.get(deadLetterFile),
+                processingMode == ProcessingMode.INCREMENTAL || processingMode == ProcessingMode.TAILING,
+                rejectLogSamples, rejectLogInterval);
+        if (processingMode == ProcessingMode.TAILING) {
+            tailingRunner = new TailingRunner(this, Paths.get(watchDirectory), watchPattern, watchPollIntervalMs,
+                    Paths.get(checkpointFile), this::exitAfterTailingFailure);
+            tailingRunner.start();
+            return;
+        }
+        long start = metrics.startStage();
+        try {
+            ModeRunner runner = switch (processingMode) {
+                case STREAMING -> new StreamingRunner(this);
+                case INCREMENTAL -> new IncrementalRunner(this, ResourceUtils.getFile(inputFile).toPath(), Paths.get(checkpointFile));
+                case SORTED -> new SortedRunner(this, Paths.get(sortDirectory), sortMemoryBudgetBytes, sortThreads);
+                case PIPELINED -> new PipelinedRunner(this, pipelineBatchSize, pipelineQueueCapacity);
+                default -> new BatchRunner(this, processingMode, partitions);
+            };
+            runner.run();
+        } finally {
+            rejectedRecords.close();
+        }
+        metrics.stageFinished("run", start);
+    }
+
+    /**
+     * Stops tailing, if started, and waits for the results read so far to be written.
+     *
+     * @throws IOException if the watch service cannot be closed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @PreDestroy
+    public void stopTailing() throws IOException, InterruptedException {
+        if (tailingRunner != null) {
+            tailingRunner.stop();
+            tailingRunner = null;
+        }
+    }
+
+    /**
+     * Stops the application with a non-zero exit code once tailing has failed, instead of leaving it running
+     * without tailing anything. Does nothing when the producer is not run by Spring, e.g. in tests.
+     */
+    private void exitAfterTailingFailure() {
+        if (applicationContext != null) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 1));
+        }
+    }
+
+    /**
+     * @return Path to the input file, as configured
+     */
+    String getInputFile() {
+        return inputFile;
+    }
+
+    /**
+     * @return Path to the output file, as configured
+     */
+    String getOutputFile() {
+        return outputFile;
+    }
+
+    /**
+     * @return The service that prices the trips
+     */
+    TravelCostService getTravelCostService() {
+        return travelCostService;
+    }
+
+    /**
+     * @return The meters of the current run
+     */
+    PricingMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return The rows, taps and trips rejected during the current run
+     */
+    RejectedRecords getRejectedRecords() {
+        return rejectedRecords;
+    }
+
+    /**
+     * Reads and validates every tap in the input CSV file using the configured parser,
+     * handing each valid tap to the consumer in file order, or in time order within the reorder skew.
+     *
+     * @param consumer Receives each valid tap
+     * @return The number of valid taps read
+     * @throws IOException if the input file cannot be read
+     */
+    long readTaps(Consumer<TapDetail> consumer) throws IOException {
+        TapReorderBuffer reorderBuffer = newReorderBuffer((sequence, tapDetail) -> consumer.accept(tapDetail));
+        long count = readTapsInFileOrder(reorderBuffer == null ? consumer : reorderBuffer::accept);
+        flush(reorderBuffer);
+        return count;
+    }
+
+    /**
+     * Reads and validates every tap in the input file using the configured format and parser,
+     * handing each valid tap to the consumer in file order.
+     *
+     * @param consumer Receives each valid tap
+     * @return The number of valid taps read
+     * @throws IOException if the input file cannot be read
+     */
+    private long readTapsInFileOrder(Consumer<TapDetail> consumer) throws IOException {
+        Path inputPath = ResourceUtils.getFile(inputFile).toPath();
+        long[] count = new long[1];
+        companyIds = new StringInterner(internCapacity);
+        busIds = new StringInterner(internCapacity);
+        pans = new StringInterner(internCapacity);
+        if (inputFormat == FileFormat.BINARY) {
+            BinaryTapFile.read(inputPath, MappedCsvTapParser.DEFAULT_WINDOW_SIZE, tapDetail -> {
+                if (isValid(tapDetail)) {
+                    count[0]++;
+                    consumer.accept(tapDetail);
+                }
+            }, rejectedRecords);
+        } else if (inputParser == TapParserType.CHUNKED) {
+            int threads = inputParserThreads > 0 ? inputParserThreads : Runtime.getRuntime().availableProcessors();
+            ParallelCsvTapParser parser = new ParallelCsvTapParser(inputChunkSize, threads, internCapacity, rejectedRecords);
+            long rejected = parser.parse(inputPath, tapDetail -> {
+                if (isValid(tapDetail)) {
+                    count[0]++;
+                    consumer.accept(tapDetail);
+                }
+            });
+            metrics.parseErrors(rejected);
+            logger.debug("Rejected {} unparseable lines in {} chunks", rejected, parser.getChunks());
+            // Each parser thread interns in caches of its own, so there are no shared interners to report
+            return count[0];
+        } else if (inputParser == TapParserType.MAPPED) {
+            MappedCsvTapParser parser = new MappedCsvTapParser(MappedCsvTapParser.DEFAULT_WINDOW_SIZE, companyIds, busIds, pans, rejectedRecords);
+            long rejected = parser.parse(inputPath, tapDetail -> {
+                if (isValid(tapDetail)) {
+                    count[0]++;
+                    consumer.accept(tapDetail);
+                }
+            });
+            metrics.parseErrors(rejected);
+            logger.debug("Rejected {} unparseable lines", rejected);
+        } else {
+            try (BufferedReader reader = Files.newBufferedReader(inputPath)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    TapDetail tapDetail = parseLine(line.split(","));
+                    if (tapDetail != null) {
+                        count[0]++;
+                        consumer.accept(tapDetail);
                     }
                 }
             }
-            logger.info("Successfully parsed {} tap details", tapDetails.size());
-        } catch (Exception e) {
-            logger.error("Error reading input file: {}", inputFile, e);
-            throw e;
-        }
-
-        // Calculate trip costs for all tap details
-        logger.debug("Calculating trip costs for {} tap details", tapDetails.size());
-        List<TripResult> allResults = travelCostService.calculateCostForAll(tapDetails);
-
-        // Validate trip results
-        List<TripResult> validResults = new ArrayList<>();
-        for (TripResult result : allResults) {
-            if (isValidTripResult(result)) {
-                validResults.add(result);
-            } else {
-                logger.warn("Skipping invalid trip result from {} to {}", 
-                    result.getFromStopId(), result.getToStopId());
-            }
         }
+        logger.info("Interned company ids: {}; bus ids: {}; PANs: {}", companyIds, busIds, pans);
+        return count[0];
+    }
 
-        logger.info("Generated {} trip results, {} valid", allResults.size(), validResults.size());
+    /**
+     * Opens the output file in the configured format.
+     *
+     * @param append Whether to add results to the end of an existing file instead of replacing it
+     * @return The writer
+     * @throws IOException if the output file cannot be opened
+     */
+    TripResultWriter openWriter(boolean append) throws IOException {
+        Path outputPath = Paths.get(outputFile);
+        TripResultWriter writer = outputFormat == FileFormat.BINARY
+                ? new BinaryTripFile.Writer(outputPath, outputBufferSize, append)
+                : new TripResultCsvWriter(outputPath, outputBufferSize, append);
+        metrics.trackWriter(writer);
+        return writer;
+    }
 
-        // Prepare the output file
-        Path filePath = Paths.get(outputFile);
-        try {
-            Files.deleteIfExists(filePath);
-            Files.createFile(filePath);
-            logger.debug("Created output file: {}", outputFile);
-
-            // Write the header row to the output file
-            String headerRow = "Started, Finished, DurationSecs, FromStopId, ToStopId, ChargeAmount, CompanyId, BusID, PAN, Status" + System.lineSeparator();
-
-            // Convert trip results to CSV format
-            List<String> resultsAsStrings = validResults.stream()
-                    .map(result -> StringUtils.join(
-                            result.getStarted(),
-                            ",",
-                            result.getFinished(),
-                            ",",
-                            result.getDurationSecs(),
-                            ",",
-                            result.getFromStopId(),
-                            ",",
-                            result.getToStopId(),
-                            ",",
-                            result.getChargeAmount(),
-                            ",",
-                            result.getCompanyId(),
-                            ",",
-                            result.getBusID(),
-                            ",",
-                            result.getStatus(),
-                            System.lineSeparator())
-                    ).collect(Collectors.toList());
-
-            // Write the results to the output file
-            Files.writeString(filePath, headerRow, StandardOpenOption.APPEND);
-            for (String str : resultsAsStrings) {
-                Files.writeString(filePath, str, StandardOpenOption.APPEND);
+    /**
+     * Creates the sink through which a mode writes the trip results that pass validation.
+     *
+     * @param target Receives the valid trip results
+     * @return The sink, which counts the invalid trip results
+     */
+    TripResultSink newResultSink(TripResultSink.Target target) {
+        return new TripResultSink(this::isValidTripResult, target);
+    }
+
+    /**
+     * Creates a trip assembler that prices trips with the travel cost service, reports the trips it cannot price
+     * to the rejected records and closes the trips that stay open for too long.
+     *
+     * @param tripListener Receives each trip as soon as it is assembled
+     * @return The trip assembler
+     */
+    TripAssembler newTripAssembler(TripAssembler.TripListener tripListener) {
+        return new TripAssembler(travelCostService, tripListener, rejectedRecords, openTapExpirySeconds);
+    }
+
+    /**
+     * Creates a parser for the lines appended to a file, which interns in caches of its own.
+     *
+     * @return The parser
+     */
+    MappedCsvTapParser newAppendedLinesParser() {
+        return new MappedCsvTapParser(MappedCsvTapParser.DEFAULT_WINDOW_SIZE,
+                new StringInterner(internCapacity), new StringInterner(internCapacity), new StringInterner(internCapacity),
+                rejectedRecords);
+    }
+
+    /**
+     * Creates a buffer that puts taps back in time order before handing them to the sink.
+     *
+     * @param sink Receives the taps in time order
+     * @return The buffer, or null if taps are processed in the order they are read
+     */
+    TapReorderBuffer newReorderBuffer(TapReorderBuffer.TapSink sink) {
+        return reorderSkewSeconds > 0 ? new TapReorderBuffer(reorderSkewSeconds, reorderCapacity, sink) : null;
+    }
+
+    /**
+     * Releases the taps still held by a reorder buffer, if any.
+     */
+    static void flush(TapReorderBuffer reorderBuffer) {
+        if (reorderBuffer != null) {
+            reorderBuffer.flush();
+            logger.info("Put taps in time order within the reorder skew, {} arrived too late", reorderBuffer.getLateTaps());
+        }
+    }
+
+    /**
+     * Converts a single CSV line into a validated TapDetail.
+     * Lines that cannot be parsed are passed to the rejected records with the reason, without throwing
+     * an exception for each, so a file with many bad lines is parsed as fast as a clean one.
+     *
+     * @param line The CSV line, already split into columns
+     * @return The parsed tap, or null if the line is the header or could not be parsed or validated
+     */
+    private TapDetail parseLine(String[] line) {
+        // Skip the header row
+        if ("ID".equals(line[0])) {
+            return null;
+        }
+        RejectReason reason = null;
+        long id = line.length < 7 ? INVALID_COLUMN : parseId(line[0].trim());
+        long epochSecond = INVALID_COLUMN;
+        TapType tapType = null;
+        StopId stopId = null;
+        if (line.length < 7) {
+            reason = RejectReason.MALFORMED_ROW;
+        } else if (id == INVALID_COLUMN) {
+            reason = RejectReason.INVALID_ID;
+        } else if ((epochSecond = parseTimestamp(line[1].trim())) == INVALID_COLUMN) {
+            reason = RejectReason.INVALID_TIMESTAMP;
+        } else if ((tapType = parseTapType(line[2].trim())) == null) {
+            reason = RejectReason.UNKNOWN_TAP_TYPE;
+        } else if ((stopId = StopId.lookup(line[3])) == null) {
+            reason = RejectReason.UNKNOWN_STOP;
+        }
+        if (reason != null) {
+            metrics.parseErrors(1);
+            rejectedRecords.onRejectedLine(reason, line);
+            return null;
+        }
+        TapDetail tapDetail = new TapDetail((int) id, epochSecond, tapType, stopId,
+                internTrimmed(companyIds, line[4]), internTrimmed(busIds, line[5]), internTrimmed(pans, line[6]));
+
+        // Validate the tap detail before adding it, which logs it if it is invalid
+        return isValid(tapDetail) ? tapDetail : null;
+    }
+
+    /**
+     * Parses a tap id like {@code Integer.parseInt}, without throwing.
+     *
+     * @return The id, or {@link #INVALID_COLUMN} if it is not an int
+     */
+    private static long parseId(String text) {
+        int index = text.startsWith("-") || text.startsWith("+") ? 1 : 0;
+        if (index == text.length() || text.length() - index > 10) {
+            return INVALID_COLUMN;
+        }
+        long value = 0;
+        for (int position = index; position < text.length(); position++) {
+            int digit = Character.digit(text.charAt(position), 10);
+            if (digit < 0) {
+                return INVALID_COLUMN;
+            }
+            value = value * 10 + digit;
+        }
+        value = text.charAt(0) == '-' ? -value : value;
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? INVALID_COLUMN : value;
+    }
+
+    /**
+     * Parses a timestamp with the input formatter, checking every field before it is resolved
+     * so that an invalid timestamp does not throw, and resolving it the same way as {@code ZonedDateTime.parse}.
+     *
+     * @return The seconds since the epoch, or {@link #INVALID_COLUMN} if the timestamp is invalid
+     */
+    private long parseTimestamp(String text) {
+        ParsePosition position = new ParsePosition(0);
+        TemporalAccessor parsed = formatter.parseUnresolved(text, position);
+        if (parsed == null || position.getErrorIndex() >= 0 || position.getIndex() != text.length()) {
+            return INVALID_COLUMN;
+        }
+        for (ChronoField field : TIMESTAMP_FIELDS) {
+            if (!parsed.isSupported(field) || !field.range().isValidValue(parsed.getLong(field))) {
+                return INVALID_COLUMN;
             }
-            logger.info("Successfully wrote {} trip results to {}", validResults.size(), outputFile);
-        } catch (Exception e) {
-            logger.error("Error writing to output file: {}", outputFile, e);
-            throw e;
         }
+        int year = (int) parsed.getLong(ChronoField.YEAR_OF_ERA);
+        int month = (int) parsed.getLong(ChronoField.MONTH_OF_YEAR);
+        // Like the smart resolver of the formatter, a day past the end of the month is the last day of the month
+        int day = Math.min((int) parsed.getLong(ChronoField.DAY_OF_MONTH), YearMonth.of(year, month).lengthOfMonth());
+        return LocalDate.of(year, month, day).toEpochDay() * 86_400
+                + parsed.getLong(ChronoField.HOUR_OF_DAY) * 3600
+                + parsed.getLong(ChronoField.MINUTE_OF_HOUR) * 60
+                + parsed.getLong(ChronoField.SECOND_OF_MINUTE);
+    }
+
+    /**
+     * @return The tap type named by the column, or null if there is none
+     */
+    private static TapType parseTapType(String text) {
+        return switch (text) {
+            case "ON" -> TapType.ON;
+            case "OFF" -> TapType.OFF;
+            default -> null;
+        };
+    }
+
+    /**
+     * Interns a column without its surrounding whitespace, matching {@code String.trim}
+     * without creating the trimmed String when it is already cached.
+     */
+    private static String internTrimmed(StringInterner interner, String column) {
+        int start = 0;
+        int end = column.length();
+        while (start < end && column.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && column.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return interner.intern(column, start, end);
     }
 }
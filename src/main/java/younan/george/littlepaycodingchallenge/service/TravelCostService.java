@@ -1,21 +1,28 @@
 package younan.george.littlepaycodingchallenge.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import younan.george.littlepaycodingchallenge.dto.StopId;
 import younan.george.littlepaycodingchallenge.dto.TapDetail;
 import younan.george.littlepaycodingchallenge.dto.TravelPrice;
 import younan.george.littlepaycodingchallenge.dto.TravelPriceId;
 import younan.george.littlepaycodingchallenge.dto.TripResult;
-import younan.george.littlepaycodingchallenge.enums.StopId;
+import younan.george.littlepaycodingchallenge.enums.RejectReason;
 import younan.george.littlepaycodingchallenge.enums.TapType;
 import younan.george.littlepaycodingchallenge.enums.TripStatus;
 import younan.george.littlepaycodingchallenge.exception.InvalidTapException;
 import younan.george.littlepaycodingchallenge.exception.InvalidTripException;
+import younan.george.littlepaycodingchallenge.io.LogSampler;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.NoSuchElementException;
 import java.util.stream.IntStream;
 
 /**
@@ -26,210 +33,482 @@ import java.util.stream.IntStream;
 @Service
 public class TravelCostService {
     /**
-     * Map of travel routes to their corresponding prices.
-     * The key is a TravelPriceId which represents a route between two stops.
-     * The value is the price for that route.
+     * Receives the trips that cannot be priced, instead of an exception being thrown for each.
      */
-    private HashMap<TravelPriceId, BigDecimal> travelPrices;
+    @FunctionalInterface
+    public interface TripRejectListener {
+        /**
+         * Called for every trip that cannot be priced, and every tap OFF that does not close a trip.
+         *
+         * @param reason Why the trip cannot be priced
+         * @param currentTap The tap ON event of the trip, or the tap OFF for {@link RejectReason#UNMATCHED_TAP_OFF}
+         * @param nextTap The tap that closed the trip, or null for an incomplete trip or an unmatched tap OFF
+         */
+        void onRejectedTrip(RejectReason reason, TapDetail currentTap, TapDetail nextTap);
+    }
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(TravelCostService.class);
+
+    /**
+     * Decides which of the taps OFF ignored by {@link #THROW_ON_REJECT} are logged
+     */
+    private static final LogSampler UNMATCHED_TAP_OFF_LOG_SAMPLER = new LogSampler(1, LogSampler.DEFAULT_SAMPLES, LogSampler.DEFAULT_INTERVAL);
+
+    /**
+     * Throws for every trip that cannot be priced, used when no other listener is given:
+     * an InvalidTripException for an unknown fare, and a NoSuchElementException for a stop without fares.
+     * A tap OFF without a tap ON is ignored, and logged through a {@link LogSampler}.
+     */
+    public static final TripRejectListener THROW_ON_REJECT = (reason, currentTap, nextTap) -> {
+        if (reason == RejectReason.UNMATCHED_TAP_OFF) {
+            long skipped = UNMATCHED_TAP_OFF_LOG_SAMPLER.sample(0);
+            if (skipped == 0) {
+                logger.warn("Ignoring tap OFF {} without a preceding tap ON", currentTap.getId());
+            } else if (skipped != LogSampler.SUPPRESSED) {
+                logger.warn("Ignoring tap OFF {} without a preceding tap ON, {} more not logged since the last", currentTap.getId(), skipped);
+            }
+            return;
+        }
+        if (reason == RejectReason.NO_FARES_FROM_STOP) {
+            throw new NoSuchElementException("No travel prices defined for stop " + currentTap.getStopId());
+        }
+        throw new InvalidTripException("Unknown travel cost between stops " + currentTap.getStopId() + ", " + nextTap.getStopId(),
+                currentTap, nextTap);
+    };
+
+    /**
+     * The travel prices compiled into a matrix, used to price trips without allocating.
+     * The matrix is immutable and replaced as a whole when the prices change, so each trip is priced
+     * against a single consistent snapshot without pausing pricing that is in flight.
+     */
+    private volatile FareMatrix fareMatrix;
+
+    /**
+     * Times each fare lookup and counts the trips priced by status, if enabled.
+     */
+    @Autowired
+    private PricingMetrics metrics = PricingMetrics.DISABLED;
 
     /**
      * Initializes the service with predefined travel prices between stops.
-     * In a production environment, these prices would typically be loaded from
-     * a configuration file or database.
+     * These are replaced by the prices loaded by {@link FareTableLoader} when a fare file is configured.
      */
     public TravelCostService() {
-        travelPrices = new HashMap<>();
+        Map<TravelPriceId, BigDecimal> travelPrices = new HashMap<>();
         travelPrices.put(new TravelPriceId(StopId.STOP1, StopId.STOP2), new BigDecimal("3.25"));
         travelPrices.put(new TravelPriceId(StopId.STOP2, StopId.STOP3), new BigDecimal("5.50"));
         travelPrices.put(new TravelPriceId(StopId.STOP1, StopId.STOP3), new BigDecimal("7.30"));
+        updateTravelPrices(travelPrices);
+    }
+
+    /**
+     * Replaces all travel prices at once.
+     * The prices are compiled into a new fare matrix before it is swapped in, so trips priced concurrently
+     * see either the old or the new prices, never a mix.
+     *
+     * @param travelPrices Map of travel routes to their corresponding prices
+     * @throws ArithmeticException if a price is negative or has a fraction of a cent
+     */
+    public void updateTravelPrices(Map<TravelPriceId, BigDecimal> travelPrices) {
+        fareMatrix = FareMatrix.compile(travelPrices);
     }
 
     /**
      * Calculates the cost for all tap events in the provided list.
-     * This method processes the list sequentially, pairing each tap with the next one
-     * to determine trip status and cost.
+     * Taps are matched per card (PAN) in a single pass, so taps of different cards may be interleaved
+     * and the list does not need to be sorted beyond the order of each card's own taps.
      *
      * @param tapDetails List of tap events to process
-     * @return List of trip results with calculated costs and statuses
+     * @return List of trip results with calculated costs and statuses, in the order the trips closed
+     * @throws InvalidTripException if the travel cost between the stops of a trip is unknown
      */
     public List<TripResult> calculateCostForAll(List<TapDetail> tapDetails) {
-        int lastIndex = tapDetails.size() - 1;
+        return calculateCostForAll(tapDetails, THROW_ON_REJECT);
+    }
 
-        return IntStream.range(0, lastIndex)
-                .mapToObj(index ->
-                        calculateCost(
-                                tapDetails.get(index),
-                                index < lastIndex ? tapDetails.get(index + 1) : null))
-                .toList();
+    /**
+     * Calculates the cost for all tap events in the provided list in the same way as
+     * {@link #calculateCostForAll(List)}, leaving out the trips that cannot be priced.
+     *
+     * @param tapDetails List of tap events to process
+     * @param rejectListener Receives the taps of each trip that cannot be priced, and each tap OFF without a tap ON,
+     *                       with the reason
+     * @return List of trip results with calculated costs and statuses, in the order the trips closed
+     */
+    public List<TripResult> calculateCostForAll(List<TapDetail> tapDetails, TripRejectListener rejectListener) {
+        List<TripResult> results = new ArrayList<>();
+        TripAssembler tripAssembler = new TripAssembler(this, (tripResult, sequence) -> results.add(tripResult),
+                rejectListener, 0);
+        for (TapDetail tapDetail : tapDetails) {
+            tripAssembler.accept(tapDetail);
+        }
+        tripAssembler.finish();
+        return results;
     }
 
     /**
-     * Calculates the cost for a single trip based on the current tap and the next tap.
-     * This method determines if the trip is completed, incomplete, or cancelled,
-     * and calculates the appropriate cost.
+     * Calculates the cost for all tap events in the provided list using several cores.
+     * Taps are sharded by a hash of their PAN into the given number of partitions, so every tap of a card
+     * lands in the same partition, and each partition is priced on its own ForkJoinPool worker.
+     * The results are merged in exactly the order {@link #calculateCostForAll(List)} returns them.
      *
-     * @param currentTap The current tap event
-     * @param nextTap The next tap event, or null if there is no next tap
-     * @return A TripResult containing the calculated cost and trip status
-     * @throws InvalidTapException if currentTap is null
-     * @throws InvalidTripException if the travel cost between stops is unknown
+     * @param tapDetails List of tap events to process
+     * @param partitions Number of partitions to price in parallel
+     * @return List of trip results with calculated costs and statuses, in the order the trips closed
+     * @throws InvalidTripException if the travel cost between the stops of a trip is unknown
      */
-    public TripResult calculateCost(TapDetail currentTap, TapDetail nextTap) {
-        if (currentTap == null) {
-            throw new younan.george.littlepaycodingchallenge.exception.InvalidTapException("currentTap must be non null!");
+    public List<TripResult> calculateCostForAll(List<TapDetail> tapDetails, int partitions) {
+        return calculateCostForAll(tapDetails, partitions, THROW_ON_REJECT);
+    }
+
+    /**
+     * Calculates the cost for all tap events in the provided list using several cores in the same way as
+     * {@link #calculateCostForAll(List, int)}, leaving out the trips that cannot be priced.
+     *
+     * @param tapDetails List of tap events to process
+     * @param partitions Number of partitions to price in parallel
+     * @param rejectListener Receives the taps of each trip that cannot be priced, and each tap OFF without a tap ON,
+     *                       with the reason, from several threads at once
+     * @return List of trip results with calculated costs and statuses, in the order the trips closed
+     */
+    public List<TripResult> calculateCostForAll(List<TapDetail> tapDetails, int partitions, TripRejectListener rejectListener) {
+        if (partitions <= 1) {
+            return calculateCostForAll(tapDetails, rejectListener);
         }
-        if (isIncomplete(currentTap, nextTap)) {
-            return calculateCostForIncompleteTrip(currentTap);
+        int[][] partitionIndexes = partitionByPan(tapDetails, partitions);
+
+        // Each partition hands over its trips in increasing order of the sequence number of the tap that closed
+        // them, then the trips left open in increasing order of their tap ON, so merging by sequence number
+        // restores the order of a single pass
+        SequencedTrips[] closedTrips = new SequencedTrips[partitions];
+        SequencedTrips[] openTrips = new SequencedTrips[partitions];
+        IntStream.range(0, partitions).parallel().forEach(partition -> {
+            SequencedTrips closed = new SequencedTrips();
+            SequencedTrips open = new SequencedTrips();
+            TripAssembler tripAssembler = new TripAssembler(this, closed::add, rejectListener, 0);
+            for (int index : partitionIndexes[partition]) {
+                tripAssembler.accept(index, tapDetails.get(index));
+            }
+            tripAssembler.finish(open::add);
+            closedTrips[partition] = closed;
+            openTrips[partition] = open;
+        });
+
+        List<TripResult> results = new ArrayList<>();
+        SequencedTrips.merge(closedTrips, results);
+        SequencedTrips.merge(openTrips, results);
+        return results;
+    }
+
+    /**
+     * The trips of one partition, in increasing order of their sequence numbers.
+     */
+    private static final class SequencedTrips {
+        private final List<TripResult> trips = new ArrayList<>();
+
+        private long[] sequences = new long[16];
+
+        /**
+         * The position of the next trip to merge
+         */
+        private int next;
+
+        void add(TripResult tripResult, long sequence) {
+            if (trips.size() == sequences.length) {
+                sequences = Arrays.copyOf(sequences, sequences.length * 2);
+            }
+            sequences[trips.size()] = sequence;
+            trips.add(tripResult);
         }
-        if (isCancelled(currentTap, nextTap)) {
-            return calculateCostForCancelledTrip(currentTap, nextTap);
+
+        /**
+         * Appends the trips of every partition to the results in increasing order of their sequence numbers.
+         * There are few partitions, so the one holding the next trip is found by scanning them all.
+         */
+        static void merge(SequencedTrips[] partitions, List<TripResult> results) {
+            while (true) {
+                SequencedTrips first = null;
+                for (SequencedTrips partition : partitions) {
+                    if (partition.next < partition.trips.size()
+                            && (first == null || partition.sequences[partition.next] < first.sequences[first.next])) {
+                        first = partition;
+                    }
+                }
+                if (first == null) {
+                    return;
+                }
+                results.add(first.trips.get(first.next++));
+            }
         }
+    }
 
-        return calculateCostForCompletedTrip(currentTap, nextTap);
+    /**
+     * Calculates the cost for all taps in a columnar tap store, reading the columns directly.
+     * Taps are matched per card in the same way as {@link #calculateCostForAll(List)}, but the open trip of
+     * each card is tracked by PAN code in a plain array instead of a map of TapDetail objects.
+     * The results are in exactly the order {@link #calculateCostForAll(List)} returns them.
+     *
+     * @param tapStore The taps to process, in file order
+     * @return List of trip results with calculated costs and statuses, in the order the trips closed
+     * @throws InvalidTripException if the travel cost between the stops of a trip is unknown
+     */
+    public List<TripResult> calculateCostForAll(ColumnarTapStore tapStore) {
+        return calculateCostForAll(tapStore, THROW_ON_REJECT);
     }
 
     /**
-     * Calculates the cost for a completed trip.
-     * A completed trip is one where the passenger tapped on at one stop and tapped off at another stop.
+     * Calculates the cost for all taps in a columnar tap store in the same way as
+     * {@link #calculateCostForAll(ColumnarTapStore)}, leaving out the trips that cannot be priced.
      *
-     * @param currentTap The tap-on event
-     * @param nextTap The tap-off event
-     * @return A TripResult with the COMPLETED status and the appropriate charge
-     * @throws InvalidTripException if the travel cost between the stops is unknown
-     */
-    private TripResult calculateCostForCompletedTrip(TapDetail currentTap, TapDetail nextTap) {
-        BigDecimal chargeAmount = travelPrices.get(new TravelPriceId(currentTap.getStopId(), nextTap.getStopId()));
-        if (chargeAmount == null) {
-            throw new InvalidTripException("Unknown travel cost between stops " + currentTap.getStopId() + ", " + nextTap.getStopId(), 
-                currentTap, nextTap);
+     * @param tapStore The taps to process, in file order
+     * @param rejectListener Receives the taps of each trip that cannot be priced, and each tap OFF without a tap ON,
+     *                       with the reason
+     * @return List of trip results with calculated costs and statuses, in the order the trips closed
+     */
+    public List<TripResult> calculateCostForAll(ColumnarTapStore tapStore, TripRejectListener rejectListener) {
+        FareMatrix fares = fareMatrix;
+        List<TripResult> results = new ArrayList<>();
+        int[] openRows = new int[tapStore.getPanCount()];
+        Arrays.fill(openRows, -1);
+        int openCount = 0;
+
+        for (int row = 0; row < tapStore.size(); row++) {
+            int panCode = tapStore.getPanCode(row);
+            int openRow = openRows[panCode];
+            if (tapStore.getTapType(row) == TapType.ON) {
+                if (openRow >= 0) {
+                    addIfPriced(results, calculateCost(fares, tapStore, openRow, row, rejectListener));
+                } else {
+                    openCount++;
+                }
+                openRows[panCode] = row;
+            } else if (openRow >= 0) {
+                addIfPriced(results, calculateCost(fares, tapStore, openRow, row, rejectListener));
+                openRows[panCode] = -1;
+                openCount--;
+            } else {
+                rejectListener.onRejectedTrip(RejectReason.UNMATCHED_TAP_OFF, tapStore.get(row), null);
+            }
         }
 
-        return new TripResult(
-                currentTap.getDateTimeUTC(),
-                nextTap.getDateTimeUTC(),
-                getElapsedTime(currentTap, nextTap),
-                currentTap.getStopId(),
-                nextTap.getStopId(),
-                chargeAmount,
-                currentTap.getCompanyId(),
-                currentTap.getBusId(),
-                currentTap.getPan(),
-                TripStatus.COMPLETED
-        );
+        // Trips left open are closed in the order they started, i.e. by the row of their tap ON
+        int[] stillOpen = new int[openCount];
+        int index = 0;
+        for (int openRow : openRows) {
+            if (openRow >= 0) {
+                stillOpen[index++] = openRow;
+            }
+        }
+        Arrays.sort(stillOpen);
+        for (int openRow : stillOpen) {
+            addIfPriced(results, calculateCost(fares, tapStore, openRow, -1, rejectListener));
+        }
+        return results;
     }
 
     /**
-     * Calculates the cost for an incomplete trip.
-     * An incomplete trip is one where the passenger tapped on but did not tap off.
-     * In this case, the maximum possible fare from the tap-on stop is charged.
+     * Calculates the cost for a single trip from the columns of a tap store,
+     * by the same rules as {@link #calculateCost(TapDetail, TapDetail)}.
      *
-     * @param currentTap The tap-on event
-     * @return A TripResult with the INCOMPLETE status and the maximum possible charge
-     */
-    private TripResult calculateCostForIncompleteTrip(TapDetail currentTap) {
-        TravelPrice maxCostForStop = getMaxCostForStop(currentTap.getStopId());
-
-        StopId[] stops = convertStopsToArray(maxCostForStop.getTravelPriceId().getStops());
-        StopId nextStop = currentTap.getStopId() == stops[0] ? stops[1] : stops[0];
-        return new TripResult(
-                currentTap.getDateTimeUTC(),
-                currentTap.getDateTimeUTC(),
-                0,
-                currentTap.getStopId(),
-                nextStop,
-                maxCostForStop.getCost(),
-                currentTap.getCompanyId(),
-                currentTap.getBusId(),
-                currentTap.getPan(),
-                TripStatus.INCOMPLETE
-        );
-    }
-
-    /**
-     * Calculates the cost for a cancelled trip.
-     * A cancelled trip is one where the passenger tapped on and then tapped off at the same stop.
-     * In this case, no charge is applied.
+     * @param fares The fare matrix to price against
+     * @param tapStore The store holding the taps
+     * @param currentRow The row of the tap ON event
+     * @param nextRow The row of the next tap event, or -1 if there is no next tap
+     * @param rejectListener Receives the taps of the trip if it cannot be priced
+     * @return A TripResult containing the calculated cost and trip status, or null if the trip cannot be priced
+     */
+    private TripResult calculateCost(FareMatrix fares, ColumnarTapStore tapStore, int currentRow, int nextRow,
+                                     TripRejectListener rejectListener) {
+        long start = metrics.startFareLookup();
+        StopId fromStop = tapStore.getStopId(currentRow);
+        StopId toStop = nextRow < 0 ? null : tapStore.getStopId(nextRow);
+        TripStatus status = tripStatus(tapStore.getTapType(currentRow), fromStop,
+                nextRow < 0 ? null : tapStore.getTapType(nextRow), toStop);
+        TripResult tripResult = priceTrip(fares, status, fromStop, tapStore.getEpochSecondUTC(currentRow),
+                toStop, nextRow < 0 ? 0 : tapStore.getEpochSecondUTC(nextRow),
+                tapStore.getCompanyId(currentRow), tapStore.getBusId(currentRow), tapStore.getPan(currentRow));
+        if (tripResult == null) {
+            // The taps are only read back into objects for the trips that are rejected
+            rejectListener.onRejectedTrip(rejectReason(status), tapStore.get(currentRow),
+                    nextRow < 0 ? null : tapStore.get(nextRow));
+            return null;
+        }
+        metrics.tripPriced(start, status);
+        return tripResult;
+    }
+
+    private static void addIfPriced(List<TripResult> results, TripResult tripResult) {
+        if (tripResult != null) {
+            results.add(tripResult);
+        }
+    }
+
+    /**
+     * Splits the indexes of the given taps into partitions by a hash of their PAN,
+     * preserving the original order within each partition.
      *
-     * @param currentTap The tap-on event
-     * @param nextTap The tap-off event at the same stop
-     * @return A TripResult with the CANCELLED status and zero charge
-     */
-    private TripResult calculateCostForCancelledTrip(TapDetail currentTap, TapDetail nextTap) {
-        return new TripResult(
-                currentTap.getDateTimeUTC(),
-                nextTap.getDateTimeUTC(),
-                getElapsedTime(currentTap, nextTap),
-                currentTap.getStopId(),
-                nextTap.getStopId(),
-                BigDecimal.ZERO,
-                currentTap.getCompanyId(),
-                currentTap.getBusId(),
-                currentTap.getPan(),
-                TripStatus.CANCELLED
-        );
-    }
-
-    /**
-     * Determines if a trip is incomplete based on the current and next tap events.
-     * A trip is incomplete if there is no next tap, or if both the current and next taps are ON taps.
+     * @param tapDetails List of tap events to split
+     * @param partitions Number of partitions
+     * @return The tap indexes of each partition
+     */
+    private static int[][] partitionByPan(List<TapDetail> tapDetails, int partitions) {
+        int size = tapDetails.size();
+        int[] partitionOfTap = new int[size];
+        int[] partitionSizes = new int[partitions];
+        for (int index = 0; index < size; index++) {
+            int partition = Math.floorMod(tapDetails.get(index).getPan().hashCode(), partitions);
+            partitionOfTap[index] = partition;
+            partitionSizes[partition]++;
+        }
+
+        int[][] partitionIndexes = new int[partitions][];
+        for (int partition = 0; partition < partitions; partition++) {
+            partitionIndexes[partition] = new int[partitionSizes[partition]];
+            partitionSizes[partition] = 0;
+        }
+        for (int index = 0; index < size; index++) {
+            int partition = partitionOfTap[index];
+            partitionIndexes[partition][partitionSizes[partition]++] = index;
+        }
+        return partitionIndexes;
+    }
+
+    /**
+     * Calculates the cost for a single trip based on the current tap and the next tap.
+     * This method determines if the trip is completed, incomplete, or cancelled,
+     * and calculates the appropriate cost.
      *
      * @param currentTap The current tap event
      * @param nextTap The next tap event, or null if there is no next tap
-     * @return true if the trip is incomplete, false otherwise
+     * @return A TripResult containing the calculated cost and trip status
+     * @throws InvalidTapException if currentTap is null
+     * @throws InvalidTripException if the travel cost between stops is unknown
+     * @throws NoSuchElementException if no travel prices are defined from the stop of an incomplete trip
      */
-    boolean isIncomplete(TapDetail currentTap, TapDetail nextTap) {
-        return nextTap == null || (currentTap.getTapType() == TapType.ON && currentTap.getTapType() == nextTap.getTapType());
+    public TripResult calculateCost(TapDetail currentTap, TapDetail nextTap) {
+        return calculateCost(currentTap, nextTap, THROW_ON_REJECT);
     }
 
     /**
-     * Determines if a trip is cancelled based on the current and next tap events.
-     * A trip is cancelled if the current tap is ON, the next tap is OFF, and both taps are at the same stop.
+     * Calculates the cost for a single trip in the same way as {@link #calculateCost(TapDetail, TapDetail)},
+     * but reports a trip that cannot be priced to a listener instead of throwing, so that bad data costs
+     * no more than good data.
      *
      * @param currentTap The current tap event
-     * @param nextTap The next tap event
-     * @return true if the trip is cancelled, false otherwise
+     * @param nextTap The next tap event, or null if there is no next tap
+     * @param rejectListener Receives the taps of the trip if it cannot be priced
+     * @return A TripResult containing the calculated cost and trip status, or null if the trip cannot be priced
+     * @throws InvalidTapException if currentTap is null
      */
-    boolean isCancelled(TapDetail currentTap, TapDetail nextTap) {
-        return currentTap.getTapType() == TapType.ON && nextTap.getTapType() == TapType.OFF && currentTap.getStopId() == nextTap.getStopId();
+    public TripResult calculateCost(TapDetail currentTap, TapDetail nextTap, TripRejectListener rejectListener) {
+        if (currentTap == null) {
+            throw new InvalidTapException("currentTap must be non null!");
+        }
+        long start = metrics.startFareLookup();
+        StopId toStop = nextTap == null ? null : nextTap.getStopId();
+        TripStatus status = tripStatus(currentTap.getTapType(), currentTap.getStopId(),
+                nextTap == null ? null : nextTap.getTapType(), toStop);
+        TripResult tripResult = priceTrip(fareMatrix, status, currentTap.getStopId(), currentTap.getEpochSecondUTC(),
+                toStop, nextTap == null ? 0 : nextTap.getEpochSecondUTC(),
+                currentTap.getCompanyId(), currentTap.getBusId(), currentTap.getPan());
+        if (tripResult == null) {
+            rejectListener.onRejectedTrip(rejectReason(status), currentTap, nextTap);
+            return null;
+        }
+        metrics.tripPriced(start, status);
+        return tripResult;
     }
 
     /**
-     * Gets the maximum cost for travel from a given stop.
-     * This is used for incomplete trips where the destination is unknown.
+     * Determines the status of a trip from its taps.
+     * A trip is incomplete if there is no next tap, or if both the current and next taps are ON taps.
+     * It is cancelled if the current tap is ON, the next tap is OFF, and both taps are at the same stop.
+     * Otherwise the trip is completed.
      *
-     * @param stopId The stop ID to get the maximum cost for
-     * @return A TravelPrice object containing the maximum cost and the corresponding route
-     * @throws java.util.NoSuchElementException if no travel prices are defined for the given stop
+     * @param currentType The type of the current tap
+     * @param fromStop The stop of the current tap
+     * @param nextType The type of the next tap, or null if there is no next tap
+     * @param toStop The stop of the next tap, or null if there is no next tap
+     * @return The status of the trip
      */
-    TravelPrice getMaxCostForStop(StopId stopId) {
-        return travelPrices.entrySet().stream()
-                .filter(travelPrice -> travelPrice.getKey().getStops().contains(stopId))
-                .max(Map.Entry.comparingByValue())
-                .map(entry -> new TravelPrice(entry.getKey(), entry.getValue()))
-                .orElseThrow();
+    static TripStatus tripStatus(TapType currentType, StopId fromStop, TapType nextType, StopId toStop) {
+        if (nextType == null || (currentType == TapType.ON && nextType == TapType.ON)) {
+            return TripStatus.INCOMPLETE;
+        }
+        if (currentType == TapType.ON && nextType == TapType.OFF && fromStop == toStop) {
+            return TripStatus.CANCELLED;
+        }
+        return TripStatus.COMPLETED;
     }
 
     /**
-     * Calculates the elapsed time between two tap events in seconds.
+     * Prices a trip from the plain values of its taps, so that trips are priced by the same rules
+     * whether their taps are held as TapDetail objects or as the rows of a columnar store.
+     * <ul>
+     *     <li>An incomplete trip is charged the maximum fare from its tap ON stop, to the stop of that fare.</li>
+     *     <li>A cancelled trip is not charged.</li>
+     *     <li>A completed trip is charged the fare between its stops.</li>
+     * </ul>
      *
-     * @param currentTap The first tap event
-     * @param nextTap The second tap event
-     * @return The elapsed time in seconds
+     * @param fares The fare matrix to price against
+     * @param status The status of the trip, from {@link #tripStatus}
+     * @param fromStop The stop of the tap ON
+     * @param started The time of the tap ON, in epoch seconds
+     * @param toStop The stop of the next tap, or null if there is no next tap
+     * @param finished The time of the next tap, in epoch seconds, or 0 if there is no next tap
+     * @param companyId The company of the tap ON
+     * @param busId The bus of the tap ON
+     * @param pan The card of the trip
+     * @return The trip result, or null if the fare is unknown, see {@link #rejectReason(TripStatus)}
+     */
+    private static TripResult priceTrip(FareMatrix fares, TripStatus status, StopId fromStop, long started,
+                                        StopId toStop, long finished, String companyId, String busId, String pan) {
+        if (status == TripStatus.INCOMPLETE) {
+            StopId destination = fares.getMaxFareDestination(fromStop);
+            if (destination == null) {
+                return null;
+            }
+            return new TripResult(started, started, 0, fromStop, destination,
+                    FareMatrix.toAmount(fares.getMaxFareCents(fromStop)), companyId, busId, pan, status);
+        }
+        BigDecimal chargeAmount = BigDecimal.ZERO;
+        if (status == TripStatus.COMPLETED) {
+            long chargeCents = fares.getFareCents(fromStop, toStop);
+            if (chargeCents == FareMatrix.UNKNOWN_FARE) {
+                return null;
+            }
+            chargeAmount = FareMatrix.toAmount(chargeCents);
+        }
+        return new TripResult(started, finished, finished - started, fromStop, toStop, chargeAmount,
+                companyId, busId, pan, status);
+    }
+
+    /**
+     * @param status The status of a trip that {@link #priceTrip} could not price
+     * @return Why the trip could not be priced
      */
-    private long getElapsedTime(TapDetail currentTap, TapDetail nextTap) {
-        return nextTap.getDateTimeUTC().toEpochSecond() - currentTap.getDateTimeUTC().toEpochSecond();
+    private static RejectReason rejectReason(TripStatus status) {
+        return status == TripStatus.INCOMPLETE ? RejectReason.NO_FARES_FROM_STOP : RejectReason.UNKNOWN_FARE;
     }
 
     /**
-     * Converts a set of stop IDs to an array.
-     * This is a utility method used for processing stop IDs in the incomplete trip calculation.
+     * Gets the maximum cost for travel from a given stop.
+     * This is used for incomplete trips where the destination is unknown.
+     * The maximum is read from the index built when the fare matrix is compiled.
      *
-     * @param stopSet The set of stop IDs to convert
-     * @return An array containing the stop IDs from the set
+     * @param stopId The stop ID to get the maximum cost for
+     * @return A TravelPrice object containing the maximum cost and the corresponding route
+     * @throws java.util.NoSuchElementException if no travel prices are defined for the given stop
      */
-    private static StopId[] convertStopsToArray(Set<StopId> stopSet) {
-        StopId[] stops = new StopId[2];
-        stopSet.toArray(stops);
-        return stops;
+    TravelPrice getMaxCostForStop(StopId stopId) {
+        FareMatrix fares = fareMatrix;
+        StopId destination = fares.getMaxFareDestination(stopId);
+        if (destination == null) {
+            throw new NoSuchElementException("No travel prices defined for stop " + stopId);
+        }
+        return new TravelPrice(new TravelPriceId(stopId, destination), FareMatrix.toAmount(fares.getMaxFareCents(stopId)));
     }
 }
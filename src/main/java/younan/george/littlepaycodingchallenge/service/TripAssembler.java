@@ -0,0 +1,274 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+import younan.george.littlepaycodingchallenge.enums.RejectReason;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assembles trips from a stream of tap events, matching tap ON and tap OFF events per card (PAN).
+ * Taps of different cards may be freely interleaved; only the order of taps for the same card matters.
+ * Each tap is processed in O(1) and a trip is handed to the listener as soon as it closes.
+ * <p>
+ * Optionally, a trip that has been open for longer than an expiry window is closed as incomplete without
+ * waiting for the card's next tap, so a card that never taps again is not held forever. Time is measured by
+ * the taps themselves: each tap moves the clock forward to its own time, and expiry timers are kept in a
+ * hierarchical timer wheel so that scheduling and cancelling them is O(1) per tap.
+ * This class is not thread-safe.
+ */
+public class TripAssembler {
+    /**
+     * Receives the trips assembled by a TripAssembler.
+     */
+    @FunctionalInterface
+    public interface TripListener {
+        /**
+         * Called for every assembled trip.
+         *
+         * @param tripResult The priced trip
+         * @param sequence The sequence number of the tap that closed the trip, or of the tap that opened
+         *                 the trip when it is closed by {@link #finish(TripListener)}
+         */
+        void onTrip(TripResult tripResult, long sequence);
+    }
+
+    /**
+     * A tap ON event together with its sequence number, and its expiry timer if expiry is enabled.
+     */
+    private record OpenTap(TapDetail tapDetail, long sequence, TimerWheel.Timer<String> expiryTimer) {
+    }
+
+    /**
+     * Service used to price each trip once both of its taps are known
+     */
+    private final TravelCostService travelCostService;
+
+    /**
+     * Receives each trip as soon as it is assembled
+     */
+    private final TripListener tripListener;
+
+    /**
+     * Receives the trips that cannot be priced, and the taps OFF that do not close a trip
+     */
+    private final TravelCostService.TripRejectListener rejectListener;
+
+    /**
+     * The tap ON event of every card that is currently travelling, keyed by PAN.
+     * Insertion ordered so that the trips left open at the end are emitted in the order they started.
+     */
+    private final Map<String, OpenTap> openTaps = new LinkedHashMap<>();
+
+    /**
+     * Number of seconds after its tap ON that an open trip expires, or 0 if trips never expire
+     */
+    private final long expirySeconds;
+
+    /**
+     * Expires the open trips, keyed by PAN
+     */
+    private final TimerWheel<String> expiryTimers = new TimerWheel<>();
+
+    /**
+     * Sequence number given to the next tap passed to {@link #accept(TapDetail)}
+     */
+    private long nextSequence;
+
+    /**
+     * Number of tap OFF events that had no matching tap ON event
+     */
+    private long unmatchedTapOffs;
+
+    /**
+     * Number of trips closed as incomplete because they expired
+     */
+    private long expiredTrips;
+
+    /**
+     * Creates a new TripAssembler.
+     *
+     * @param travelCostService Service used to price the assembled trips
+     * @param tripListener Receives each trip as soon as it is assembled
+     */
+    public TripAssembler(TravelCostService travelCostService, TripListener tripListener) {
+        this(travelCostService, tripListener, 0);
+    }
+
+    /**
+     * Creates a new TripAssembler that closes trips as incomplete once they have been open for too long.
+     *
+     * @param travelCostService Service used to price the assembled trips
+     * @param tripListener Receives each trip as soon as it is assembled
+     * @param expirySeconds Number of seconds after its tap ON that an open trip is closed as incomplete,
+     *                      or 0 if trips never expire
+     */
+    public TripAssembler(TravelCostService travelCostService, TripListener tripListener, long expirySeconds) {
+        this(travelCostService, tripListener, TravelCostService.THROW_ON_REJECT, expirySeconds);
+    }
+
+    /**
+     * Creates a new TripAssembler that reports the trips it cannot price to a listener instead of throwing.
+     *
+     * @param travelCostService Service used to price the assembled trips
+     * @param tripListener Receives each trip as soon as it is assembled
+     * @param rejectListener Receives the taps of each trip that cannot be priced, and each tap OFF without a tap ON,
+     *                       with the reason
+     * @param expirySeconds Number of seconds after its tap ON that an open trip is closed as incomplete,
+     *                      or 0 if trips never expire
+     */
+    public TripAssembler(TravelCostService travelCostService, TripListener tripListener,
+                         TravelCostService.TripRejectListener rejectListener, long expirySeconds) {
+        if (expirySeconds < 0) {
+            throw new IllegalArgumentException("Expiry cannot be negative: " + expirySeconds);
+        }
+        this.travelCostService = travelCostService;
+        this.tripListener = tripListener;
+        this.rejectListener = rejectListener;
+        this.expirySeconds = expirySeconds;
+    }
+
+    /**
+     * Processes the next tap event, numbering taps in the order they are passed in.
+     *
+     * @param tapDetail The tap event to process
+     * @see #accept(long, TapDetail)
+     */
+    public void accept(TapDetail tapDetail) {
+        accept(nextSequence++, tapDetail);
+    }
+
+    /**
+     * Processes the next tap event.
+     * A tap ON closes any trip that is still open for the same card as incomplete and opens a new trip.
+     * A tap OFF closes the open trip for the same card as completed or cancelled.
+     * If expiry is enabled, every trip that expired by the time of this tap is closed as incomplete first,
+     * so a tap OFF that arrives once the trip has expired is treated as one without a tap ON.
+     * A tap OFF without a tap ON is reported to the reject listener as {@link RejectReason#UNMATCHED_TAP_OFF}.
+     *
+     * @param sequence The sequence number of the tap, e.g. its position in the input file
+     * @param tapDetail The tap event to process
+     */
+    public void accept(long sequence, TapDetail tapDetail) {
+        if (expirySeconds > 0) {
+            expiryTimers.advanceTo(tapDetail.getEpochSecondUTC(), this::expire);
+        }
+        OpenTap openTap = openTaps.remove(tapDetail.getPan());
+        if (openTap != null && openTap.expiryTimer() != null) {
+            expiryTimers.cancel(openTap.expiryTimer());
+        }
+        if (tapDetail.getTapType() == TapType.ON) {
+            if (openTap != null) {
+                price(openTap.tapDetail(), tapDetail, sequence, tripListener);
+            }
+            TimerWheel.Timer<String> expiryTimer = expirySeconds > 0
+                    ? expiryTimers.schedule(tapDetail.getPan(), tapDetail.getEpochSecondUTC() + expirySeconds)
+                    : null;
+            openTaps.put(tapDetail.getPan(), new OpenTap(tapDetail, sequence, expiryTimer));
+        } else if (openTap != null) {
+            price(openTap.tapDetail(), tapDetail, sequence, tripListener);
+        } else {
+            unmatchedTapOffs++;
+            rejectListener.onRejectedTrip(RejectReason.UNMATCHED_TAP_OFF, tapDetail, null);
+        }
+    }
+
+    /**
+     * Prices a trip and hands it to the listener, unless it is rejected.
+     */
+    private void price(TapDetail currentTap, TapDetail nextTap, long sequence, TripListener listener) {
+        TripResult tripResult = travelCostService.calculateCost(currentTap, nextTap, rejectListener);
+        if (tripResult != null) {
+            listener.onTrip(tripResult, sequence);
+        }
+    }
+
+    /**
+     * Closes the open trip of a card as incomplete when its expiry timer fires.
+     */
+    private void expire(String pan) {
+        OpenTap openTap = openTaps.remove(pan);
+        expiredTrips++;
+        price(openTap.tapDetail(), null, openTap.sequence(), tripListener);
+    }
+
+    /**
+     * Closes the open trip of a card as incomplete, if there is one.
+     * This can be called as soon as there are no more taps to process for the card, e.g. when taps are sorted by card.
+     *
+     * @param pan The PAN of the card
+     */
+    public void finishCard(String pan) {
+        OpenTap openTap = openTaps.remove(pan);
+        if (openTap == null) {
+            return;
+        }
+        if (openTap.expiryTimer() != null) {
+            expiryTimers.cancel(openTap.expiryTimer());
+        }
+        price(openTap.tapDetail(), null, openTap.sequence(), tripListener);
+    }
+
+    /**
+     * Closes every trip that is still open as incomplete, in the order the trips started.
+     * This should be called once there are no more taps to process.
+     */
+    public void finish() {
+        finish(tripListener);
+    }
+
+    /**
+     * Closes every trip that is still open as incomplete, in the order the trips started,
+     * handing them to the given listener instead of the one this assembler was created with.
+     *
+     * @param finishListener Receives the closed trips together with the sequence number of their tap ON
+     */
+    public void finish(TripListener finishListener) {
+        Iterator<OpenTap> iterator = openTaps.values().iterator();
+        while (iterator.hasNext()) {
+            OpenTap openTap = iterator.next();
+            iterator.remove();
+            if (openTap.expiryTimer() != null) {
+                expiryTimers.cancel(openTap.expiryTimer());
+            }
+            price(openTap.tapDetail(), null, openTap.sequence(), finishListener);
+        }
+    }
+
+    /**
+     * @return The tap ON event of every card that is currently travelling, in the order the trips started
+     */
+    public List<TapDetail> getOpenTaps() {
+        List<TapDetail> tapDetails = new ArrayList<>(openTaps.size());
+        for (OpenTap openTap : openTaps.values()) {
+            tapDetails.add(openTap.tapDetail());
+        }
+        return tapDetails;
+    }
+
+    /**
+     * @return The number of cards that are currently travelling
+     */
+    public int getOpenTripCount() {
+        return openTaps.size();
+    }
+
+    /**
+     * @return The number of trips closed as incomplete because they expired
+     */
+    public long getExpiredTrips() {
+        return expiredTrips;
+    }
+
+    /**
+     * @return The number of tap OFF events that had no matching tap ON event
+     */
+    public long getUnmatchedTapOffs() {
+        return unmatchedTapOffs;
+    }
+}
@@ -0,0 +1,73 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Predicate;
+
+/**
+ * Receives the trips of a TripAssembler, hands the ones that pass validation to a target such as the output file,
+ * and counts the others. Every mode that assembles trips as the taps are read writes its results through one.
+ * This class is not thread-safe: it is used by the thread assembling the trips.
+ */
+class TripResultSink implements TripAssembler.TripListener {
+    /**
+     * Receives the valid trip results, such as {@link younan.george.littlepaycodingchallenge.io.TripResultWriter#write(TripResult)}.
+     */
+    @FunctionalInterface
+    interface Target {
+        /**
+         * Called for every valid trip result, in the order the trips closed.
+         *
+         * @param tripResult The trip result
+         * @throws IOException if the result cannot be written
+         */
+        void write(TripResult tripResult) throws IOException;
+    }
+
+    private final Predicate<TripResult> validator;
+
+    private final Target target;
+
+    /**
+     * Number of trip results that failed validation
+     */
+    private long invalid;
+
+    /**
+     * Creates a sink.
+     *
+     * @param validator Tells whether a trip result is valid, reporting it if it is not
+     * @param target Receives the valid trip results
+     */
+    TripResultSink(Predicate<TripResult> validator, Target target) {
+        this.validator = validator;
+        this.target = target;
+    }
+
+    /**
+     * Writes the trip result if it is valid, or counts it.
+     *
+     * @throws UncheckedIOException if the target cannot write the result
+     */
+    @Override
+    public void onTrip(TripResult tripResult, long sequence) {
+        if (!validator.test(tripResult)) {
+            invalid++;
+            return;
+        }
+        try {
+            target.write(tripResult);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The number of trip results that failed validation
+     */
+    long getInvalid() {
+        return invalid;
+    }
+}
@@ -0,0 +1,52 @@
+package younan.george.littlepaycodingchallenge;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.ResourceUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Runs the application in a JVM of its own, as it is run from the command line, to check that the
+ * one-shot modes exit once they have written their output.
+ */
+class ApplicationExitTest {
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void batchRunShouldExitOnceOutputIsWritten() throws Exception {
+		Path output = tempDir.resolve("output.csv");
+		Process process = new ProcessBuilder(
+				Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+				"-cp", System.getProperty("java.class.path"),
+				LittlepayCodingChallengeApplication.class.getName(),
+				"--file.input=" + ResourceUtils.getFile("classpath:taps-example-input.csv"),
+				"--file.fares=" + ResourceUtils.getFile("classpath:fares.csv"),
+				"--file.output=" + output,
+				"--file.dead-letter=" + tempDir.resolve("dead-letter.csv"),
+				"--processing.mode=BATCH",
+				// Checked often, so a scheduled reload would keep the JVM alive well within the timeout
+				"--file.fares.reload-interval-ms=100")
+				.redirectErrorStream(true)
+				.redirectOutput(tempDir.resolve("application.log").toFile())
+				.start();
+
+		boolean exited = process.waitFor(60, TimeUnit.SECONDS);
+		if (!exited) {
+			process.destroyForcibly();
+		}
+
+		assertThat(exited, is(true));
+		assertThat(process.exitValue(), is(0));
+		assertThat(Files.readAllLines(output).size(), equalTo(4));
+	}
+}
@@ -0,0 +1,114 @@
+package younan.george.littlepaycodingchallenge.dto;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class StopIdTest {
+    @AfterEach
+    void resetStops() {
+        StopId.reset();
+    }
+
+    @Test
+    void shouldLookUpStopsIgnoringCaseAndWhitespace() {
+        assertThat(StopId.lookup("Stop1"), sameInstance(StopId.STOP1));
+        assertThat(StopId.lookup(" stop2 "), sameInstance(StopId.STOP2));
+        assertThat(StopId.valueOf("STOP3"), sameInstance(StopId.STOP3));
+        assertThat(StopId.STOP1.toString(), equalTo("STOP1"));
+    }
+
+    @Test
+    void shouldLookUpStopsFromBytes() {
+        ByteBuffer buffer = ByteBuffer.wrap("ID, stop3, x".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(StopId.lookup(buffer, 4, 9), sameInstance(StopId.STOP3));
+        assertThat(StopId.lookup(buffer, 0, 2), is(nullValue()));
+    }
+
+    @Test
+    void shouldReturnNullForUnknownStops() {
+        assertThat(StopId.lookup("Stop999"), is(nullValue()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> StopId.valueOf("Stop999"));
+    }
+
+    @Test
+    void shouldInternRegisteredStops() {
+        StopId registered = StopId.of("Flinders Street");
+
+        assertThat(StopId.of("FLINDERS STREET"), sameInstance(registered));
+        assertThat(StopId.lookup("flinders street"), sameInstance(registered));
+        assertThat(StopId.byId(registered.id()), sameInstance(registered));
+        assertThat(registered.name(), equalTo("FLINDERS STREET"));
+    }
+
+    @Test
+    void shouldGrowRegistry() {
+        StopId[] stops = new StopId[100];
+        for (int i = 0; i < stops.length; i++) {
+            stops[i] = StopId.of("GrowthStop" + i);
+        }
+
+        for (int i = 0; i < stops.length; i++) {
+            assertThat(StopId.lookup("growthstop" + i), sameInstance(stops[i]));
+        }
+        assertThat(StopId.count(), is(103));
+    }
+
+    @Test
+    void shouldRegisterManyStopsAtOnce() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            names.add("BulkStop" + i);
+        }
+        names.add("bulkstop7");
+        names.add("Stop2");
+
+        List<StopId> stops = StopId.registerAll(names);
+
+        assertThat(stops.size(), is(names.size()));
+        assertThat(StopId.count(), is(3 + 50_000));
+        assertThat(StopId.lookup("BULKSTOP49999"), sameInstance(stops.get(49_999)));
+        assertThat(stops.get(50_000), sameInstance(stops.get(7)));
+        assertThat(stops.get(50_001), sameInstance(StopId.STOP2));
+    }
+
+    @Test
+    void shouldRegisterNoStopIfAnyNameIsBlank() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> StopId.registerAll(List.of("Richmond", " ")));
+
+        assertThat(StopId.lookup("Richmond"), is(nullValue()));
+        assertThat(StopId.count(), is(3));
+    }
+
+    @Test
+    void shouldForgetRegisteredStopsOnReset() {
+        int builtIn = StopId.count();
+        StopId.of("Southern Cross");
+
+        StopId.reset();
+
+        assertThat(StopId.lookup("Southern Cross"), is(nullValue()));
+        assertThat(StopId.count(), is(builtIn));
+        assertThat(StopId.lookup("Stop1"), sameInstance(StopId.STOP1));
+        assertThat(StopId.of("Parliament").id(), is(builtIn));
+    }
+
+    @Test
+    void shouldLookUpNonAsciiNames() {
+        StopId registered = StopId.of("Gare de Lyon é");
+
+        assertThat(StopId.lookup("gare de lyon é"), sameInstance(registered));
+    }
+}
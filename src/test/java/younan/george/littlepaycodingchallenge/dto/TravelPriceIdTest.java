@@ -1,7 +1,6 @@
 package younan.george.littlepaycodingchallenge.dto;
 
 import org.junit.jupiter.api.Test;
-import younan.george.littlepaycodingchallenge.enums.StopId;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
@@ -0,0 +1,95 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.enums.RejectReason;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryTapFileTest {
+    private static final long START = 1_674_392_400L;
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void resetStops() {
+        StopId.reset();
+    }
+
+    @Test
+    void shouldReadTheTapsThatWereWritten() throws IOException {
+        Path path = tempDir.resolve("taps.bin");
+        List<TapDetail> taps = new ArrayList<>();
+        for (int id = 1; id <= 100; id++) {
+            taps.add(new TapDetail(id, START + id, id % 2 == 0 ? TapType.OFF : TapType.ON, id % 3 == 0 ? StopId.STOP3 : StopId.STOP1,
+                    "Company" + id % 2, "Bus" + id % 5, id == 50 ? "Compañía" : "55000055555555" + id % 10));
+        }
+
+        // Buffers of a few records make the writer and reader go back to the file many times
+        try (BinaryTapFile.Writer writer = new BinaryTapFile.Writer(path, 3 * BinaryTapFile.RECORD_SIZE)) {
+            for (TapDetail tap : taps) {
+                writer.write(tap);
+            }
+            assertThat(writer.getDictionarySize(), equalTo(2 + 2 + 5 + 11));
+        }
+        List<TapDetail> read = new ArrayList<>();
+        long count = BinaryTapFile.read(path, 4 * BinaryTapFile.RECORD_SIZE, read::add);
+
+        assertThat(count, equalTo(100L));
+        assertThat(read, equalTo(taps));
+        assertThat(read.get(2).getBusId(), sameInstance(read.get(7).getBusId()));
+        assertThat(Files.size(path), equalTo(12L + 100 * BinaryTapFile.RECORD_SIZE + 4 + 20 * 4 + 206 + 16));
+    }
+
+    @Test
+    void shouldRejectFilesThatAreNotCompleteTapFiles() throws IOException {
+        Path path = tempDir.resolve("taps.bin");
+        try (BinaryTapFile.Writer writer = new BinaryTapFile.Writer(path, 1024)) {
+            writer.write(new TapDetail(1, START, TapType.ON, StopId.STOP1, "Company1", "Bus37", "5500005555555559"));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        Path csv = Files.writeString(tempDir.resolve("taps.csv"), "ID, DateTimeUTC, TapType, StopId, CompanyId, BusID, PAN\n");
+
+        assertThrows(IOException.class, () -> BinaryTapFile.read(path, 1024, tap -> { }));
+        assertThrows(IOException.class, () -> BinaryTapFile.read(csv, 1024, tap -> { }));
+    }
+
+    @Test
+    void shouldRejectTapsAtUnknownStopsWithoutRegisteringThem() throws IOException {
+        Path path = tempDir.resolve("taps.bin");
+        try (BinaryTapFile.Writer writer = new BinaryTapFile.Writer(path, 1024)) {
+            writer.write(new TapDetail(1, START, TapType.ON, StopId.of("Stop9"), "Company1", "Bus37", "5500005555555559"));
+            writer.write(new TapDetail(2, START + 60, TapType.OFF, StopId.STOP2, "Company1", "Bus37", "5500005555555559"));
+        }
+        StopId.reset();
+        List<TapDetail> read = new ArrayList<>();
+        List<String> rejected = new ArrayList<>();
+
+        long count = BinaryTapFile.read(path, 1024, read::add, (reason, line) -> rejected.add(reason + ": " + line.get()));
+
+        assertThat(count, equalTo(1L));
+        assertThat(read.get(0).getId(), equalTo(2));
+        assertThat(rejected, contains(RejectReason.UNKNOWN_STOP + ": 1, 22-01-2023 13:00:00, ON, STOP9, Company1, Bus37, 5500005555555559"));
+        assertThat(StopId.lookup("Stop9"), nullValue());
+    }
+}
@@ -0,0 +1,92 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+import younan.george.littlepaycodingchallenge.enums.RejectReason;
+import younan.george.littlepaycodingchallenge.enums.TripStatus;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+class BinaryTripFileTest {
+    private static final TripResult COMPLETED = new TripResult(1_674_392_400L, 1_674_392_700L, 300, StopId.STOP1, StopId.STOP2,
+            new BigDecimal("3.25"), "Company1", "Bus37", "5500005555555559", TripStatus.COMPLETED);
+    private static final TripResult INCOMPLETE = new TripResult(1_674_379_200L, 1_674_379_200L, 0, StopId.STOP3, StopId.STOP1,
+            new BigDecimal("7.30"), "Company1", "Bus36", "4111111111111111", TripStatus.INCOMPLETE);
+    private static final TripResult CANCELLED = new TripResult(1_674_460_800L, 1_674_460_920L, 120, StopId.STOP1, StopId.STOP1,
+            BigDecimal.ZERO, "Company1", "Bus37", "4111111111111111", TripStatus.CANCELLED);
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void resetStops() {
+        StopId.reset();
+    }
+
+    @Test
+    void shouldKeepTheScaleOfEachCharge() throws IOException {
+        Path path = tempDir.resolve("trips.bin");
+        try (BinaryTripFile.Writer writer = new BinaryTripFile.Writer(path, 1024, false)) {
+            writer.write(COMPLETED);
+            writer.write(INCOMPLETE);
+            writer.write(CANCELLED);
+        }
+
+        assertThat(read(path), contains(COMPLETED, INCOMPLETE, CANCELLED));
+        assertThat(read(path).get(2).getChargeAmount().toString(), equalTo("0"));
+    }
+
+    @Test
+    void shouldBeCompleteAfterEveryFlushAndAppendToTheEnd() throws IOException {
+        Path path = tempDir.resolve("trips.bin");
+        try (BinaryTripFile.Writer writer = new BinaryTripFile.Writer(path, 1024, false)) {
+            writer.write(COMPLETED);
+            writer.flush();
+            assertThat(read(path), contains(COMPLETED));
+            writer.write(INCOMPLETE);
+        }
+        try (BinaryTripFile.Writer writer = new BinaryTripFile.Writer(path, 1024, true)) {
+            writer.write(CANCELLED);
+        }
+
+        assertThat(read(path), contains(COMPLETED, INCOMPLETE, CANCELLED));
+    }
+
+    @Test
+    void shouldRejectTripsBetweenUnknownStopsWithoutRegisteringThem() throws IOException {
+        Path path = tempDir.resolve("trips.bin");
+        try (BinaryTripFile.Writer writer = new BinaryTripFile.Writer(path, 1024, false)) {
+            writer.write(COMPLETED);
+            writer.write(new TripResult(1_674_392_400L, 1_674_392_700L, 300, StopId.STOP1, StopId.of("Stop9"),
+                    new BigDecimal("3.25"), "Company1", "Bus37", "5500005555555559", TripStatus.COMPLETED));
+        }
+        StopId.reset();
+        List<TripResult> tripResults = new ArrayList<>();
+        List<String> rejected = new ArrayList<>();
+
+        long count = BinaryTripFile.read(path, 1024, tripResults::add, (reason, line) -> rejected.add(reason + ": " + line.get()));
+
+        assertThat(count, equalTo(1L));
+        assertThat(tripResults, contains(COMPLETED));
+        assertThat(rejected, contains(RejectReason.UNKNOWN_STOP + ": 1674392400, 1674392700, 300, STOP1, STOP9, 3.25, Company1, Bus37, 5500005555555559, COMPLETED"));
+        assertThat(StopId.lookup("Stop9"), nullValue());
+    }
+
+    private static List<TripResult> read(Path path) throws IOException {
+        List<TripResult> tripResults = new ArrayList<>();
+        BinaryTripFile.read(path, 1024, tripResults::add);
+        return tripResults;
+    }
+}
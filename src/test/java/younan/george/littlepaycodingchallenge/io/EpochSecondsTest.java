@@ -0,0 +1,39 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EpochSecondsTest {
+
+    @Test
+    void shouldMatchJavaTimeAcrossLeapYearsAndCenturies() {
+        for (LocalDate date = LocalDate.of(1599, 12, 1); date.getYear() < 2401; date = date.plusDays(13)) {
+            ZonedDateTime dateTime = date.atTime(23, 59, 58).atZone(ZoneOffset.UTC);
+            long epochSecond = EpochSeconds.of(date.getYear(), date.getMonthValue(), date.getDayOfMonth(), 23, 59, 58);
+
+            assertThat(dateTime.toString(), epochSecond, equalTo(dateTime.toEpochSecond()));
+            assertThat(EpochSeconds.year(epochSecond), equalTo(date.getYear()));
+            assertThat(EpochSeconds.month(epochSecond), equalTo(date.getMonthValue()));
+            assertThat(EpochSeconds.dayOfMonth(epochSecond), equalTo(date.getDayOfMonth()));
+            assertThat(EpochSeconds.secondOfDay(epochSecond), equalTo(86_398));
+        }
+    }
+
+    @Test
+    void shouldRejectOutOfRangeFields() {
+        assertThat(EpochSeconds.of(2024, 2, 29, 0, 0, 0), equalTo(ZonedDateTime.of(2024, 2, 29, 0, 0, 0, 0, ZoneOffset.UTC).toEpochSecond()));
+        assertThrows(DateTimeException.class, () -> EpochSeconds.of(2023, 2, 29, 0, 0, 0));
+        assertThrows(DateTimeException.class, () -> EpochSeconds.of(2023, 13, 1, 0, 0, 0));
+        assertThrows(DateTimeException.class, () -> EpochSeconds.of(2023, 4, 31, 0, 0, 0));
+        assertThrows(DateTimeException.class, () -> EpochSeconds.of(2023, 1, 1, 24, 0, 0));
+        assertThrows(DateTimeException.class, () -> EpochSeconds.of(2023, 1, 1, 0, 60, 0));
+    }
+}
@@ -0,0 +1,45 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class LogSamplerTest {
+    long now = 1_000;
+
+    @Test
+    void shouldLogFirstSamplesThenOnePerIntervalWithTheNumberSuppressed() {
+        LogSampler sampler = new LogSampler(2, 2, Duration.ofNanos(100), () -> now);
+
+        assertThat(sampler.sample(0), is(0L));
+        assertThat(sampler.sample(0), is(0L));
+        assertThat(sampler.wouldLog(0), is(false));
+        assertThat(sampler.sample(0), is(LogSampler.SUPPRESSED));
+        assertThat(sampler.sample(0), is(LogSampler.SUPPRESSED));
+        // Each key has samples of its own
+        assertThat(sampler.sample(1), is(0L));
+
+        now += 100;
+        assertThat(sampler.wouldLog(0), is(true));
+        assertThat(sampler.sample(0), is(2L));
+        assertThat(sampler.sample(0), is(LogSampler.SUPPRESSED));
+        now += 99;
+        assertThat(sampler.sample(0), is(LogSampler.SUPPRESSED));
+        now += 1;
+        assertThat(sampler.sample(0), is(2L));
+    }
+
+    @Test
+    void shouldOnlyLogFirstSamplesWithoutInterval() {
+        LogSampler sampler = new LogSampler(1, 1, Duration.ZERO, () -> now);
+
+        assertThat(sampler.sample(0), is(0L));
+        for (int event = 0; event < 1000; event++) {
+            now += 1_000_000_000L;
+            assertThat(sampler.sample(0), is(LogSampler.SUPPRESSED));
+        }
+    }
+}
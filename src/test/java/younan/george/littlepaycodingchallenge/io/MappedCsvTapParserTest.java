@@ -0,0 +1,67 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.ResourceUtils;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.enums.RejectReason;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class MappedCsvTapParserTest {
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldParseExampleInput() throws Exception {
+        List<TapDetail> taps = new ArrayList<>();
+
+        long rejected = new MappedCsvTapParser().parse(ResourceUtils.getFile("classpath:taps-example-input.csv").toPath(), taps::add);
+
+        assertThat(rejected, is(0L));
+        assertThat(taps.size(), is(6));
+        assertThat(taps.get(0), equalTo(new TapDetail(1, ZonedDateTime.parse("22-01-2023 13:00:00", formatter),
+                TapType.ON, StopId.STOP1, "Company1", "Bus37", "5500005555555559")));
+        assertThat(taps.get(5), equalTo(new TapDetail(6, ZonedDateTime.parse("24-01-2023 16:30:00", formatter),
+                TapType.OFF, StopId.STOP2, "Company1", "Bus37", "5500005555555559")));
+    }
+
+    @Test
+    void shouldSkipBadRowsAndHandleWindowBoundaries() throws Exception {
+        Path input = tempDir.resolve("taps.csv");
+        Files.writeString(input, "ID, DateTimeUTC, TapType, StopId, CompanyId, BusID, PAN\r\n"
+                + "1, 22-01-2023 13:00:00, ON, stop1, Company1, Bus37, 5500005555555559\r\n"
+                + "2, 22-01-2023 13:05:00, SIDEWAYS, Stop2, Company1, Bus37, 5500005555555559\n"
+                + "3, 2023-01-22 13:05:00, OFF, Stop2, Company1, Bus37, 5500005555555559\n"
+                + "4, 22-01-2023 13:05:00, OFF, Stop2\n"
+                + "5, 22-01-2023 13:06:00, OFF, STOP3, Company1, Bus37, 5500005555555559");
+        List<TapDetail> taps = new ArrayList<>();
+        List<RejectReason> reasons = new ArrayList<>();
+
+        long rejected = new MappedCsvTapParser(100, new StringInterner(4), new StringInterner(4), new StringInterner(4),
+                (reason, line) -> reasons.add(reason)).parse(input, taps::add);
+
+        assertThat(rejected, is(3L));
+        assertThat(reasons, equalTo(List.of(RejectReason.UNKNOWN_TAP_TYPE, RejectReason.INVALID_TIMESTAMP, RejectReason.MALFORMED_ROW)));
+        assertThat(taps.size(), is(2));
+        assertThat(taps.get(0).getStopId(), equalTo(StopId.STOP1));
+        assertThat(taps.get(0).getPan(), equalTo("5500005555555559"));
+        assertThat(taps.get(1).getId(), is(5));
+        assertThat(taps.get(1).getStopId(), equalTo(StopId.STOP3));
+        assertThat(taps.get(1).getDateTimeUTC(), equalTo(ZonedDateTime.parse("22-01-2023 13:06:00", formatter)));
+    }
+}
@@ -0,0 +1,64 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class ParallelCsvTapParserTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldParseChunksInFileOrderWithoutSplittingLines() throws Exception {
+        Path input = tempDir.resolve("taps.csv");
+        StringBuilder csv = new StringBuilder("ID, DateTimeUTC, TapType, StopId, CompanyId, BusID, PAN\n");
+        for (int id = 1; id <= 1000; id++) {
+            if (id % 100 == 0) {
+                csv.append(id).append(", not a time, ON, Stop1, Company1, Bus37, 5500005555555559\n");
+            } else {
+                csv.append(id).append(", 22-01-2023 13:").append(String.format("%02d", id % 60))
+                        .append(":00, ON, Stop1, Company1, Bus").append(id % 7).append(", 55000055555555").append(id % 10).append("\r\n");
+            }
+        }
+        Files.writeString(input, csv);
+        List<TapDetail> expected = new ArrayList<>();
+        long expectedRejected = new MappedCsvTapParser().parse(input, expected::add);
+
+        // Odd chunk sizes end chunks at arbitrary points of a line, including between \r and \n
+        for (int chunkSize : new int[]{1, 37, 71, 4096, 1 << 20}) {
+            ParallelCsvTapParser parser = new ParallelCsvTapParser(chunkSize, 4, 16);
+            List<TapDetail> taps = new ArrayList<>();
+
+            long rejected = parser.parse(input, taps::add);
+
+            assertThat(rejected, is(expectedRejected));
+            assertThat(taps, equalTo(expected));
+        }
+        assertThat(expectedRejected, is(10L));
+        assertThat(expected.size(), is(990));
+    }
+
+    @Test
+    void shouldParseFileWithoutTrailingNewline() throws Exception {
+        Path input = tempDir.resolve("taps.csv");
+        Files.writeString(input, "ID, DateTimeUTC, TapType, StopId, CompanyId, BusID, PAN\n"
+                + "1, 22-01-2023 13:00:00, ON, Stop1, Company1, Bus37, 5500005555555559\n"
+                + "2, 22-01-2023 13:05:00, OFF, Stop2, Company1, Bus37, 5500005555555559");
+        ParallelCsvTapParser parser = new ParallelCsvTapParser(60, 2, 16);
+        List<TapDetail> taps = new ArrayList<>();
+
+        assertThat(parser.parse(input, taps::add), is(0L));
+        assertThat(taps.size(), is(2));
+        assertThat(taps.get(1).getId(), is(2));
+        assertThat(parser.getChunks(), is(2L));
+    }
+}
@@ -0,0 +1,63 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+class StringInternerTest {
+
+    @Test
+    void shouldShareRepeatedValuesAndCountHits() {
+        StringInterner interner = new StringInterner(16);
+        ByteBuffer buffer = ByteBuffer.wrap(" Bus37, Bus37".getBytes(StandardCharsets.UTF_8));
+
+        String first = interner.intern(buffer, 1, 6);
+        String second = interner.intern(buffer, 8, 13);
+        String third = interner.intern(" Bus37 ", 1, 6);
+
+        assertThat(first, equalTo("Bus37"));
+        assertThat(second, sameInstance(first));
+        assertThat(third, sameInstance(first));
+        assertThat(interner.getHits(), equalTo(2L));
+        assertThat(interner.getMisses(), equalTo(1L));
+        assertThat(interner.getHitRate(), equalTo(2.0 / 3));
+    }
+
+    @Test
+    void shouldDecodeNonAsciiValues() {
+        StringInterner interner = new StringInterner(16);
+        byte[] bytes = "Bäckerei".getBytes(StandardCharsets.UTF_8);
+
+        String first = interner.intern(ByteBuffer.wrap(bytes), 0, bytes.length);
+
+        assertThat(first, equalTo("Bäckerei"));
+        assertThat(interner.intern(ByteBuffer.wrap(bytes), 0, bytes.length), sameInstance(first));
+    }
+
+    @Test
+    void shouldStayBoundedWhenThereAreMoreValuesThanSlots() {
+        StringInterner interner = new StringInterner(4);
+        for (int pan = 0; pan < 100; pan++) {
+            assertThat(interner.intern("PAN" + pan, 0, 3 + String.valueOf(pan).length()), equalTo("PAN" + pan));
+        }
+
+        assertThat(interner.getCapacity(), equalTo(4));
+        assertThat(interner.getMisses(), equalTo(100L));
+        assertThat(interner.getEvictions(), equalTo(96L));
+    }
+
+    @Test
+    void shouldCreateNewInstancesWhenDisabled() {
+        StringInterner interner = new StringInterner(0);
+        String value = " Company1";
+
+        assertThat(interner.intern(value, 1, value.length()), not(sameInstance(interner.intern(value, 1, value.length()))));
+        assertThat(interner.getHits(), equalTo(0L));
+    }
+}
@@ -0,0 +1,93 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TapCheckpointTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldLoadWhatWasSaved() throws IOException {
+        Path path = tempDir.resolve("checkpoint.csv");
+        TapCheckpoint checkpoint = new TapCheckpoint(1234, 0x89abcdefL, List.of(
+                new TapDetail(3, ZonedDateTime.of(2023, 1, 22, 9, 20, 0, 0, ZoneOffset.UTC), TapType.ON, StopId.STOP3, "Company1", "Bus36", "4111111111111111"),
+                new TapDetail(7, ZonedDateTime.of(2023, 1, 22, 9, 25, 5, 0, ZoneOffset.UTC), TapType.ON, StopId.STOP1, "Company2", "Bus1", "5500005555555559")));
+
+        checkpoint.save(path);
+        checkpoint.save(path);
+
+        assertThat(TapCheckpoint.load(path), equalTo(checkpoint));
+    }
+
+    @Test
+    void shouldLoadThePositionOfEveryTailedFile() throws IOException {
+        Path path = tempDir.resolve("checkpoint.csv");
+        TapCheckpoint checkpoint = new TapCheckpoint(0, 0, List.of(
+                new TapDetail(3, ZonedDateTime.of(2023, 1, 22, 9, 20, 0, 0, ZoneOffset.UTC), TapType.ON, StopId.STOP3, "Company1", "Bus36", "4111111111111111")),
+                List.of(new TapCheckpoint.FilePosition("1.csv", 345, 0x1234L), new TapCheckpoint.FilePosition("taps, day 2.csv", 0, 0)));
+
+        checkpoint.save(path);
+
+        assertThat(TapCheckpoint.load(path), equalTo(checkpoint));
+    }
+
+    @Test
+    void shouldStartFromTheBeginningWithoutACheckpoint() throws IOException {
+        assertThat(TapCheckpoint.load(tempDir.resolve("missing.csv")), equalTo(TapCheckpoint.START));
+    }
+
+    @Test
+    void shouldOnlyMatchFilesThatStillStartWithTheSameBytes() throws IOException {
+        Path input = tempDir.resolve("taps.csv");
+        Files.writeString(input, TapCsvFormat.HEADER + "\n1, 22-01-2023 13:00:00, ON, Stop1, Company1, Bus37, 5500005555555559\n");
+        long offset = Files.size(input);
+        TapCheckpoint checkpoint = new TapCheckpoint(offset, TapCheckpoint.fingerprint(input, offset), List.of());
+
+        Files.writeString(input, "2, 22-01-2023 13:05:00, OFF, Stop2, Company1, Bus37, 5500005555555559\n", StandardOpenOption.APPEND);
+        assertThat(checkpoint.matches(input), equalTo(true));
+
+        // A rotated file that has already grown past the offset
+        Files.writeString(input, TapCsvFormat.HEADER + "\n1, 23-01-2023 08:00:00, ON, Stop3, Company1, Bus37, 5500005555555559\n"
+                + "2, 23-01-2023 08:05:00, OFF, Stop2, Company1, Bus37, 5500005555555559\n");
+        assertThat(checkpoint.matches(input), equalTo(false));
+
+        Files.writeString(input, TapCsvFormat.HEADER + "\n");
+        assertThat(checkpoint.matches(input), equalTo(false));
+    }
+
+    @Test
+    void shouldMatchAnyFileFromACheckpointWithoutAFingerprint() throws IOException {
+        Path path = tempDir.resolve("checkpoint.csv");
+        Path input = Files.writeString(tempDir.resolve("taps.csv"), TapCsvFormat.HEADER + "\n");
+        Files.writeString(path, "Offset, 12\n" + TapCsvFormat.HEADER + "\n");
+
+        TapCheckpoint checkpoint = TapCheckpoint.load(path);
+
+        assertThat(checkpoint.getFingerprint(), equalTo(TapCheckpoint.NO_FINGERPRINT));
+        assertThat(checkpoint.matches(input), equalTo(true));
+    }
+
+    @Test
+    void shouldRejectInvalidCheckpoints() throws IOException {
+        Path path = tempDir.resolve("checkpoint.csv");
+        Files.writeString(path, "Offset, 12\n1, 22-01-2023 13:00:00, ON, Stop1, Company1\n");
+
+        assertThrows(IOException.class, () -> TapCheckpoint.load(path));
+    }
+}
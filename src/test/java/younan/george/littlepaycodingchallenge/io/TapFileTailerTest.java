@@ -0,0 +1,103 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.hasSize;
+
+class TapFileTailerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldReadEachCompleteLineOnceAsItIsAppended() throws Exception {
+        List<Integer> ids = new CopyOnWriteArrayList<>();
+        Path file = tempDir.resolve("taps.csv");
+        Files.writeString(file, "ID, DateTimeUTC, TapType, StopId, CompanyId, BusID, PAN\n"
+                + "1, 22-01-2023 13:00:00, ON, Stop1, Company1, Bus37, 5500005555555559\n");
+
+        try (TapFileTailer tailer = new TapFileTailer(tempDir, "*.csv", 50, new MappedCsvTapParser(), tapDetail -> ids.add(tapDetail.getId()))) {
+            Thread thread = new Thread(tailer);
+            thread.start();
+            await(() -> ids.size() == 1);
+
+            // The second line is only read once it is complete
+            Files.writeString(file, "2, 22-01-2023 13:05:00, OFF, Sto", StandardOpenOption.APPEND);
+            Thread.sleep(200);
+            assertThat(ids, hasSize(1));
+            Files.writeString(file, "p2, Company1, Bus37, 5500005555555559\n", StandardOpenOption.APPEND);
+            Files.writeString(tempDir.resolve("ignored.txt"), "3, 22-01-2023 13:05:00, ON, Stop2, Company1, Bus37, 4111111111111111\n");
+            Files.writeString(tempDir.resolve("more.csv"), "4, 22-01-2023 13:06:00, ON, Stop2, Company1, Bus37, 4111111111111111\n");
+            await(() -> ids.size() == 3);
+
+            tailer.close();
+            thread.join();
+        }
+
+        assertThat(ids, containsInAnyOrder(1, 2, 4));
+    }
+
+    @Test
+    void shouldResumeFromTheOffsetsOfAnEarlierTailer() throws Exception {
+        List<Integer> ids = new CopyOnWriteArrayList<>();
+        Path file = tempDir.resolve("taps.csv");
+        Files.writeString(file, "1, 22-01-2023 13:00:00, ON, Stop1, Company1, Bus37, 5500005555555559\n");
+        Map<Path, Long> offsets;
+        try (TapFileTailer tailer = new TapFileTailer(tempDir, "*.csv", 50, new MappedCsvTapParser(), tapDetail -> ids.add(tapDetail.getId()))) {
+            Thread thread = new Thread(tailer);
+            thread.start();
+            await(() -> ids.size() == 1);
+            tailer.close();
+            thread.join();
+            offsets = tailer.getOffsets();
+        }
+
+        Files.writeString(file, "2, 22-01-2023 13:05:00, OFF, Stop2, Company1, Bus37, 5500005555555559\n", StandardOpenOption.APPEND);
+        try (TapFileTailer tailer = new TapFileTailer(tempDir, "*.csv", 50, new MappedCsvTapParser(), tapDetail -> ids.add(tapDetail.getId()))) {
+            tailer.resume(offsets);
+            Thread thread = new Thread(tailer);
+            thread.start();
+            await(() -> ids.size() == 2);
+            tailer.close();
+            thread.join();
+        }
+
+        assertThat(ids, contains(1, 2));
+        assertThat(offsets, equalTo(Map.of(file, (long) "1, 22-01-2023 13:00:00, ON, Stop1, Company1, Bus37, 5500005555555559\n".length())));
+    }
+
+    @Test
+    void shouldStopTailingWhenListenerFails() throws Exception {
+        Files.writeString(tempDir.resolve("taps.csv"), "1, 22-01-2023 13:00:00, ON, Stop1, Company1, Bus37, 5500005555555559\n");
+        TapFileTailer tailer = new TapFileTailer(tempDir, "*.csv", 50, new MappedCsvTapParser(), tapDetail -> {
+            throw new UncheckedIOException(new IOException("Disk full"));
+        });
+
+        IllegalStateException failure = Assertions.assertThrows(IllegalStateException.class, tailer::run);
+
+        assertThat(failure.getCause(), instanceOf(UncheckedIOException.class));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+class TapRunFileTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldReadTheTapsInTheOrderTheyWereWritten() throws IOException {
+        Path path = tempDir.resolve("taps.run");
+        TapDetail first = new TapDetail(3, 1_674_379_200L, TapType.ON, StopId.STOP3, "Company1", "Bus36", "4111111111111111");
+        TapDetail second = new TapDetail(7, 1_674_379_500L, TapType.OFF, StopId.STOP1, "Compañía", "Bus1", "5500005555555559");
+
+        try (TapRunFile.Writer writer = new TapRunFile.Writer(path, 16)) {
+            writer.write(42, first);
+            writer.write(Long.MAX_VALUE, second);
+            assertThat(writer.getCount(), equalTo(2L));
+        }
+
+        try (TapRunFile.Reader reader = new TapRunFile.Reader(path, 16)) {
+            assertThat(reader.next(), is(true));
+            assertThat(reader.getSequence(), equalTo(42L));
+            assertThat(reader.getTapDetail(), equalTo(first));
+            assertThat(reader.next(), is(true));
+            assertThat(reader.getSequence(), equalTo(Long.MAX_VALUE));
+            assertThat(reader.getTapDetail(), equalTo(second));
+            assertThat(reader.next(), is(false));
+            assertThat(reader.getTapDetail(), nullValue());
+        }
+    }
+}
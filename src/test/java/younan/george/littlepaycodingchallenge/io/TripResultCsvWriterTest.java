@@ -0,0 +1,64 @@
+package younan.george.littlepaycodingchallenge.io;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+import younan.george.littlepaycodingchallenge.enums.TripStatus;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class TripResultCsvWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    List<TripResult> tripResults = List.of(
+            trip(ZonedDateTime.of(2023, 1, 22, 13, 0, 0, 0, ZoneOffset.UTC), new BigDecimal("3.25"), "Bus37"),
+            trip(ZonedDateTime.of(2023, 1, 22, 9, 20, 7, 0, ZoneOffset.UTC), new BigDecimal("7.30"), "Bus36"),
+            trip(ZonedDateTime.of(2023, 1, 23, 8, 0, 0, 0, ZoneOffset.UTC), BigDecimal.ZERO, "Bus37"),
+            trip(ZonedDateTime.of(2023, 1, 23, 8, 0, 0, 500, ZoneOffset.UTC), new BigDecimal("-0.05"), "Busé"),
+            trip(ZonedDateTime.of(2023, 1, 23, 8, 0, 0, 0, ZoneId.of("Australia/Sydney")), new BigDecimal("1E+3"), "Bus1"),
+            trip(ZonedDateTime.of(2023, 1, 23, 8, 0, 0, 0, ZoneOffset.UTC), new BigDecimal("0.00000001"), "Bus2"),
+            trip(ZonedDateTime.of(2023, 1, 23, 8, 0, 0, 0, ZoneOffset.UTC), new BigDecimal("123456789012345678901.5"), "Bus3")
+    );
+
+    @Test
+    void shouldWriteSameBytesAsStringJoin() throws Exception {
+        Path output = tempDir.resolve("output.csv");
+        StringBuilder expected = new StringBuilder(TripResultCsvWriter.HEADER_ROW);
+
+        try (TripResultCsvWriter writer = new TripResultCsvWriter(output, 64)) {
+            for (TripResult tripResult : tripResults) {
+                writer.write(tripResult);
+                expected.append(toCsvRow(tripResult));
+            }
+            assertThat(writer.getRowsWritten(), is((long) tripResults.size()));
+        }
+
+        assertThat(Files.readString(output), equalTo(expected.toString()));
+    }
+
+    // the row format the producer used before the writer existed
+    private static String toCsvRow(TripResult result) {
+        return StringUtils.join(result.getStarted(), ",", result.getFinished(), ",", result.getDurationSecs(), ",",
+                result.getFromStopId(), ",", result.getToStopId(), ",", result.getChargeAmount(), ",",
+                result.getCompanyId(), ",", result.getBusID(), ",", result.getStatus(), System.lineSeparator());
+    }
+
+    private static TripResult trip(ZonedDateTime started, BigDecimal chargeAmount, String busId) {
+        return new TripResult(started, started.plusSeconds(65), 65, StopId.STOP1, StopId.STOP2, chargeAmount,
+                "Company1", busId, "5500005555555559", TripStatus.COMPLETED);
+    }
+}
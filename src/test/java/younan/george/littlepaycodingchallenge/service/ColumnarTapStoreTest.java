@@ -0,0 +1,50 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.junit.jupiter.api.Test;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ColumnarTapStoreTest {
+    private static final ZonedDateTime START = ZonedDateTime.of(2023, 1, 22, 13, 0, 0, 0, ZoneOffset.UTC);
+
+    @Test
+    void shouldReturnAppendedTapsAfterGrowing() {
+        ColumnarTapStore tapStore = new ColumnarTapStore(2);
+        List<TapDetail> taps = new ArrayList<>();
+        for (int id = 1; id <= 100; id++) {
+            TapDetail tap = new TapDetail(id, START.plusMinutes(id), id % 2 == 0 ? TapType.OFF : TapType.ON,
+                    id % 3 == 0 ? StopId.STOP3 : StopId.STOP1, "Company" + id % 2, "Bus" + id % 5, "5500005555555" + id % 7);
+            taps.add(tap);
+            assertThat(tapStore.append(tap), equalTo(id - 1));
+        }
+
+        assertThat(tapStore.size(), equalTo(100));
+        assertThat(tapStore.getPanCount(), equalTo(7));
+        for (int row = 0; row < taps.size(); row++) {
+            assertThat(tapStore.get(row), equalTo(taps.get(row)));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> tapStore.getId(100));
+    }
+
+    @Test
+    void shouldShareRepeatedValues() {
+        ColumnarTapStore tapStore = new ColumnarTapStore();
+        tapStore.append(new TapDetail(1, START, TapType.ON, StopId.STOP1, new String("Company1"), "Bus37", new String("5500005555555559")));
+        tapStore.append(new TapDetail(2, START, TapType.OFF, StopId.STOP2, new String("Company1"), "Bus37", new String("5500005555555559")));
+
+        assertThat(tapStore.getCompanyId(1), sameInstance(tapStore.getCompanyId(0)));
+        assertThat(tapStore.getPan(1), sameInstance(tapStore.getPan(0)));
+        assertThat(tapStore.getPanCode(1), equalTo(tapStore.getPanCode(0)));
+    }
+}
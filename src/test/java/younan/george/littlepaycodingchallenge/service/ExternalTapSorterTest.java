@@ -0,0 +1,84 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+class ExternalTapSorterTest {
+    private static final long START = 1_674_392_400L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldMergeSpilledRunsIntoAStableSortByPanAndTime() throws IOException {
+        List<TapDetail> taps = randomTaps(1000);
+        List<TapDetail> sorted = new ArrayList<>();
+        List<Long> sequences = new ArrayList<>();
+
+        // Runs of 7 taps merged 3 at a time need several intermediate merges
+        try (ExternalTapSorter sorter = new ExternalTapSorter(tempDir, 7, 3, 3)) {
+            taps.forEach(sorter::add);
+            sorter.sort((sequence, tapDetail) -> {
+                sequences.add(sequence);
+                sorted.add(tapDetail);
+            });
+            assertThat(sorter.getRunCount(), greaterThan(1000 / 7));
+        }
+
+        List<TapDetail> expected = new ArrayList<>(taps);
+        expected.sort(Comparator.comparing(TapDetail::getPan).thenComparingLong(TapDetail::getEpochSecondUTC));
+        assertThat(sorted, equalTo(expected));
+        for (int index = 0; index < sorted.size(); index++) {
+            assertThat(taps.get(sequences.get(index).intValue()), equalTo(sorted.get(index)));
+        }
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files.count(), equalTo(0L));
+        }
+    }
+
+    @Test
+    void shouldSortInMemoryWhenEverythingFitsInOneRun() throws IOException {
+        List<TapDetail> taps = randomTaps(100);
+        List<TapDetail> sorted = new ArrayList<>();
+
+        try (ExternalTapSorter sorter = new ExternalTapSorter(tempDir, 1L << 20, 2)) {
+            taps.forEach(sorter::add);
+            sorter.sort((sequence, tapDetail) -> sorted.add(tapDetail));
+            assertThat(sorter.getRunCount(), equalTo(0));
+            assertThat(sorter.size(), equalTo(100L));
+        }
+
+        List<TapDetail> expected = new ArrayList<>(taps);
+        expected.sort(Comparator.comparing(TapDetail::getPan).thenComparingLong(TapDetail::getEpochSecondUTC));
+        assertThat(sorted, equalTo(expected));
+    }
+
+    /**
+     * Generates taps of a few cards at a few times, so many taps share a PAN and time.
+     */
+    private static List<TapDetail> randomTaps(int count) {
+        Random random = new Random(7);
+        List<TapDetail> taps = new ArrayList<>();
+        for (int id = 0; id < count; id++) {
+            taps.add(new TapDetail(id, START + random.nextInt(20), random.nextBoolean() ? TapType.ON : TapType.OFF,
+                    StopId.STOP2, "Company" + random.nextInt(3), "Bus" + random.nextInt(3), "pan" + random.nextInt(10)));
+        }
+        return taps;
+    }
+}
@@ -0,0 +1,66 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TravelPriceId;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class FareMatrixTest {
+
+    FareMatrix fareMatrix = FareMatrix.compile(Map.of(
+            new TravelPriceId(StopId.STOP1, StopId.STOP2), new BigDecimal("3.25"),
+            new TravelPriceId(StopId.STOP3, StopId.STOP2), new BigDecimal("5.5")));
+
+    @Test
+    void shouldLookUpFaresInBothDirections() {
+        assertThat(fareMatrix.getFareCents(StopId.STOP1, StopId.STOP2), is(325L));
+        assertThat(fareMatrix.getFareCents(StopId.STOP2, StopId.STOP1), is(325L));
+        assertThat(fareMatrix.getFareCents(StopId.STOP2, StopId.STOP3), is(550L));
+        assertThat(fareMatrix.getFareCents(StopId.STOP3, StopId.STOP2), is(550L));
+    }
+
+    @Test
+    void shouldReturnUnknownFareForMissingRoutes() {
+        assertThat(fareMatrix.getFareCents(StopId.STOP1, StopId.STOP3), is(FareMatrix.UNKNOWN_FARE));
+        assertThat(fareMatrix.getFareCents(StopId.STOP1, StopId.STOP1), is(FareMatrix.UNKNOWN_FARE));
+    }
+
+    @Test
+    void shouldIndexMaxFarePerStop() {
+        assertThat(fareMatrix.getMaxFareCents(StopId.STOP1), is(325L));
+        assertThat(fareMatrix.getMaxFareDestination(StopId.STOP1), equalTo(StopId.STOP2));
+        assertThat(fareMatrix.getMaxFareCents(StopId.STOP2), is(550L));
+        assertThat(fareMatrix.getMaxFareDestination(StopId.STOP2), equalTo(StopId.STOP3));
+        assertThat(fareMatrix.getMaxFareCents(StopId.STOP3), is(550L));
+        assertThat(fareMatrix.getMaxFareDestination(StopId.STOP3), equalTo(StopId.STOP2));
+    }
+
+    @Test
+    void shouldHaveNoMaxFareForStopsWithoutRoutes() {
+        FareMatrix onlyStop1And2 = FareMatrix.compile(Map.of(new TravelPriceId(StopId.STOP1, StopId.STOP2), new BigDecimal("3.25")));
+
+        assertThat(onlyStop1And2.getMaxFareCents(StopId.STOP3), is(FareMatrix.UNKNOWN_FARE));
+        assertThat(onlyStop1And2.getMaxFareDestination(StopId.STOP3), is(nullValue()));
+    }
+
+    @Test
+    void shouldConvertCentsToAmountsWithTwoDecimals() {
+        assertThat(FareMatrix.toAmount(730), equalTo(new BigDecimal("7.30")));
+        assertThat(FareMatrix.toAmount(550), equalTo(new BigDecimal("5.50")));
+    }
+
+    @Test
+    void shouldRejectFractionsOfCents() {
+        Map<TravelPriceId, BigDecimal> travelPrices = Map.of(new TravelPriceId(StopId.STOP1, StopId.STOP2), new BigDecimal("3.255"));
+
+        Assertions.assertThrows(ArithmeticException.class, () -> FareMatrix.compile(travelPrices));
+    }
+}
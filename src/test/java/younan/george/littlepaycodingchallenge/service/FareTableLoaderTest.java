@@ -0,0 +1,101 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TravelPrice;
+import younan.george.littlepaycodingchallenge.dto.TravelPriceId;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class FareTableLoaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    Path faresFile;
+
+    TravelCostService travelCostService = new TravelCostService();
+
+    FareTableLoader fareTableLoader = new FareTableLoader();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        faresFile = tempDir.resolve("fares.csv");
+        writeFares("FromStopId, ToStopId, Cost\nStop1, Stop2, 1.00\nStop2, Stop3, 2.00\nStop1, Stop3, 3.00\n", 1);
+        ReflectionTestUtils.setField(fareTableLoader, "faresFile", faresFile.toString());
+        ReflectionTestUtils.setField(fareTableLoader, "travelCostService", travelCostService);
+    }
+
+    @AfterEach
+    void resetStops() {
+        StopId.reset();
+    }
+
+    @Test
+    void shouldLoadFaresFromFile() throws Exception {
+        fareTableLoader.load();
+
+        assertThat(travelCostService.getMaxCostForStop(StopId.STOP1),
+                equalTo(new TravelPrice(new TravelPriceId(StopId.STOP1, StopId.STOP3), new BigDecimal("3.00"))));
+    }
+
+    @Test
+    void shouldReloadFaresWhenFileChanges() throws Exception {
+        fareTableLoader.load();
+        writeFares("FromStopId, ToStopId, Cost\nStop1, Stop2, 9.00\nStop2, Stop3, 2.00\n", 2);
+
+        fareTableLoader.reloadIfChanged();
+
+        assertThat(travelCostService.getMaxCostForStop(StopId.STOP1),
+                equalTo(new TravelPrice(new TravelPriceId(StopId.STOP1, StopId.STOP2), new BigDecimal("9.00"))));
+    }
+
+    @Test
+    void shouldRegisterNewStopsFromFile() throws Exception {
+        writeFares("FromStopId, ToStopId, Cost\nStop1, Stop2, 1.00\nStop2, FareLoaderStop, 4.00\n", 2);
+
+        fareTableLoader.load();
+
+        assertThat(travelCostService.getMaxCostForStop(StopId.valueOf("fareloaderstop")),
+                equalTo(new TravelPrice(new TravelPriceId(StopId.STOP2, StopId.valueOf("FareLoaderStop")), new BigDecimal("4.00"))));
+    }
+
+    @Test
+    void shouldKeepCurrentFaresWhenReloadedFileIsInvalid() throws Exception {
+        fareTableLoader.load();
+        writeFares("FromStopId, ToStopId, Cost\nStop1, Stop2, nine\n", 2);
+
+        fareTableLoader.reloadIfChanged();
+
+        assertThat(travelCostService.getMaxCostForStop(StopId.STOP1),
+                equalTo(new TravelPrice(new TravelPriceId(StopId.STOP1, StopId.STOP3), new BigDecimal("3.00"))));
+    }
+
+    @Test
+    void shouldNotRegisterStopsOfRejectedFile() throws Exception {
+        fareTableLoader.load();
+        writeFares("FromStopId, ToStopId, Cost\nStop1, RejectedFileStop, 1.00\nStop1, Stop2, nine\n", 2);
+
+        fareTableLoader.reloadIfChanged();
+
+        assertThat(StopId.lookup("RejectedFileStop"), is(nullValue()));
+    }
+
+    private void writeFares(String fares, long modifiedSeconds) throws Exception {
+        Files.writeString(faresFile, fares);
+        Files.setLastModifiedTime(faresFile, FileTime.from(Instant.ofEpochSecond(modifiedSeconds)));
+    }
+}
@@ -0,0 +1,68 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+import younan.george.littlepaycodingchallenge.enums.TripStatus;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+// The fast path must agree with the annotations on the DTOs, so every case is checked against the full validator.
+class FastPathValidatorTest {
+    private static final ZonedDateTime PAST = ZonedDateTime.of(2023, 1, 22, 13, 0, 0, 0, ZoneOffset.UTC);
+    private static final ZonedDateTime FUTURE = ZonedDateTime.now(ZoneOffset.UTC).plusDays(1);
+
+    Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    FastPathValidator fastPathValidator = new FastPathValidator();
+
+    @Test
+    void shouldAgreeWithFullValidatorOnTaps() {
+        List<TapDetail> taps = Arrays.asList(
+                new TapDetail(1, PAST, TapType.ON, StopId.STOP1, "Company1", "Bus37", "5500005555555559"),
+                new TapDetail(0, PAST, TapType.ON, StopId.STOP1, "Company1", "Bus37", "5500005555555559"),
+                new TapDetail(1, FUTURE, TapType.ON, StopId.STOP1, "Company1", "Bus37", "5500005555555559"),
+                new TapDetail(1, PAST, null, StopId.STOP1, "Company1", "Bus37", "5500005555555559"),
+                new TapDetail(1, PAST, TapType.OFF, null, "Company1", "Bus37", "5500005555555559"),
+                new TapDetail(1, PAST, TapType.OFF, StopId.STOP2, " ", "Bus37", "5500005555555559"),
+                new TapDetail(1, PAST, TapType.OFF, StopId.STOP2, "Company1", null, "5500005555555559"),
+                new TapDetail(1, PAST, TapType.OFF, StopId.STOP2, "Company1", "Bus37", ""));
+
+        for (TapDetail tap : taps) {
+            assertThat(tap.toString(), fastPathValidator.isValid(tap), equalTo(validator.validate(tap).isEmpty()));
+        }
+    }
+
+    @Test
+    void shouldAgreeWithFullValidatorOnTripResults() {
+        List<TripResult> trips = Arrays.asList(
+                trip(PAST, PAST, 0, StopId.STOP2, BigDecimal.ONE, "Bus37", TripStatus.COMPLETED),
+                trip(FUTURE, FUTURE, 0, StopId.STOP2, BigDecimal.ONE, "Bus37", TripStatus.COMPLETED),
+                trip(PAST, FUTURE, 0, StopId.STOP2, BigDecimal.ONE, "Bus37", TripStatus.COMPLETED),
+                trip(PAST, PAST, -1, StopId.STOP2, BigDecimal.ONE, "Bus37", TripStatus.COMPLETED),
+                trip(PAST, PAST, 0, null, BigDecimal.ONE, "Bus37", TripStatus.COMPLETED),
+                trip(PAST, PAST, 0, StopId.STOP2, null, "Bus37", TripStatus.COMPLETED),
+                trip(PAST, PAST, 0, StopId.STOP2, BigDecimal.ONE, "\t", TripStatus.COMPLETED),
+                trip(PAST, PAST, 0, StopId.STOP2, BigDecimal.ONE, "Bus37", null));
+
+        for (TripResult trip : trips) {
+            assertThat(trip.toString(), fastPathValidator.isValid(trip), equalTo(validator.validate(trip).isEmpty()));
+        }
+    }
+
+    private static TripResult trip(ZonedDateTime started, ZonedDateTime finished, long durationSecs, StopId toStopId,
+                                   BigDecimal chargeAmount, String busId, TripStatus status) {
+        return new TripResult(started, finished, durationSecs, StopId.STOP1, toStopId, chargeAmount,
+                "Company1", busId, "5500005555555559", status);
+    }
+}
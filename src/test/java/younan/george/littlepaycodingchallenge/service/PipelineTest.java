@@ -0,0 +1,62 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PipelineTest {
+    Pipeline pipeline = new Pipeline("test");
+    PipelineStageMetrics producerMetrics = new PipelineStageMetrics("produce");
+    PipelineStageMetrics consumerMetrics = new PipelineStageMetrics("consume");
+
+    @Test
+    void shouldHandOverBatchesBetweenStages() throws Exception {
+        SpscQueue<List<Integer>> queue = pipeline.newQueue(1);
+        List<Integer> consumed = new ArrayList<>();
+
+        pipeline.start("produce", () -> {
+            Pipeline.Batcher<Integer> batcher = new Pipeline.Batcher<>(queue, producerMetrics, 2);
+            for (int item = 1; item <= 5; item++) {
+                batcher.accept(item);
+            }
+            batcher.close();
+        });
+        pipeline.run(() -> {
+            List<Integer> batch;
+            while ((batch = consumerMetrics.take(queue)) != null) {
+                consumed.addAll(batch);
+                consumerMetrics.addItems(batch.size());
+            }
+        });
+
+        assertThat(consumed, contains(1, 2, 3, 4, 5));
+        assertThat(producerMetrics.getBatches(), equalTo(3L));
+        assertThat(consumerMetrics.getItems(), equalTo(5L));
+    }
+
+    @Test
+    void shouldStopEveryStageAndThrowTheFirstFailure() {
+        SpscQueue<List<Integer>> queue = pipeline.newQueue(1);
+
+        // The producer would wait forever on the full queue if the failing consumer did not cancel it
+        pipeline.start("produce", () -> {
+            Pipeline.Batcher<Integer> batcher = new Pipeline.Batcher<>(queue, producerMetrics, 1);
+            for (int item = 0; item < 1000; item++) {
+                batcher.accept(item);
+            }
+            batcher.close();
+        });
+        IOException thrown = assertThrows(IOException.class, () -> pipeline.run(() -> {
+            throw new IOException("Disk full");
+        }));
+
+        assertThat(thrown.getMessage(), equalTo("Disk full"));
+    }
+}
@@ -0,0 +1,52 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+import younan.george.littlepaycodingchallenge.enums.TripStatus;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class PricingMetricsTest {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    PricingMetrics metrics = new PricingMetrics();
+
+    @Test
+    void shouldCountTripsByStatusAndTimeEachFareLookup() {
+        metrics.bind(registry);
+        TravelCostService travelCostService = new TravelCostService();
+        ReflectionTestUtils.setField(travelCostService, "metrics", metrics);
+
+        travelCostService.calculateCostForAll(List.of(
+                new TapDetail(1, 1000, TapType.ON, StopId.STOP1, "Company1", "Bus37", "5500005555555559"),
+                new TapDetail(2, 1300, TapType.OFF, StopId.STOP2, "Company1", "Bus37", "5500005555555559"),
+                new TapDetail(3, 2000, TapType.ON, StopId.STOP3, "Company1", "Bus36", "4111111111111111"),
+                new TapDetail(4, 3000, TapType.ON, StopId.STOP1, "Company1", "Bus37", "4111111111111111"),
+                new TapDetail(5, 3100, TapType.OFF, StopId.STOP1, "Company1", "Bus37", "4111111111111111")));
+
+        assertThat(registry.get("littlepay.trips").tag("status", TripStatus.COMPLETED.name()).counter().count(), is(1.0));
+        assertThat(registry.get("littlepay.trips").tag("status", TripStatus.INCOMPLETE.name()).counter().count(), is(1.0));
+        assertThat(registry.get("littlepay.trips").tag("status", TripStatus.CANCELLED.name()).counter().count(), is(1.0));
+        assertThat(registry.get("littlepay.fare.lookup").timer().count(), is(3L));
+    }
+
+    @Test
+    void shouldRecordNothingWhenDisabled() {
+        metrics.tapParsed();
+        metrics.parseErrors(3);
+        metrics.tripPriced(metrics.startFareLookup(), TripStatus.COMPLETED);
+        metrics.stageFinished("run", metrics.startStage());
+
+        assertThat(metrics.isEnabled(), is(false));
+        assertThat(metrics.startFareLookup(), equalTo(0L));
+        assertThat(PricingMetrics.DISABLED.isEnabled(), is(false));
+    }
+}
@@ -0,0 +1,51 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import younan.george.littlepaycodingchallenge.enums.RejectReason;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class RejectedRecordsTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldOnlyReadLinesThatAreLoggedWhenCounting() throws Exception {
+        List<String> read = new ArrayList<>();
+        try (RejectedRecords rejectedRecords = new RejectedRecords(null, false, 1, Duration.ZERO)) {
+            rejectedRecords.onRejectedLine(RejectReason.UNKNOWN_STOP, () -> read(read, "1,Stop9"));
+            rejectedRecords.onRejectedLine(RejectReason.UNKNOWN_STOP, () -> read(read, "2,Stop9"));
+            rejectedRecords.onRejectedLine(RejectReason.UNKNOWN_STOP, new String[]{"3", "Stop9"});
+            rejectedRecords.onRejectedLine(RejectReason.INVALID_ID, () -> read(read, "x,Stop1"));
+
+            assertThat(read, equalTo(List.of("1,Stop9", "x,Stop1")));
+            assertThat(rejectedRecords.getCount(RejectReason.UNKNOWN_STOP), is(3L));
+            assertThat(rejectedRecords.getTotal(), is(4L));
+        }
+    }
+
+    @Test
+    void shouldWriteEveryRecordToDeadLetterFileWhateverIsLogged() throws Exception {
+        Path deadLetter = tempDir.resolve("dead-letter.csv");
+        try (RejectedRecords rejectedRecords = new RejectedRecords(deadLetter, false, 0, Duration.ZERO)) {
+            rejectedRecords.onRejectedLine(RejectReason.UNKNOWN_STOP, new String[]{"1", "Stop9"});
+            rejectedRecords.onRejectedLine(RejectReason.INVALID_ID, new String[]{"x", "Stop1"});
+        }
+
+        assertThat(Files.readAllLines(deadLetter), equalTo(List.of("Reason, Record", "UNKNOWN_STOP, 1,Stop9", "INVALID_ID, x,Stop1")));
+    }
+
+    private static String read(List<String> read, String line) {
+        read.add(line);
+        return line;
+    }
+}
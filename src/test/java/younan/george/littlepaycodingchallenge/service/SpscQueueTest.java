@@ -0,0 +1,67 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+
+class SpscQueueTest {
+    @Test
+    void shouldHandEveryItemOverInOrderThroughASmallQueue() throws InterruptedException {
+        SpscQueue<Integer> queue = new SpscQueue<>(4);
+        int count = 200_000;
+        Thread producer = new Thread(() -> {
+            for (int item = 0; item < count; item++) {
+                queue.put(item);
+            }
+            queue.close();
+        });
+        producer.start();
+
+        int expected = 0;
+        Integer item;
+        while ((item = queue.take()) != null) {
+            assertThat(item, equalTo(expected++));
+        }
+        producer.join();
+        assertThat(expected, equalTo(count));
+    }
+
+    @Test
+    void shouldReturnTheRemainingItemsAfterClosing() {
+        SpscQueue<String> queue = new SpscQueue<>(3);
+        queue.put("a");
+        queue.put("b");
+        queue.close();
+
+        assertThat(queue.capacity(), equalTo(4));
+        assertThat(queue.size(), equalTo(2));
+        assertThat(queue.take(), equalTo("a"));
+        assertThat(queue.take(), equalTo("b"));
+        assertThat(queue.take(), nullValue());
+    }
+
+    @Test
+    void shouldStopAWaitingConsumerWhenCancelled() throws InterruptedException {
+        SpscQueue<String> queue = new SpscQueue<>(1);
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                queue.take();
+            } catch (Throwable e) {
+                thrown.set(e);
+            }
+        });
+        consumer.start();
+
+        queue.cancel();
+        consumer.join(10_000);
+
+        assertThat(thrown.get(), instanceOf(CancellationException.class));
+    }
+}
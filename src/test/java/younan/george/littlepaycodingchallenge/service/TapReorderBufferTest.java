@@ -0,0 +1,82 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.junit.jupiter.api.Test;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+class TapReorderBufferTest {
+    private static final long START = 1_674_392_400L;
+
+    List<Integer> released = new ArrayList<>();
+    List<Long> sequences = new ArrayList<>();
+
+    TapReorderBuffer reorderBuffer = new TapReorderBuffer(60, 100, (sequence, tapDetail) -> {
+        sequences.add(sequence);
+        released.add(tapDetail.getId());
+    });
+
+    @Test
+    void shouldReleaseTapsInTimeOrderOnceTheWatermarkPassesThem() {
+        reorderBuffer.accept(tap(1, START + 30));
+        reorderBuffer.accept(tap(2, START));
+        reorderBuffer.accept(tap(3, START + 50));
+        assertThat(released, empty());
+
+        // The watermark moves to START + 40, which passes taps 2 and 1
+        reorderBuffer.accept(tap(4, START + 100));
+        assertThat(released, contains(2, 1));
+        assertThat(sequences, contains(1L, 0L));
+        assertThat(reorderBuffer.getPendingTaps().stream().map(TapDetail::getId).toList(), contains(3, 4));
+
+        reorderBuffer.flush();
+        assertThat(released, contains(2, 1, 3, 4));
+        assertThat(reorderBuffer.size(), equalTo(0));
+        assertThat(reorderBuffer.getLateTaps(), equalTo(0L));
+    }
+
+    @Test
+    void shouldKeepArrivalOrderOfTapsAtTheSameTime() {
+        reorderBuffer.accept(tap(1, START));
+        reorderBuffer.accept(tap(2, START));
+        reorderBuffer.accept(tap(3, START - 10));
+        reorderBuffer.flush();
+
+        assertThat(released, contains(3, 1, 2));
+    }
+
+    @Test
+    void shouldReleaseTapsBehindTheWatermarkStraightAway() {
+        reorderBuffer.accept(tap(1, START + 100));
+        reorderBuffer.accept(tap(2, START));
+
+        assertThat(released, contains(2));
+        assertThat(reorderBuffer.getLateTaps(), equalTo(1L));
+    }
+
+    @Test
+    void shouldReleaseTheEarliestTapEarlyWhenFull() {
+        TapReorderBuffer smallBuffer = new TapReorderBuffer(60, 2, (sequence, tapDetail) -> released.add(tapDetail.getId()));
+        smallBuffer.accept(tap(1, START + 20));
+        smallBuffer.accept(tap(2, START + 10));
+        smallBuffer.accept(tap(3, START + 30));
+        assertThat(released, contains(2));
+
+        // Tap 2 has been released, so a tap before it can no longer be put in order
+        smallBuffer.accept(tap(4, START + 5));
+        assertThat(released, contains(2, 4));
+        assertThat(smallBuffer.getLateTaps(), equalTo(1L));
+    }
+
+    private static TapDetail tap(int id, long epochSecond) {
+        return new TapDetail(id, epochSecond, TapType.ON, StopId.STOP1, "Company1", "Bus37", "5500005555555559");
+    }
+}
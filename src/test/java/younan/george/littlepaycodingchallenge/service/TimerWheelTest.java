@@ -0,0 +1,91 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TimerWheelTest {
+    private static final long START = 1_674_392_400L;
+
+    TimerWheel<Long> timerWheel = new TimerWheel<>();
+    List<Long> expired = new ArrayList<>();
+
+    @Test
+    void shouldExpireEveryTimerAtItsDeadlineAcrossAllLevels() {
+        timerWheel.advanceTo(START, expired::add);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int timer = 0; timer < 2000; timer++) {
+            // Spread the deadlines over every level of the wheel, and beyond its span of about 194 days
+            long deadline = START + 1 + (long) Math.pow(2, random.nextDouble() * 25);
+            deadlines.add(deadline);
+            timerWheel.schedule(deadline, deadline);
+        }
+        deadlines.sort(null);
+
+        for (long time = START + 1; timerWheel.size() > 0; time++) {
+            long now = time;
+            timerWheel.advanceTo(now, deadline -> {
+                assertThat(deadline, equalTo(now));
+                expired.add(deadline);
+            });
+        }
+        assertThat(expired, equalTo(deadlines));
+    }
+
+    @Test
+    void shouldExpireInDeadlineOrderAtTheExactSecond() {
+        timerWheel.advanceTo(START, expired::add);
+        timerWheel.schedule(3L, START + 100);
+        timerWheel.schedule(1L, START + 5);
+        timerWheel.schedule(2L, START + 5);
+
+        timerWheel.advanceTo(START + 4, expired::add);
+        assertThat(expired, empty());
+        timerWheel.advanceTo(START + 5, expired::add);
+        assertThat(expired, contains(1L, 2L));
+        timerWheel.advanceTo(START + 99, expired::add);
+        assertThat(expired, contains(1L, 2L));
+        timerWheel.advanceTo(START + 100, expired::add);
+        assertThat(expired, contains(1L, 2L, 3L));
+    }
+
+    @Test
+    void shouldNotExpireCancelledTimers() {
+        timerWheel.advanceTo(START, expired::add);
+        TimerWheel.Timer<Long> cancelled = timerWheel.schedule(1L, START + 10_000);
+        timerWheel.schedule(2L, START + 10_000);
+
+        assertThat(timerWheel.cancel(cancelled), is(true));
+        assertThat(timerWheel.cancel(cancelled), is(false));
+        timerWheel.advanceTo(START + 20_000, expired::add);
+
+        assertThat(expired, contains(2L));
+        assertThat(timerWheel.size(), is(0));
+    }
+
+    @Test
+    void shouldExpireLateTimersOnTheNextAdvance() {
+        timerWheel.advanceTo(START, expired::add);
+        timerWheel.schedule(1L, START - 60);
+
+        timerWheel.advanceTo(START, expired::add);
+        assertThat(expired, empty());
+        timerWheel.advanceTo(START + 1, expired::add);
+        assertThat(expired, contains(1L));
+    }
+
+    @Test
+    void shouldRequireTheCurrentTimeBeforeScheduling() {
+        assertThrows(IllegalStateException.class, () -> timerWheel.schedule(1L, START));
+    }
+}
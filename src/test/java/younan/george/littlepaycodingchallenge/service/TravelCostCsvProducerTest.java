@@ -0,0 +1,421 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.ResourceUtils;
+import younan.george.littlepaycodingchallenge.enums.FileFormat;
+import younan.george.littlepaycodingchallenge.enums.ProcessingMode;
+import younan.george.littlepaycodingchallenge.enums.TapParserType;
+import younan.george.littlepaycodingchallenge.enums.ValidationMode;
+import younan.george.littlepaycodingchallenge.io.BinaryFileConverter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TravelCostCsvProducerTest {
+    private static final String EXAMPLE_INPUT = "classpath:taps-example-input.csv";
+
+    @TempDir
+    Path tempDir;
+
+    TravelCostCsvProducer producer;
+
+    @BeforeEach
+    void setUp() {
+        producer = new TravelCostCsvProducer();
+        ReflectionTestUtils.setField(producer, "travelCostService", new TravelCostService());
+        ReflectionTestUtils.setField(producer, "inputFile", EXAMPLE_INPUT);
+        ReflectionTestUtils.setField(producer, "inputParser", TapParserType.LINES);
+        ReflectionTestUtils.setField(producer, "outputBufferSize", 128);
+        ReflectionTestUtils.setField(producer, "validationMode", ValidationMode.COMPILED);
+        ReflectionTestUtils.setField(producer, "internCapacity", 4);
+        ReflectionTestUtils.setField(producer, "inputFormat", FileFormat.CSV);
+        ReflectionTestUtils.setField(producer, "outputFormat", FileFormat.CSV);
+        ReflectionTestUtils.setField(producer, "rejectLogSamples", 10);
+        ReflectionTestUtils.setField(producer, "rejectLogInterval", Duration.ofSeconds(10));
+    }
+
+    @Test
+    void streamingShouldProduceSameOutputAsBatch() throws Exception {
+        Path batchOutput = produce(ProcessingMode.BATCH, "batch.csv");
+        Path streamingOutput = produce(ProcessingMode.STREAMING, "streaming.csv");
+
+        assertThat(Files.readAllBytes(streamingOutput), equalTo(Files.readAllBytes(batchOutput)));
+    }
+
+    @Test
+    void pipelinedShouldProduceSameOutputAsBatch() throws Exception {
+        // Single tap batches in single batch queues make every stage wait on the others
+        ReflectionTestUtils.setField(producer, "pipelineBatchSize", 1);
+        ReflectionTestUtils.setField(producer, "pipelineQueueCapacity", 1);
+        Path batchOutput = produce(ProcessingMode.BATCH, "batch.csv");
+        Path pipelinedOutput = produce(ProcessingMode.PIPELINED, "pipelined.csv");
+
+        assertThat(Files.readAllBytes(pipelinedOutput), equalTo(Files.readAllBytes(batchOutput)));
+    }
+
+    @Test
+    void parallelShouldProduceSameOutputAsBatch() throws Exception {
+        ReflectionTestUtils.setField(producer, "partitions", 4);
+        Path batchOutput = produce(ProcessingMode.BATCH, "batch.csv");
+        Path parallelOutput = produce(ProcessingMode.PARALLEL, "parallel.csv");
+
+        assertThat(Files.readAllBytes(parallelOutput), equalTo(Files.readAllBytes(batchOutput)));
+    }
+
+    @Test
+    void columnarShouldProduceSameOutputAsBatch() throws Exception {
+        Path batchOutput = produce(ProcessingMode.BATCH, "batch.csv");
+        Path columnarOutput = produce(ProcessingMode.COLUMNAR, "columnar.csv");
+
+        assertThat(Files.readAllBytes(columnarOutput), equalTo(Files.readAllBytes(batchOutput)));
+    }
+
+    @Test
+    void mappedParserShouldProduceSameOutputAsLineParser() throws Exception {
+        Path linesOutput = produce(ProcessingMode.BATCH, "lines.csv");
+        ReflectionTestUtils.setField(producer, "inputParser", TapParserType.MAPPED);
+        Path mappedOutput = produce(ProcessingMode.BATCH, "mapped.csv");
+
+        assertThat(Files.readAllBytes(mappedOutput), equalTo(Files.readAllBytes(linesOutput)));
+    }
+
+    @Test
+    void chunkedParserShouldProduceSameOutputAsLineParser() throws Exception {
+        Path linesOutput = produce(ProcessingMode.BATCH, "lines.csv");
+        // Chunks of a line or two, parsed on more threads than there are chunks in flight
+        ReflectionTestUtils.setField(producer, "inputParser", TapParserType.CHUNKED);
+        ReflectionTestUtils.setField(producer, "inputChunkSize", 100);
+        ReflectionTestUtils.setField(producer, "inputParserThreads", 3);
+        Path chunkedOutput = produce(ProcessingMode.BATCH, "chunked.csv");
+
+        assertThat(Files.readAllBytes(chunkedOutput), equalTo(Files.readAllBytes(linesOutput)));
+    }
+
+    @Test
+    void shouldRecordMetricsOfEachStage() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PricingMetrics metrics = new PricingMetrics();
+        metrics.bind(registry);
+        ReflectionTestUtils.setField(producer, "metrics", metrics);
+        ReflectionTestUtils.setField(ReflectionTestUtils.getField(producer, "travelCostService"), "metrics", metrics);
+
+        Path output = produce(ProcessingMode.BATCH, "output.csv");
+
+        assertThat(registry.get("littlepay.taps.parsed").counter().count(), equalTo(6.0));
+        assertThat(registry.get("littlepay.taps.parse.errors").counter().count(), equalTo(0.0));
+        assertThat(registry.get("littlepay.validation.rejects").tag("type", "tap").counter().count(), equalTo(0.0));
+        assertThat(registry.get("littlepay.trips").tag("status", "COMPLETED").counter().count(), equalTo(1.0));
+        assertThat(registry.get("littlepay.fare.lookup").timer().count(), equalTo(3L));
+        assertThat(registry.get("littlepay.writer.bytes").functionCounter().count(), equalTo((double) Files.size(output)));
+        for (String stage : List.of("read", "price", "write", "run")) {
+            assertThat(registry.get("littlepay.stage").tag("stage", stage).timer().count(), equalTo(1L));
+        }
+    }
+
+    @Test
+    void binaryInputAndOutputShouldConvertToSameOutputAsCsv() throws Exception {
+        Path csvOutput = produce(ProcessingMode.BATCH, "output.csv");
+        Path binaryInput = tempDir.resolve("taps.bin");
+        assertThat(BinaryFileConverter.tapsToBinary(ResourceUtils.getFile(EXAMPLE_INPUT).toPath(), binaryInput), equalTo(6L));
+        ReflectionTestUtils.setField(producer, "inputFile", binaryInput.toString());
+        ReflectionTestUtils.setField(producer, "inputFormat", FileFormat.BINARY);
+        ReflectionTestUtils.setField(producer, "outputFormat", FileFormat.BINARY);
+
+        Path binaryOutput = produce(ProcessingMode.STREAMING, "output.bin");
+        Path convertedOutput = tempDir.resolve("converted.csv");
+        assertThat(BinaryFileConverter.tripsToCsv(binaryOutput, convertedOutput), equalTo(3L));
+
+        assertThat(Files.readString(convertedOutput), equalTo(Files.readString(csvOutput)));
+    }
+
+    @Test
+    void reflectiveValidationShouldProduceSameOutputAsCompiled() throws Exception {
+        Path compiledOutput = produce(ProcessingMode.BATCH, "compiled.csv");
+        ReflectionTestUtils.setField(producer, "validationMode", ValidationMode.REFLECTIVE);
+        Path reflectiveOutput = produce(ProcessingMode.BATCH, "reflective.csv");
+
+        assertThat(Files.readAllBytes(reflectiveOutput), equalTo(Files.readAllBytes(compiledOutput)));
+    }
+
+    @Test
+    void disabledInterningShouldProduceSameOutput() throws Exception {
+        Path internedOutput = produce(ProcessingMode.BATCH, "interned.csv");
+        ReflectionTestUtils.setField(producer, "internCapacity", 0);
+        Path plainOutput = produce(ProcessingMode.BATCH, "plain.csv");
+
+        assertThat(Files.readAllBytes(plainOutput), equalTo(Files.readAllBytes(internedOutput)));
+    }
+
+    @Test
+    void sortedShouldProduceSameTripsAsBatchInOrderOfCard() throws Exception {
+        ReflectionTestUtils.setField(producer, "sortDirectory", tempDir.resolve("runs").toString());
+        ReflectionTestUtils.setField(producer, "sortMemoryBudgetBytes", 1L);
+        ReflectionTestUtils.setField(producer, "sortThreads", 2);
+        List<String> batchRows = Files.readAllLines(produce(ProcessingMode.BATCH, "batch.csv"));
+        List<String> sortedRows = Files.readAllLines(produce(ProcessingMode.SORTED, "sorted.csv"));
+
+        assertThat(sortedRows.get(0), equalTo(batchRows.get(0)));
+        assertThat(sortedRows, containsInAnyOrder(batchRows.toArray()));
+        // Card 4111111111111111, whose first trip is on Bus36, sorts before card 5500005555555559
+        assertThat(sortedRows.get(1), containsString("Bus36,INCOMPLETE"));
+        try (Stream<Path> runs = Files.list(tempDir.resolve("runs"))) {
+            assertThat(runs.count(), equalTo(0L));
+        }
+    }
+
+    @Test
+    void reorderingShouldRestoreTapsSwappedWithinTheSkew() throws Exception {
+        Path batchOutput = produce(ProcessingMode.BATCH, "batch.csv");
+        List<String> lines = Files.readAllLines(ResourceUtils.getFile(EXAMPLE_INPUT).toPath());
+        // Card 5500005555555559 taps OFF five minutes before it taps ON
+        Collections.swap(lines, 1, 2);
+        Path input = Files.write(tempDir.resolve("swapped.csv"), lines);
+        ReflectionTestUtils.setField(producer, "inputFile", input.toString());
+        ReflectionTestUtils.setField(producer, "reorderSkewSeconds", 600L);
+        ReflectionTestUtils.setField(producer, "reorderCapacity", 16);
+
+        Path reorderedBatchOutput = produce(ProcessingMode.BATCH, "reordered-batch.csv");
+        Path reorderedStreamingOutput = produce(ProcessingMode.STREAMING, "reordered-streaming.csv");
+
+        assertThat(Files.readString(reorderedBatchOutput), equalTo(Files.readString(batchOutput)));
+        assertThat(Files.readString(reorderedStreamingOutput), equalTo(Files.readString(batchOutput)));
+    }
+
+    @Test
+    void incrementalRunsShouldAppendSameOutputAsBatch() throws Exception {
+        Path batchOutput = produce(ProcessingMode.BATCH, "batch.csv");
+        String taps = Files.readString(ResourceUtils.getFile(EXAMPLE_INPUT).toPath()) + System.lineSeparator();
+        int split = taps.indexOf("4, 23-01-2023") + 5;
+        Path input = tempDir.resolve("taps.csv");
+        ReflectionTestUtils.setField(producer, "inputFile", input.toString());
+        ReflectionTestUtils.setField(producer, "checkpointFile", tempDir.resolve("taps.checkpoint").toString());
+
+        // The first run ends part way through a line, which must be left for the second run
+        Files.writeString(input, taps.substring(0, split));
+        produce(ProcessingMode.INCREMENTAL, "incremental.csv");
+        Files.writeString(input, taps.substring(split), StandardOpenOption.APPEND);
+        Path incrementalOutput = produce(ProcessingMode.INCREMENTAL, "incremental.csv");
+
+        assertThat(Files.readString(incrementalOutput), equalTo(Files.readString(batchOutput)));
+    }
+
+    @Test
+    void incrementalRunShouldProcessARotatedInputFromTheStart() throws Exception {
+        Path batchOutput = produce(ProcessingMode.BATCH, "batch.csv");
+        String taps = Files.readString(ResourceUtils.getFile(EXAMPLE_INPUT).toPath()) + System.lineSeparator();
+        int split = taps.indexOf("4, 23-01-2023");
+        String header = taps.substring(0, taps.indexOf('\n') + 1);
+        Path input = tempDir.resolve("taps.csv");
+        ReflectionTestUtils.setField(producer, "inputFile", input.toString());
+        ReflectionTestUtils.setField(producer, "checkpointFile", tempDir.resolve("taps.checkpoint").toString());
+
+        // The rotated file holds the rest of the taps, and has already grown past the offset of the first one
+        Files.writeString(input, taps.substring(0, split));
+        produce(ProcessingMode.INCREMENTAL, "incremental.csv");
+        Path rotated = Files.writeString(tempDir.resolve("rotated.csv"), header + taps.substring(split));
+        assertThat(Files.size(rotated) > split, equalTo(true));
+        Files.move(rotated, input, StandardCopyOption.REPLACE_EXISTING);
+        Path incrementalOutput = produce(ProcessingMode.INCREMENTAL, "incremental.csv");
+
+        assertThat(Files.readString(incrementalOutput), equalTo(Files.readString(batchOutput)));
+    }
+
+    @Test
+    void appendingModesShouldRefuseBinaryOutput() {
+        ReflectionTestUtils.setField(producer, "outputFormat", FileFormat.BINARY);
+        ReflectionTestUtils.setField(producer, "checkpointFile", tempDir.resolve("taps.checkpoint").toString());
+
+        for (ProcessingMode mode : List.of(ProcessingMode.INCREMENTAL, ProcessingMode.TAILING)) {
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> produce(mode, "trips.bin"));
+            assertThat(e.getMessage(), containsString("only supports CSV output"));
+        }
+        assertThat(Files.exists(tempDir.resolve("trips.bin")), equalTo(false));
+    }
+
+    @Test
+    void tailingShouldProduceSameOutputAsBatchAcrossFiles() throws Exception {
+        Path batchOutput = produce(ProcessingMode.BATCH, "batch.csv");
+        String expected = Files.readString(batchOutput);
+        String taps = Files.readString(ResourceUtils.getFile(EXAMPLE_INPUT).toPath()) + System.lineSeparator();
+        int split = taps.indexOf("4, 23-01-2023");
+        Path directory = Files.createDirectory(tempDir.resolve("taps"));
+        ReflectionTestUtils.setField(producer, "watchDirectory", directory.toString());
+        ReflectionTestUtils.setField(producer, "watchPattern", "*.csv");
+        ReflectionTestUtils.setField(producer, "watchPollIntervalMs", 50L);
+        ReflectionTestUtils.setField(producer, "checkpointFile", tempDir.resolve("taps.checkpoint").toString());
+
+        // Card 4111111111111111 taps ON in the first file and again in the second
+        Path tailingOutput = produce(ProcessingMode.TAILING, "tailing.csv");
+        try {
+            Files.writeString(directory.resolve("1.csv"), taps.substring(0, split));
+            Files.writeString(directory.resolve("2.csv"), taps.substring(split));
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!Files.readString(tailingOutput).equals(expected) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        } finally {
+            producer.stopTailing();
+        }
+
+        assertThat(Files.readString(tailingOutput), equalTo(expected));
+    }
+
+    @Test
+    void restartedTailingShouldWriteEachTripOnce() throws Exception {
+        Path batchOutput = produce(ProcessingMode.BATCH, "batch.csv");
+        String expected = Files.readString(batchOutput);
+        String taps = Files.readString(ResourceUtils.getFile(EXAMPLE_INPUT).toPath()) + System.lineSeparator();
+        int split = taps.indexOf("4, 23-01-2023");
+        Path directory = Files.createDirectory(tempDir.resolve("taps"));
+        ReflectionTestUtils.setField(producer, "watchDirectory", directory.toString());
+        ReflectionTestUtils.setField(producer, "watchPattern", "*.csv");
+        ReflectionTestUtils.setField(producer, "watchPollIntervalMs", 50L);
+        ReflectionTestUtils.setField(producer, "checkpointFile", tempDir.resolve("taps.checkpoint").toString());
+        Path input = directory.resolve("1.csv");
+        Files.writeString(input, taps.substring(0, split));
+
+        // Card 4111111111111111 is still travelling when tailing stops, and taps ON again after the restart
+        Path tailingOutput = produce(ProcessingMode.TAILING, "tailing.csv");
+        try {
+            await(() -> Files.readString(tailingOutput).contains("2023-01-22T13:05Z"));
+        } finally {
+            producer.stopTailing();
+        }
+        produce(ProcessingMode.TAILING, "tailing.csv");
+        try {
+            Files.writeString(input, taps.substring(split), StandardOpenOption.APPEND);
+            await(() -> Files.readString(tailingOutput).equals(expected));
+        } finally {
+            producer.stopTailing();
+        }
+
+        assertThat(Files.readString(tailingOutput), equalTo(expected));
+    }
+
+    @Test
+    void tailingShouldCloseTheDeadLetterFileWhenTheOutputCannotBeWritten() throws Exception {
+        Path full = Path.of("/dev/full");
+        assumeTrue(Files.isWritable(full), "Needs a device that fails every write");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PricingMetrics metrics = new PricingMetrics();
+        metrics.bind(registry);
+        String taps = Files.readString(ResourceUtils.getFile(EXAMPLE_INPUT).toPath()) + System.lineSeparator();
+        Path directory = Files.createDirectory(tempDir.resolve("taps"));
+        Path deadLetter = tempDir.resolve("dead-letter.csv");
+        ReflectionTestUtils.setField(producer, "metrics", metrics);
+        ReflectionTestUtils.setField(producer, "watchDirectory", directory.toString());
+        ReflectionTestUtils.setField(producer, "watchPattern", "*.csv");
+        ReflectionTestUtils.setField(producer, "watchPollIntervalMs", 50L);
+        ReflectionTestUtils.setField(producer, "checkpointFile", tempDir.resolve("taps.checkpoint").toString());
+        ReflectionTestUtils.setField(producer, "deadLetterFile", deadLetter.toString());
+        // Every tap is held in the reorder buffer until tailing stops, and the first trips it releases overflow the output buffer
+        ReflectionTestUtils.setField(producer, "reorderSkewSeconds", 30L * 24 * 60 * 60);
+        ReflectionTestUtils.setField(producer, "reorderCapacity", 16);
+        ReflectionTestUtils.setField(producer, "outputFile", full.toString());
+        ReflectionTestUtils.setField(producer, "processingMode", ProcessingMode.TAILING);
+
+        producer.readCsvAndProduceResult();
+        try {
+            Files.writeString(directory.resolve("1.csv"), taps + "x, 22-01-2023 10:00:00, ON, Stop1, Company1, Bus37, 4000000000000001\n");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (registry.get("littlepay.taps.parse.errors").counter().count() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        } finally {
+            producer.stopTailing();
+        }
+
+        List<String> rows = Files.readAllLines(deadLetter);
+        assertThat(rows.size(), equalTo(2));
+        assertThat(rows.get(1), startsWith("INVALID_ID"));
+    }
+
+    @Test
+    void rejectedRowsShouldBeWrittenToDeadLetterFileWithTheirReason() throws Exception {
+        Path batchOutput = produce(ProcessingMode.BATCH, "batch.csv");
+        String taps = Files.readString(ResourceUtils.getFile(EXAMPLE_INPUT).toPath()) + System.lineSeparator();
+        Path input = Files.writeString(tempDir.resolve("dirty.csv"), taps
+                + "x, 22-01-2023 10:00:00, ON, Stop1, Company1, Bus37, 4000000000000001\n"
+                + "20, 32-01-2023 10:00:00, ON, Stop1, Company1, Bus37, 4000000000000001\n"
+                + "21, 22-01-2023 10:00:00, SIDEWAYS, Stop1, Company1, Bus37, 4000000000000001\n"
+                + "22, 22-01-2023 10:00:00, ON, Stop9, Company1, Bus37, 4000000000000001\n"
+                + "23, 22-01-2023 10:00:00, ON\n");
+        ReflectionTestUtils.setField(producer, "inputFile", input.toString());
+        // The example input also holds a tap OFF without a tap ON, which is rejected once the rows are parsed
+        List<String> expectedReasons = List.of("INVALID_ID", "INVALID_TIMESTAMP", "UNKNOWN_TAP_TYPE", "UNKNOWN_STOP", "MALFORMED_ROW",
+                "UNMATCHED_TAP_OFF");
+
+        for (TapParserType parser : List.of(TapParserType.LINES, TapParserType.MAPPED)) {
+            Path deadLetter = tempDir.resolve(parser + "-dead-letter.csv");
+            ReflectionTestUtils.setField(producer, "inputParser", parser);
+            ReflectionTestUtils.setField(producer, "deadLetterFile", deadLetter.toString());
+
+            Path output = produce(ProcessingMode.BATCH, parser + ".csv");
+
+            assertThat(Files.readString(output), equalTo(Files.readString(batchOutput)));
+            List<String> rows = Files.readAllLines(deadLetter);
+            assertThat(rows.get(0), equalTo("Reason, Record"));
+            assertThat(rows.stream().skip(1).map(row -> row.substring(0, row.indexOf(','))).toList(), equalTo(expectedReasons));
+        }
+    }
+
+    @Test
+    void everyParserShouldResolveDaysPastTheEndOfTheMonthAlike() throws Exception {
+        Path input = Files.writeString(tempDir.resolve("february.csv"),
+                "ID, DateTimeUTC, TapType, StopId, CompanyId, BusID, PAN\n"
+                        + "1, 31-02-2023 10:00:00, ON, Stop1, Company1, Bus37, 4000000000000001\n"
+                        + "2, 31-02-2023 10:05:00, OFF, Stop2, Company1, Bus37, 4000000000000001\n"
+                        + "3, 29-02-2024 10:00:00, ON, Stop2, Company1, Bus37, 4000000000000001\n");
+        Path deadLetter = tempDir.resolve("dead-letter.csv");
+        ReflectionTestUtils.setField(producer, "inputFile", input.toString());
+        ReflectionTestUtils.setField(producer, "deadLetterFile", deadLetter.toString());
+        ReflectionTestUtils.setField(producer, "inputChunkSize", 100);
+        ReflectionTestUtils.setField(producer, "inputParserThreads", 2);
+        Path linesOutput = produce(ProcessingMode.BATCH, "lines.csv");
+
+        assertThat(Files.readString(linesOutput), containsString("2023-02-28T10:00Z,2023-02-28T10:05Z,300,STOP1,STOP2"));
+        assertThat(Files.readString(linesOutput), containsString("2024-02-29T10:00Z"));
+        for (TapParserType parser : List.of(TapParserType.MAPPED, TapParserType.CHUNKED)) {
+            ReflectionTestUtils.setField(producer, "inputParser", parser);
+
+            Path output = produce(ProcessingMode.BATCH, parser + ".csv");
+
+            assertThat(Files.readString(output), equalTo(Files.readString(linesOutput)));
+        }
+        assertThat(Files.exists(deadLetter), equalTo(false));
+    }
+
+    private static void await(Callable<Boolean> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.call() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private Path produce(ProcessingMode mode, String fileName) throws Exception {
+        Path output = tempDir.resolve(fileName);
+        ReflectionTestUtils.setField(producer, "outputFile", output.toString());
+        ReflectionTestUtils.setField(producer, "processingMode", mode);
+        producer.readCsvAndProduceResult();
+        return output;
+    }
+}
@@ -1,11 +1,13 @@
 package younan.george.littlepaycodingchallenge.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import younan.george.littlepaycodingchallenge.dto.StopId;
 import younan.george.littlepaycodingchallenge.dto.TapDetail;
 import younan.george.littlepaycodingchallenge.dto.TravelPrice;
 import younan.george.littlepaycodingchallenge.dto.TravelPriceId;
 import younan.george.littlepaycodingchallenge.dto.TripResult;
-import younan.george.littlepaycodingchallenge.enums.StopId;
+import younan.george.littlepaycodingchallenge.enums.RejectReason;
 import younan.george.littlepaycodingchallenge.enums.TapType;
 import younan.george.littlepaycodingchallenge.enums.TripStatus;
 
@@ -13,6 +15,7 @@ import java.math.BigDecimal;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -36,6 +39,11 @@ public class TravelCostServiceTest {
             new TapDetail(6, ZonedDateTime.parse("24-01-2023 16:30:00", formatter), TapType.OFF, StopId.STOP2, "Company1", "Bus37", "5500005555555559")
     );
 
+    @AfterEach
+    void resetStops() {
+        StopId.reset();
+    }
+
     @Test
     void shouldIdentifyCompletedTrip_Stop1ToStop2() {
         TapDetail firstTap = new TapDetail(1, ZonedDateTime.parse("22-01-2023 13:00:00", formatter), TapType.ON, StopId.STOP1, "Company1", "Bus37", "5500005555555559");
@@ -199,4 +207,54 @@ public class TravelCostServiceTest {
         assertThat(travelCostService.getMaxCostForStop(StopId.STOP3), equalTo(new TravelPrice(new TravelPriceId(StopId.STOP3, StopId.STOP1), COST_BETWEEN_1_AND_3)));
     }
 
+    @Test
+    void shouldPriceInParallelInSameOrderAsSequential() {
+        List<TapDetail> taps = new ArrayList<>();
+        StopId[] stops = {StopId.STOP1, StopId.STOP2, StopId.STOP3};
+        ZonedDateTime start = ZonedDateTime.parse("22-01-2023 06:00:00", formatter);
+        for (int id = 1; id <= 1000; id++) {
+            TapType tapType = id % 7 == 0 || id % 2 == 1 ? TapType.ON : TapType.OFF;
+            taps.add(new TapDetail(id, start.plusSeconds(id), tapType, stops[id % stops.length],
+                    "Company1", "Bus37", "550000555555" + (id * 31 % 50)));
+        }
+
+        List<TripResult> sequential = travelCostService.calculateCostForAll(taps);
+
+        assertThat(travelCostService.calculateCostForAll(taps, 1), equalTo(sequential));
+        assertThat(travelCostService.calculateCostForAll(taps, 4), equalTo(sequential));
+        assertThat(travelCostService.calculateCostForAll(taps, 16), equalTo(sequential));
+    }
+
+    @Test
+    void shouldPriceColumnarStoreInSameOrderAsList() {
+        List<TapDetail> taps = new ArrayList<>();
+        StopId[] stops = {StopId.STOP1, StopId.STOP2, StopId.STOP3};
+        ZonedDateTime start = ZonedDateTime.parse("22-01-2023 06:00:00", formatter);
+        for (int id = 1; id <= 1000; id++) {
+            TapType tapType = id % 7 == 0 || id % 2 == 1 ? TapType.ON : TapType.OFF;
+            taps.add(new TapDetail(id, start.plusSeconds(id), tapType, stops[id % stops.length],
+                    "Company1", "Bus37", "550000555555" + (id * 31 % 50)));
+        }
+        ColumnarTapStore tapStore = new ColumnarTapStore(16);
+        taps.forEach(tapStore::append);
+
+        assertThat(travelCostService.calculateCostForAll(tapStore), equalTo(travelCostService.calculateCostForAll(taps)));
+    }
+
+    @Test
+    void shouldReportTripWithUnknownFareInsteadOfThrowing() {
+        StopId unpriced = StopId.of("Unpriced stop");
+        TapDetail onTap = new TapDetail(7, ZonedDateTime.parse("25-01-2023 10:00:00", formatter), TapType.ON, StopId.STOP1, "Company1", "Bus37", "4000000000000001");
+        TapDetail offTap = new TapDetail(8, ZonedDateTime.parse("25-01-2023 10:10:00", formatter), TapType.OFF, unpriced, "Company1", "Bus37", "4000000000000001");
+        List<RejectReason> reasons = new ArrayList<>();
+        TravelCostService.TripRejectListener listener = (reason, currentTap, nextTap) -> reasons.add(reason);
+        List<TapDetail> taps = new ArrayList<>(tapExamples);
+        taps.add(onTap);
+        taps.add(offTap);
+
+        assertThat(travelCostService.calculateCost(onTap, offTap, listener), equalTo(null));
+        assertThat(travelCostService.calculateCostForAll(taps, listener), equalTo(travelCostService.calculateCostForAll(tapExamples)));
+        // The examples also hold a tap OFF without a tap ON
+        assertThat(reasons, equalTo(List.of(RejectReason.UNKNOWN_FARE, RejectReason.UNMATCHED_TAP_OFF, RejectReason.UNKNOWN_FARE)));
+    }
 }
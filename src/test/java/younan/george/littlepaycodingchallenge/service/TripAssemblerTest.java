@@ -0,0 +1,120 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.junit.jupiter.api.Test;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TapDetail;
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+import younan.george.littlepaycodingchallenge.enums.RejectReason;
+import younan.george.littlepaycodingchallenge.enums.TapType;
+import younan.george.littlepaycodingchallenge.enums.TripStatus;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class TripAssemblerTest {
+    private static final String CARD_1 = "5500005555555559";
+    private static final String CARD_2 = "4111111111111111";
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    List<TripResult> results = new ArrayList<>();
+    TripAssembler tripAssembler = new TripAssembler(new TravelCostService(), (tripResult, sequence) -> results.add(tripResult));
+
+    @Test
+    void shouldMatchInterleavedCardsSeparately() {
+        tripAssembler.accept(tap(1, "22-01-2023 13:00:00", TapType.ON, StopId.STOP1, CARD_1));
+        tripAssembler.accept(tap(2, "22-01-2023 13:01:00", TapType.ON, StopId.STOP2, CARD_2));
+        tripAssembler.accept(tap(3, "22-01-2023 13:05:00", TapType.OFF, StopId.STOP2, CARD_1));
+        tripAssembler.accept(tap(4, "22-01-2023 13:10:00", TapType.OFF, StopId.STOP3, CARD_2));
+        tripAssembler.finish();
+
+        assertThat(results.size(), is(2));
+        assertThat(results.get(0).getPan(), equalTo(CARD_1));
+        assertThat(results.get(0).getStatus(), equalTo(TripStatus.COMPLETED));
+        assertThat(results.get(0).getDurationSecs(), is(300L));
+        assertThat(results.get(1).getPan(), equalTo(CARD_2));
+        assertThat(results.get(1).getStatus(), equalTo(TripStatus.COMPLETED));
+        assertThat(results.get(1).getToStopId(), equalTo(StopId.STOP3));
+    }
+
+    @Test
+    void shouldCloseOpenTripAsIncompleteOnNextTapOn() {
+        tripAssembler.accept(tap(1, "22-01-2023 09:20:00", TapType.ON, StopId.STOP3, CARD_2));
+        tripAssembler.accept(tap(2, "23-01-2023 08:00:00", TapType.ON, StopId.STOP1, CARD_2));
+
+        assertThat(results.size(), is(1));
+        assertThat(results.get(0).getStatus(), equalTo(TripStatus.INCOMPLETE));
+        assertThat(tripAssembler.getOpenTripCount(), is(1));
+    }
+
+    @Test
+    void shouldCloseRemainingTripsAsIncompleteInStartOrderOnFinish() {
+        tripAssembler.accept(tap(1, "22-01-2023 09:20:00", TapType.ON, StopId.STOP3, CARD_2));
+        tripAssembler.accept(tap(2, "22-01-2023 09:21:00", TapType.ON, StopId.STOP1, CARD_1));
+        tripAssembler.finish();
+
+        assertThat(results.size(), is(2));
+        assertThat(results.get(0).getPan(), equalTo(CARD_2));
+        assertThat(results.get(1).getPan(), equalTo(CARD_1));
+        assertThat(results.get(1).getStatus(), equalTo(TripStatus.INCOMPLETE));
+        assertThat(tripAssembler.getOpenTripCount(), is(0));
+    }
+
+    @Test
+    void shouldCloseOnlyTheFinishedCard() {
+        tripAssembler.accept(tap(1, "22-01-2023 09:20:00", TapType.ON, StopId.STOP3, CARD_2));
+        tripAssembler.accept(tap(2, "22-01-2023 09:21:00", TapType.ON, StopId.STOP1, CARD_1));
+        tripAssembler.finishCard(CARD_2);
+        tripAssembler.finishCard(CARD_2);
+
+        assertThat(results.size(), is(1));
+        assertThat(results.get(0).getPan(), equalTo(CARD_2));
+        assertThat(results.get(0).getStatus(), equalTo(TripStatus.INCOMPLETE));
+        assertThat(tripAssembler.getOpenTripCount(), is(1));
+    }
+
+    @Test
+    void shouldRejectTapOffWithoutTapOn() {
+        List<String> rejected = new ArrayList<>();
+        tripAssembler = new TripAssembler(new TravelCostService(), (tripResult, sequence) -> results.add(tripResult),
+                (reason, currentTap, nextTap) -> rejected.add(reason + " " + currentTap.getId() + " " + nextTap), 0);
+        tripAssembler.accept(tap(1, "24-01-2023 16:30:00", TapType.OFF, StopId.STOP2, CARD_1));
+        tripAssembler.finish();
+
+        assertThat(results.isEmpty(), is(true));
+        assertThat(tripAssembler.getUnmatchedTapOffs(), is(1L));
+        assertThat(rejected, equalTo(List.of(RejectReason.UNMATCHED_TAP_OFF + " 1 null")));
+    }
+
+    @Test
+    void shouldExpireTripsOpenForLongerThanTheWindow() {
+        tripAssembler = new TripAssembler(new TravelCostService(), (tripResult, sequence) -> results.add(tripResult), 3600);
+        tripAssembler.accept(tap(1, "22-01-2023 09:00:00", TapType.ON, StopId.STOP1, CARD_1));
+        tripAssembler.accept(tap(2, "22-01-2023 09:30:00", TapType.ON, StopId.STOP2, CARD_2));
+        tripAssembler.accept(tap(3, "22-01-2023 09:59:59", TapType.ON, StopId.STOP3, "378282246310005"));
+        assertThat(results.isEmpty(), is(true));
+
+        // Card 1 expires at 10:00, before this tap OFF; card 2 taps OFF within its window
+        tripAssembler.accept(tap(4, "22-01-2023 10:05:00", TapType.OFF, StopId.STOP3, CARD_1));
+        tripAssembler.accept(tap(5, "22-01-2023 10:06:00", TapType.OFF, StopId.STOP3, CARD_2));
+
+        assertThat(results.size(), is(2));
+        assertThat(results.get(0).getPan(), equalTo(CARD_1));
+        assertThat(results.get(0).getStatus(), equalTo(TripStatus.INCOMPLETE));
+        assertThat(results.get(1).getPan(), equalTo(CARD_2));
+        assertThat(results.get(1).getStatus(), equalTo(TripStatus.COMPLETED));
+        assertThat(tripAssembler.getExpiredTrips(), is(1L));
+        assertThat(tripAssembler.getUnmatchedTapOffs(), is(1L));
+        assertThat(tripAssembler.getOpenTripCount(), is(1));
+    }
+
+    private TapDetail tap(int id, String dateTime, TapType tapType, StopId stopId, String pan) {
+        return new TapDetail(id, ZonedDateTime.parse(dateTime, formatter), tapType, stopId, "Company1", "Bus37", pan);
+    }
+}
@@ -0,0 +1,50 @@
+package younan.george.littlepaycodingchallenge.service;
+
+import org.junit.jupiter.api.Test;
+import younan.george.littlepaycodingchallenge.dto.StopId;
+import younan.george.littlepaycodingchallenge.dto.TripResult;
+import younan.george.littlepaycodingchallenge.enums.TripStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TripResultSinkTest {
+    @Test
+    void shouldWriteValidResultsAndCountTheOthers() {
+        List<TripResult> written = new ArrayList<>();
+        TripResultSink sink = new TripResultSink(tripResult -> tripResult.getDurationSecs() >= 0, written::add);
+        TripResult valid = trip(300);
+        TripResult invalid = trip(-1);
+
+        sink.onTrip(valid, 0);
+        sink.onTrip(invalid, 1);
+
+        assertThat(written, contains(valid));
+        assertThat(sink.getInvalid(), equalTo(1L));
+    }
+
+    @Test
+    void shouldRethrowWriteFailuresUnchecked() {
+        TripResultSink sink = new TripResultSink(tripResult -> true, tripResult -> {
+            throw new IOException("Disk full");
+        });
+
+        UncheckedIOException failure = assertThrows(UncheckedIOException.class, () -> sink.onTrip(trip(300), 0));
+
+        assertThat(failure.getCause(), instanceOf(IOException.class));
+    }
+
+    private static TripResult trip(long durationSecs) {
+        return new TripResult(1_674_392_400L, 1_674_392_400L + durationSecs, durationSecs, StopId.STOP1, StopId.STOP2,
+                new BigDecimal("3.25"), "Company1", "Bus37", "5500005555555559", TripStatus.COMPLETED);
+    }
+}